@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XSL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.cactoos.text.UncheckedText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of {@link Calc}.
+ *
+ * <p>The class is not final, since JMH extends it.</p>
+ *
+ * @since 1.1
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CalcBench {
+
+    /**
+     * The rules.
+     */
+    private String rules;
+
+    /**
+     * Prepare.
+     */
+    @Setup
+    public void setup() {
+        this.rules = new UncheckedText(
+            new TextOf(new ResourceOf("org/polystat/far/rules.txt"))
+        ).asString().trim();
+    }
+
+    /**
+     * Build the XSL from scratch, without the cache.
+     * @return The XSL
+     */
+    @Benchmark
+    public XSL build() {
+        return Calc.build(this.rules);
+    }
+
+    /**
+     * Get the XSL, most probably from the cache.
+     * @return The XSL
+     */
+    @Benchmark
+    public XSL cached() {
+        return new Calc(this.rules).xsl();
+    }
+
+    /**
+     * Find inputs of a function in the compiled table.
+     * @return The inputs
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public List<String> lookup() {
+        return new Calc(this.rules).inputs(".div", 2, "\\perp");
+    }
+
+}
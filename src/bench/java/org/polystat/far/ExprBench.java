@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.xembly.Directives;
+
+/**
+ * Benchmark of {@link Expr#find()} on synthetic options.
+ *
+ * <p>The class is not final, since JMH extends it.</p>
+ *
+ * @since 1.1
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExprBench {
+
+    /**
+     * Number of attributes.
+     */
+    @Param({"2", "8", "32"})
+    public int width;
+
+    /**
+     * Number of groups of options in each attribute.
+     */
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    /**
+     * Contexts of SMT solver.
+     */
+    private Contexts contexts;
+
+    /**
+     * Options to solve.
+     */
+    private XML opts;
+
+    /**
+     * Prepare.
+     */
+    @Setup
+    public void setup() {
+        this.contexts = new Contexts(1);
+        this.opts = new Synthetic(this.width, this.depth).options();
+    }
+
+    /**
+     * Clean up.
+     */
+    @TearDown
+    public void close() {
+        this.contexts.close();
+    }
+
+    /**
+     * Solve.
+     * @return Directives
+     */
+    @Benchmark
+    public Directives find() {
+        return this.contexts.apply(ctx -> new Expr(this.opts, ctx).find());
+    }
+
+}
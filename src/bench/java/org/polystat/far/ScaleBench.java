@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark of {@link FaR} on synthetic objects of growing size.
+ *
+ * <p>The class is not final, since JMH extends it.</p>
+ *
+ * @since 1.1
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScaleBench {
+
+    /**
+     * Number of free attributes.
+     */
+    @Param({"2", "8"})
+    public int width;
+
+    /**
+     * Number of nested calls.
+     */
+    @Param({"2", "8", "32"})
+    public int depth;
+
+    /**
+     * The engine.
+     */
+    private FaR far;
+
+    /**
+     * The object to analyze.
+     */
+    private XML obj;
+
+    /**
+     * Prepare.
+     */
+    @Setup
+    public void setup() {
+        this.far = new FaR();
+        this.obj = new Synthetic(this.width, this.depth).object();
+    }
+
+    /**
+     * Clean up.
+     */
+    @TearDown
+    public void close() {
+        this.far.close();
+    }
+
+    /**
+     * Find all errors.
+     * @return Errors
+     * @throws Exception If fails
+     */
+    @Benchmark
+    public Collection<String> errors() throws Exception {
+        return this.far.errors(name -> this.obj, "\\Phi.test");
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.yegor256.xsline.Shift;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of each stage of the pipeline, one by one.
+ *
+ * <p>The synthetic object is passed through all stages before
+ * the one measured, to get its real input. Then, only this stage
+ * is applied again and again. The class is not final, since
+ * JMH extends it.</p>
+ *
+ * @since 1.1
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StagesBench {
+
+    /**
+     * Unique ID of the stage.
+     */
+    @Param({
+        "expected",
+        "ids",
+        "data-to-attrs",
+        "reverses",
+        "calculate",
+        "cleanup-outsiders",
+        "taus-to-tree",
+        "unmatch-data",
+        "cleanup-conflicts",
+        "cleanup-perps"
+    })
+    public String stage;
+
+    /**
+     * Number of free attributes.
+     */
+    @Param({"2", "8"})
+    public int width;
+
+    /**
+     * Number of nested calls.
+     */
+    @Param({"2", "8", "32"})
+    public int depth;
+
+    /**
+     * The shift to measure.
+     */
+    private Shift shift;
+
+    /**
+     * Position of the shift in its train.
+     */
+    private int position;
+
+    /**
+     * Input of the shift.
+     */
+    private XML input;
+
+    /**
+     * Prepare.
+     */
+    @Setup
+    public void setup() {
+        this.walk(FaR.before(), new Synthetic(this.width, this.depth).object());
+        if (this.shift == null) {
+            throw new IllegalArgumentException(
+                String.format("There is no stage '%s'", this.stage)
+            );
+        }
+    }
+
+    /**
+     * Apply the stage.
+     * @return Output of the stage
+     */
+    @Benchmark
+    public XML apply() {
+        return this.shift.apply(this.position, this.input);
+    }
+
+    /**
+     * Pass the XML through the shifts, until the one needed.
+     * @param shifts The shifts
+     * @param xml The XML
+     * @return The XML after all shifts passed
+     */
+    private XML walk(final Iterable<Shift> shifts, final XML xml) {
+        XML out = xml;
+        int pos = 0;
+        for (final Shift item : shifts) {
+            if (this.shift == null && item.uid().equals(this.stage)) {
+                this.shift = item;
+                this.position = pos;
+                this.input = out;
+            }
+            out = item.apply(pos, out);
+            ++pos;
+        }
+        return out;
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark of the time to the first result of {@link Main},
+ * in a new JVM, on "div-by-zero.eo".
+ *
+ * <p>Every shot starts a new JVM and waits for the first line
+ * it prints, which is the first bug found. The "plain" mode runs
+ * it with the classpath of the benchmark, while the "cds" mode runs
+ * it with the JAR and the archive of classes made by the "cds"
+ * profile, which must be built beforehand:</p>
+ *
+ * <pre> mvn -Pcds,benchmarks verify -DskipTests \
+ *   -Djmh.args="-p mode=plain,cds -p jit=tiered,c1 StartupBench"</pre>
+ *
+ * <p>The class is not final, since JMH extends it.</p>
+ *
+ * @since 1.1
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBench {
+
+    /**
+     * How to start the JVM: "plain" or "cds".
+     */
+    @Param("plain")
+    public String mode;
+
+    /**
+     * Which compilers to use: "tiered" or "c1", which is only the first tier.
+     */
+    @Param("tiered")
+    public String jit;
+
+    /**
+     * The command.
+     */
+    private List<String> command;
+
+    /**
+     * Prepare.
+     */
+    @Setup
+    public void setup() {
+        final Path target = Paths.get("target");
+        final Path xmir = Paths.get("target/test-classes")
+            .resolve("xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir");
+        if (!Files.exists(xmir)) {
+            throw new IllegalStateException(
+                String.format("There is no %s, run 'mvn test' beforehand", xmir)
+            );
+        }
+        this.command = new ArrayList<>(0);
+        this.command.add(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString()
+        );
+        if ("c1".equals(this.jit)) {
+            this.command.add("-XX:TieredStopAtLevel=1");
+        }
+        if ("cds".equals(this.mode)) {
+            final Path archive = target.resolve("far.jsa");
+            if (!Files.exists(archive)) {
+                throw new IllegalStateException(
+                    String.format("There is no %s, build it with 'mvn -Pcds package'", archive)
+                );
+            }
+            this.command.add(String.format("-XX:SharedArchiveFile=%s", archive));
+            this.command.add("-cp");
+            final File[] jars = target.toFile().listFiles(
+                (dir, name) -> name.matches("far-[0-9.]+(-SNAPSHOT)?\\.jar")
+            );
+            this.command.add(
+                String.format(
+                    "%s%s%s", jars[0], File.pathSeparator, target.resolve("lib/*")
+                )
+            );
+        } else {
+            this.command.add("-cp");
+            this.command.add(System.getProperty("java.class.path"));
+        }
+        this.command.addAll(
+            Arrays.asList(Main.class.getName(), xmir.toString())
+        );
+    }
+
+    /**
+     * Start a JVM and wait for the first result.
+     * @return The first line printed
+     * @throws Exception If fails
+     */
+    @Benchmark
+    public String firstResult() throws Exception {
+        final Process proc = new ProcessBuilder(this.command)
+            .redirectError(new File("target/startup-bench.log"))
+            .start();
+        final String line;
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(proc.getInputStream(), StandardCharsets.UTF_8)
+        )) {
+            line = reader.readLine();
+        } finally {
+            proc.destroy();
+            proc.waitFor();
+        }
+        if (line == null) {
+            throw new IllegalStateException(
+                String.format("No result from %s", this.command)
+            );
+        }
+        return line;
+    }
+
+}
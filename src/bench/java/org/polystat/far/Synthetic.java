@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+
+/**
+ * Synthetic objects of any size, for benchmarks.
+ *
+ * <p>The width is the number of free attributes of the object,
+ * while the depth is the number of nested method calls in its
+ * decoratee, like <code>a0.div(a1).plus(a2).div(a0)...</code>.</p>
+ *
+ * @since 1.1
+ */
+final class Synthetic {
+
+    /**
+     * Methods to call, one after another.
+     */
+    private static final String[] METHODS = {".div", ".plus"};
+
+    /**
+     * Number of free attributes.
+     */
+    private final int width;
+
+    /**
+     * Number of nested calls.
+     */
+    private final int depth;
+
+    /**
+     * Ctor.
+     * @param wide Number of free attributes
+     * @param deep Number of nested calls
+     */
+    Synthetic(final int wide, final int deep) {
+        this.width = wide;
+        this.depth = deep;
+    }
+
+    /**
+     * The object, as XMIR, the same as {@link Program} would give.
+     * @return XML of the object
+     */
+    XML object() {
+        final StringBuilder xml = new StringBuilder(0)
+            .append("<o abstract='' line='1' name='test' pos='0'>");
+        for (int idx = 0; idx < this.width; ++idx) {
+            xml.append(
+                String.format("<o line='1' name='a%d' pos='%d'/>", idx, idx + 1)
+            );
+        }
+        xml.append(this.call(this.depth, " name='@'")).append("</o>");
+        return new XMLDocument(xml.toString());
+    }
+
+    /**
+     * Options of attributes, the same as the solver gets.
+     *
+     * <p>Each attribute has a group of options for each level
+     * of depth, while each option depends on two taus, which are
+     * shared with the neighbours.</p>
+     *
+     * @return XML of options
+     */
+    XML options() {
+        final StringBuilder xml = new StringBuilder(0).append("<o>");
+        for (int idx = 0; idx < this.width; ++idx) {
+            xml.append(String.format("<o name='a%d'>", idx));
+            for (int level = 0; level < this.depth; ++level) {
+                final int tau = idx * this.depth + level;
+                xml.append("<opts>")
+                    .append(Synthetic.opt("0", tau, 1, tau + 1, 1))
+                    .append(Synthetic.opt("1", tau, 2, tau + 1, 1))
+                    .append(Synthetic.opt("\\any", tau, 3, tau + 1, 2))
+                    .append("</opts>");
+            }
+            xml.append("</o>");
+        }
+        xml.append("<o name='@'/></o>");
+        return new XMLDocument(xml.toString());
+    }
+
+    /**
+     * A call at the given level of depth.
+     * @param level The level, zero means just an attribute
+     * @param extra Extra XML attributes
+     * @return XMIR
+     */
+    private String call(final int level, final String extra) {
+        final String xml;
+        if (level == 0) {
+            xml = this.leaf(0, extra);
+        } else {
+            xml = String.format(
+                "<o base='%s' line='%d' pos='4'%s>%s%s</o>",
+                Synthetic.METHODS[level % Synthetic.METHODS.length],
+                level + 1, extra, this.call(level - 1, ""), this.leaf(level, "")
+            );
+        }
+        return xml;
+    }
+
+    /**
+     * A reference to an attribute.
+     * @param level The level of depth
+     * @param extra Extra XML attributes
+     * @return XMIR
+     */
+    private String leaf(final int level, final String extra) {
+        return String.format(
+            "<o base='a%d' line='%d' pos='%d' ref='1'%s/>",
+            level % this.width, level + 1, level + 2, extra
+        );
+    }
+
+    /**
+     * Option with two taus.
+     * @param val The value
+     * @param first First tau
+     * @param one Value of the first tau
+     * @param second Second tau
+     * @param two Value of the second tau
+     * @return XML
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private static String opt(final String val, final int first, final int one,
+        final int second, final int two) {
+        return String.format(
+            "<opt x='%s'><tau i='%d:1'>%d</tau><tau i='%d:1'>%d</tau></opt>",
+            val, first, one, second, two
+        );
+    }
+
+}
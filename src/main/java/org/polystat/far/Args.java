@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arguments of the command line, for {@link Main} and {@link Daemon}.
+ *
+ * <p>Options look like "--name=value" and may go anywhere, while all
+ * other arguments are positional. These options are known:
+ * "--threads=N" and "--bugs=N" for {@link FaR}, "--rules=FILE" for
+ * {@link RulesFile}, "--results=FILE" for {@link ResultsFile}, and
+ * "--time=MS", "--options=N" and "--solver=MS" for {@link Budget},
+ * and "--metrics=FILE" for {@link MetricsInMemory}, while each command
+ * may know a few more.</p>
+ *
+ * @since 1.1
+ */
+final class Args {
+
+    /**
+     * Options, by names, without dashes.
+     */
+    private final Map<String, String> opts;
+
+    /**
+     * Positional arguments.
+     */
+    private final List<String> rest;
+
+    /**
+     * Metrics of all analyzers made, if "--metrics" is set.
+     */
+    private final MetricsInMemory metrics;
+
+    /**
+     * Ctor.
+     * @param extra Names of more options the command knows, without dashes
+     * @param args Arguments
+     */
+    Args(final List<String> extra, final String... args) {
+        final List<String> known = new ArrayList<>(extra);
+        known.addAll(
+            Arrays.asList(
+                "threads", "bugs", "rules", "results", "time", "options", "solver", "metrics"
+            )
+        );
+        this.opts = new HashMap<>(0);
+        this.rest = new ArrayList<>(0);
+        this.metrics = new MetricsInMemory();
+        for (final String arg : args) {
+            if (arg.startsWith("--")) {
+                final String[] parts = arg.substring(2).split("=", 2);
+                if (parts.length != 2 || !known.contains(parts[0])) {
+                    throw new IllegalArgumentException(
+                        String.format(
+                            "Unknown argument '%s', must be one of --%s=...",
+                            arg, String.join("=..., --", known)
+                        )
+                    );
+                }
+                this.opts.put(parts[0], parts[1]);
+            } else {
+                this.rest.add(arg);
+            }
+        }
+    }
+
+    /**
+     * Take a number.
+     * @param name Name of the option
+     * @param def The value, if the option is absent
+     * @return The number
+     */
+    int number(final String name, final int def) {
+        final String value = this.opts.get(name);
+        final int result;
+        if (value == null) {
+            result = def;
+        } else {
+            result = Integer.parseInt(value);
+        }
+        return result;
+    }
+
+    /**
+     * Take a number, which must be positive.
+     * @param name Name of the option
+     * @param def The value, if the option is absent
+     * @return The number
+     * @throws IllegalArgumentException If it's below one
+     */
+    int positive(final String name, final int def) {
+        final int result = this.number(name, def);
+        if (result < 1) {
+            throw new IllegalArgumentException(
+                String.format("The option --%s must be positive, while %d given", name, result)
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Take a limit of {@link Budget}, which must be positive.
+     * @param name Name of the option
+     * @return The limit, or the maximum, if the option is absent
+     * @throws IllegalArgumentException If it's below one
+     */
+    long limit(final String name) {
+        final String value = this.opts.get(name);
+        long result = Long.MAX_VALUE;
+        if (value != null) {
+            result = Long.parseLong(value);
+            if (result < 1L) {
+                throw new IllegalArgumentException(
+                    String.format("The option --%s must be positive, while %d given", name, result)
+                );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Positional arguments.
+     * @return Arguments, in their order
+     */
+    List<String> positional() {
+        return this.rest;
+    }
+
+    /**
+     * Make the analyzer.
+     * @return The analyzer
+     */
+    FaR far() {
+        Rules rules = new RulesOf();
+        if (this.opts.containsKey("rules")) {
+            rules = new RulesFile(Paths.get(this.opts.get("rules")));
+        }
+        Results results = new Results.Void();
+        if (this.opts.containsKey("results")) {
+            results = new ResultsFile(Paths.get(this.opts.get("results")));
+        }
+        Metrics mtx = new Metrics.Void();
+        if (this.opts.containsKey("metrics")) {
+            mtx = this.metrics;
+        }
+        return new FaR(
+            this.positive("threads", Runtime.getRuntime().availableProcessors()),
+            this.positive("bugs", 1), false, rules, results, mtx,
+            new Budget(this.limit("time"), this.limit("options"), this.limit("solver"))
+        );
+    }
+
+    /**
+     * Write the metrics of all analyzers made, as JSON, to the file
+     * of "--metrics", if it's set.
+     * @throws IOException If fails
+     */
+    void dump() throws IOException {
+        if (this.opts.containsKey("metrics")) {
+            Files.write(
+                Paths.get(this.opts.get("metrics")),
+                this.metrics.json().getBytes(StandardCharsets.UTF_8)
+            );
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+/**
+ * Limits of the work {@link FaR} may do for one object.
+ *
+ * <p>There are three limits: the time the analysis of an object may
+ * take, the number of options, which may be calculated for it, and
+ * the time one check of the solver may take. The limits are checked
+ * on the way, in the thread that analyzes the object: before every
+ * stage of the trains, while options are calculated, and by the
+ * solver itself. As soon as one of them is over, the analysis of the
+ * object stops and the result is inconclusive, while the thread
+ * moves on to the next object.</p>
+ *
+ * @since 1.1
+ */
+public final class Budget {
+
+    /**
+     * Milliseconds per object.
+     */
+    private final long millis;
+
+    /**
+     * Options per object.
+     */
+    private final long options;
+
+    /**
+     * Milliseconds per check of the solver.
+     */
+    private final long solver;
+
+    /**
+     * Ctor, without limits.
+     */
+    public Budget() {
+        this(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Ctor.
+     * @param time Milliseconds per object
+     * @param opts Options per object
+     * @param check Milliseconds per check of the solver
+     */
+    public Budget(final long time, final long opts, final long check) {
+        this.millis = time;
+        this.options = opts;
+        this.solver = check;
+    }
+
+    /**
+     * Start spending it on one object.
+     * @return The meter
+     */
+    Budget.Meter start() {
+        return new Budget.Meter(this, System.nanoTime());
+    }
+
+    /**
+     * Meter of the budget of one object.
+     *
+     * <p>The meter is used by one thread only.</p>
+     *
+     * @since 1.1
+     */
+    static final class Meter {
+
+        /**
+         * The budget.
+         */
+        private final Budget budget;
+
+        /**
+         * When it started, in nanoseconds.
+         */
+        private final long start;
+
+        /**
+         * Options calculated so far.
+         */
+        private long spent;
+
+        /**
+         * Ctor.
+         * @param bgt The budget
+         * @param nanos When it started, in nanoseconds
+         */
+        Meter(final Budget bgt, final long nanos) {
+            this.budget = bgt;
+            this.start = nanos;
+        }
+
+        /**
+         * Make sure there is still time.
+         * @param where What is about to start, like "reverses"
+         */
+        void time(final String where) {
+            if (this.left() <= 0L) {
+                throw new Budget.Exhausted(
+                    String.format(
+                        "the time budget of %dms is over before %s",
+                        this.budget.millis, where
+                    )
+                );
+            }
+        }
+
+        /**
+         * Count new options and make sure there are not too many
+         * of them and there is still time.
+         * @param more How many options were calculated
+         * @param where Where they were calculated, like "calculate"
+         */
+        void options(final int more, final String where) {
+            this.spent += more;
+            if (this.spent > this.budget.options) {
+                throw new Budget.Exhausted(
+                    String.format(
+                        "the budget of %d options is over in %s",
+                        this.budget.options, where
+                    )
+                );
+            }
+            this.time(where);
+        }
+
+        /**
+         * Timeout of one check of the solver.
+         * @return Milliseconds, or zero if there is no limit
+         */
+        long solver() {
+            final long limit = Math.min(this.budget.solver, this.left());
+            final long result;
+            if (limit >= Integer.MAX_VALUE) {
+                result = 0L;
+            } else {
+                result = Math.max(1L, limit);
+            }
+            return result;
+        }
+
+        /**
+         * Milliseconds left for the object.
+         * @return Milliseconds, maybe negative
+         */
+        private long left() {
+            final long result;
+            if (this.budget.millis == Long.MAX_VALUE) {
+                result = Long.MAX_VALUE;
+            } else {
+                result = this.budget.millis
+                    - (System.nanoTime() - this.start) / 1_000_000L;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The budget of an object is over.
+     *
+     * @since 1.1
+     */
+    static final class Exhausted extends IllegalStateException {
+
+        /**
+         * Serialization marker.
+         */
+        private static final long serialVersionUID = 0x7f3a12c4e5b0d901L;
+
+        /**
+         * Ctor.
+         * @param reason What is over
+         */
+        Exhausted(final String reason) {
+            super(reason);
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Bug found in an object: values of its attributes, which lead
+ * to <code>\perp</code>.
+ *
+ * <p>Besides the values, it knows the taus, which the solver chose
+ * for them, like "t3=1 t8=2", and the boolean expression of taus,
+ * which gives the same values, like "((t3=1)) and ((t8=2))". Both
+ * are empty, if the bug is taken from {@link Results}, since only
+ * the text of bugs is kept there.</p>
+ *
+ * @since 1.1
+ */
+public final class Bug {
+
+    /**
+     * Prefix of the text.
+     */
+    private static final String PREFIX = "\\perp at {";
+
+    /**
+     * Name of the object.
+     */
+    private final String obj;
+
+    /**
+     * Values of attributes, by their names.
+     */
+    private final Map<String, String> attrs;
+
+    /**
+     * Taus chosen by the solver, in text.
+     */
+    private final String chosen;
+
+    /**
+     * Boolean expression of taus.
+     */
+    private final String expr;
+
+    /**
+     * The text of it.
+     */
+    private final String text;
+
+    /**
+     * Ctor.
+     * @param name Name of the object
+     * @param values Values of attributes, by their names
+     * @param taus Taus chosen by the solver, in text
+     * @param expression Boolean expression of taus
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public Bug(final String name, final Map<String, String> values,
+        final String taus, final String expression) {
+        this(name, values, taus, expression, Bug.print(values));
+    }
+
+    /**
+     * Ctor, from the text, like "\perp at {a=0, b=\any}".
+     * @param name Name of the object
+     * @param txt The text
+     */
+    Bug(final String name, final String txt) {
+        this(name, Bug.parse(txt), "", "", txt);
+    }
+
+    /**
+     * Ctor.
+     * @param name Name of the object
+     * @param values Values of attributes, by their names
+     * @param taus Taus chosen by the solver, in text
+     * @param expression Boolean expression of taus
+     * @param txt The text
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Bug(final String name, final Map<String, String> values,
+        final String taus, final String expression, final String txt) {
+        this.obj = name;
+        this.attrs = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+        this.chosen = taus;
+        this.expr = expression;
+        this.text = txt;
+    }
+
+    /**
+     * Name of the object.
+     * @return Name, either the locator or the name in the program
+     */
+    public String object() {
+        return this.obj;
+    }
+
+    /**
+     * Values of attributes.
+     * @return Values by names of attributes, in the order of the object
+     */
+    public Map<String, String> attributes() {
+        return this.attrs;
+    }
+
+    /**
+     * Taus chosen by the solver.
+     * @return Taus in text, or empty if not known
+     */
+    public String taus() {
+        return this.chosen;
+    }
+
+    /**
+     * Boolean expression of taus, which gives the values.
+     * @return The expression, or empty if not known
+     */
+    public String expression() {
+        return this.expr;
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+
+    /**
+     * Print values of attributes as text.
+     * @param values Values of attributes
+     * @return Text, like "\perp at {a=0, b=\any}"
+     */
+    private static String print(final Map<String, String> values) {
+        final Collection<String> parts = new LinkedList<>();
+        for (final Map.Entry<String, String> attr : values.entrySet()) {
+            parts.add(String.format("%s=%s", attr.getKey(), attr.getValue()));
+        }
+        return String.format("%s%s}", Bug.PREFIX, String.join(", ", parts));
+    }
+
+    /**
+     * Read values of attributes from text.
+     *
+     * <p>Only what looks like "name=value" between the braces is
+     * read, the rest is ignored.</p>
+     *
+     * @param txt Text, like "\perp at {a=0, b=\any}"
+     * @return Values of attributes
+     */
+    private static Map<String, String> parse(final String txt) {
+        final Map<String, String> values = new LinkedHashMap<>(0);
+        if (txt.startsWith(Bug.PREFIX) && txt.endsWith("}")) {
+            for (final String part
+                : txt.substring(Bug.PREFIX.length(), txt.length() - 1).split(", ")) {
+                final int eq = part.indexOf('=');
+                if (eq > 0) {
+                    values.put(part.substring(0, eq), part.substring(eq + 1));
+                }
+            }
+        }
+        return values;
+    }
+
+}
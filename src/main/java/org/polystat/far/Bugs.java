@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+
+/**
+ * Listener of bugs, found by {@link FaR} one by one.
+ *
+ * <p>Each bug is reported as soon as the solver finds it, before
+ * the next one is looked for, no matter how the options of the
+ * object were calculated. Then, the object is reported as analyzed,
+ * with the number of its bugs, unless its budget is over and it's
+ * reported as inconclusive. Some bugs of an inconclusive object may
+ * be reported before it.</p>
+ *
+ * <p>Calls come from many threads, if {@link FaR#errorsAll(XML)}
+ * uses many of them, and bugs come while the context of SMT solver
+ * is locked, that's why the listener must be thread-safe and
+ * quick.</p>
+ *
+ * @since 1.1
+ */
+public interface Bugs {
+
+    /**
+     * A bug was found.
+     *
+     * <p>If it returns FALSE, the analysis stops: no more bugs are
+     * looked for, no more objects are analyzed, and nothing else is
+     * reported to the listener.</p>
+     *
+     * @param bug The bug
+     * @return TRUE to go on, FALSE to stop
+     */
+    boolean found(Bug bug);
+
+    /**
+     * The object was analyzed completely.
+     * @param obj Name of the object
+     * @param total How many bugs were found in it
+     */
+    void analyzed(String obj, int total);
+
+    /**
+     * The budget of the object is over, before it was analyzed.
+     * @param obj Name of the object
+     * @param reason Which limit was hit
+     */
+    void inconclusive(String obj, String reason);
+
+    /**
+     * Bugs, which are never kept.
+     *
+     * @since 1.1
+     */
+    final class Void implements Bugs {
+        @Override
+        public boolean found(final Bug bug) {
+            return true;
+        }
+
+        @Override
+        public void analyzed(final String obj, final int total) {
+            // nothing to do
+        }
+
+        @Override
+        public void inconclusive(final String obj, final String reason) {
+            // nothing to do
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Bugs, kept in memory as text, by names of objects.
+ *
+ * <p>This is what {@link FaR#errorsAll(Iterable)} returns: every
+ * analyzed object is there, even without bugs, in the order they were
+ * expected, or done, if not expected. An inconclusive object is not
+ * there at all, even if some of its bugs were found, since its list
+ * of bugs would look complete, while it's not.</p>
+ *
+ * <p>The object is thread-safe.</p>
+ *
+ * @since 1.1
+ */
+final class BugsInMemory implements Bugs {
+
+    /**
+     * Bugs in text, by names of objects.
+     */
+    private final Map<String, Collection<String>> objects;
+
+    /**
+     * Reasons, by names of inconclusive objects.
+     */
+    private final Map<String, String> unsure;
+
+    /**
+     * Ctor.
+     */
+    BugsInMemory() {
+        this.objects = new LinkedHashMap<>(0);
+        this.unsure = new LinkedHashMap<>(0);
+    }
+
+    @Override
+    public boolean found(final Bug bug) {
+        synchronized (this.objects) {
+            this.object(bug.object()).add(bug.toString());
+        }
+        return true;
+    }
+
+    @Override
+    public void analyzed(final String obj, final int total) {
+        synchronized (this.objects) {
+            this.object(obj);
+        }
+    }
+
+    @Override
+    public void inconclusive(final String obj, final String reason) {
+        synchronized (this.objects) {
+            this.objects.remove(obj);
+            this.unsure.put(obj, reason);
+        }
+    }
+
+    /**
+     * Remember the object, before its bugs come, to keep the order.
+     *
+     * <p>Objects are analyzed in parallel and finish in any order,
+     * while the objects expected are listed in the order they were
+     * expected.</p>
+     *
+     * @param obj Name of the object
+     */
+    void expect(final String obj) {
+        synchronized (this.objects) {
+            this.object(obj);
+        }
+    }
+
+    /**
+     * All of them.
+     * @return Bugs in text, by names of objects
+     */
+    Map<String, Collection<String>> all() {
+        synchronized (this.objects) {
+            return new LinkedHashMap<>(this.objects);
+        }
+    }
+
+    /**
+     * Bugs of one object.
+     * @param name Name of the object
+     * @return Bugs in text, maybe empty
+     * @throws IllegalStateException If the object is inconclusive
+     */
+    Collection<String> of(final String name) {
+        synchronized (this.objects) {
+            if (this.unsure.containsKey(name)) {
+                throw new IllegalStateException(
+                    String.format(
+                        "The analysis of %s is inconclusive: %s",
+                        name, this.unsure.get(name)
+                    )
+                );
+            }
+            return this.objects.getOrDefault(name, Collections.emptyList());
+        }
+    }
+
+    /**
+     * Find the object, or make a new one.
+     * @param name Name of the object
+     * @return Its bugs
+     */
+    private Collection<String> object(final String name) {
+        return this.objects.computeIfAbsent(name, key -> new LinkedList<>());
+    }
+
+}
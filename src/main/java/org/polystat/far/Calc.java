@@ -28,12 +28,18 @@ import com.jcabi.xml.XML;
 import com.jcabi.xml.XMLDocument;
 import com.jcabi.xml.XSL;
 import com.jcabi.xml.XSLDocument;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.cactoos.io.ResourceOf;
-import org.cactoos.iterable.IterableOf;
 import org.cactoos.iterable.Joined;
 import org.cactoos.iterable.Mapped;
+import org.cactoos.scalar.Solid;
+import org.cactoos.scalar.Unchecked;
 import org.cactoos.text.TextOf;
 import org.cactoos.text.UncheckedText;
 import org.xembly.Directives;
@@ -61,37 +67,136 @@ public final class Calc {
         "\\{([^}^{]+)}"
     );
 
+    /**
+     * How many texts of rules to keep compiled in the caches.
+     */
+    private static final int KEEP = 8;
+
+    /**
+     * Stylesheets already built, by the text of their rules, only
+     * for the texts used most recently.
+     */
+    private static final Map<String, XSL> CACHE =
+        Collections.synchronizedMap(new Lru<>(Calc.KEEP));
+
+    /**
+     * Tables already compiled, by the text of their rules, only
+     * for the texts used most recently.
+     */
+    private static final Map<String, Table> TABLES =
+        Collections.synchronizedMap(new Lru<>(Calc.KEEP));
+
     /**
      * Text rules.
      */
     private final String rules;
 
+    /**
+     * The XSL, built only once.
+     */
+    private final Unchecked<XSL> stylesheet;
+
+    /**
+     * The table, compiled only once.
+     */
+    private final Unchecked<Table> compiled;
+
     /**
      * Ctor.
      * @param rls Rules
      */
     public Calc(final String rls) {
         this.rules = rls;
+        this.stylesheet = new Unchecked<>(
+            new Solid<>(() -> Calc.CACHE.computeIfAbsent(rls, Calc::build))
+        );
+        this.compiled = new Unchecked<>(
+            new Solid<>(() -> Calc.TABLES.computeIfAbsent(rls, Calc::compile))
+        );
     }
 
     /**
      * Make it.
+     *
+     * <p>The XSL is built only once for this object, while objects
+     * with the same text of rules share it, if it's still in the
+     * cache. The cache keeps only a few texts used most recently,
+     * that's why rules, which change again and again, as in
+     * {@link RulesFile}, don't stay in memory forever. The analysis
+     * doesn't use the XSL, it uses the table, see
+     * {@link StCalculations}, while the XSL is the reference, which
+     * tests and benchmarks compare the table with.</p>
+     *
      * @return The XSL
      */
     public XSL xsl() {
+        return this.stylesheet.value();
+    }
+
+    /**
+     * Find the inputs of a function, which give the output.
+     *
+     * <p>This is the same as the function <code>ps:calc()</code>
+     * in the XSL: the first rule, where both the function and the
+     * output match, gives the values of the argument at the given
+     * position, while <code>\any</code> gives only <code>\any</code>
+     * and an unknown function gives only <code>NONE</code>.</p>
+     *
+     * @param func Name of the function, like ".div"
+     * @param pos Position of the argument, starting from one
+     * @param out The output of the function
+     * @return Possible values of the argument, maybe empty
+     */
+    public List<String> inputs(final String func, final int pos, final String out) {
+        return this.table().inputs(func, pos, out);
+    }
+
+    /**
+     * Can the function return <code>\perp</code>, according to
+     * the rules?
+     * @param func Name of the function, like ".div"
+     * @return TRUE if it can
+     */
+    public boolean reaches(final String func) {
+        return this.table().reaches(func);
+    }
+
+    /**
+     * Compile the rules to a table.
+     *
+     * <p>The table is compiled only once for this object and is
+     * shared the same way as the XSL, see {@link #xsl()}.</p>
+     *
+     * @return The table
+     */
+    Table table() {
+        return this.compiled.value();
+    }
+
+    @Override
+    public String toString() {
+        return this.rules;
+    }
+
+    /**
+     * Build the XSL from the rules.
+     * @param rules The rules in text
+     * @return The XSL
+     */
+    static XSL build(final String rules) {
         final XML xml = new XMLDocument(
             new Xembler(
                 new Directives().add("rules").append(
                     new Joined<>(
                         new Mapped<>(
                             Calc::toDirs,
-                            new IterableOf<>(this.rules.split("\n"))
+                            Calc.lines(rules)
                         )
                     )
                 )
             ).domQuietly()
         );
-        return new XSLDocument(
+        return new CompiledXSL(
             new XSLDocument(
                 new UncheckedText(
                     new TextOf(
@@ -106,27 +211,51 @@ public final class Calc {
         );
     }
 
+    /**
+     * Compile all rules to a table.
+     * @param rules The rules in text
+     * @return The table
+     */
+    private static Table compile(final String rules) {
+        final List<Calc.Rule> list = new ArrayList<>(0);
+        for (final String line : Calc.lines(rules)) {
+            list.add(new Calc.Rule(line));
+        }
+        if (list.isEmpty()) {
+            throw new IllegalStateException("There are no rules");
+        }
+        return new Table(list);
+    }
+
+    /**
+     * Lines with rules, without empty ones and comments.
+     * @param rules The rules in text
+     * @return Lines, trimmed
+     */
+    private static List<String> lines(final String rules) {
+        final List<String> lines = new ArrayList<>(0);
+        for (final String line : rules.split("\n")) {
+            final String trimmed = line.trim();
+            if (!trimmed.isEmpty() && trimmed.charAt(0) != '#') {
+                lines.add(trimmed);
+            }
+        }
+        return lines;
+    }
+
     /**
      * Turn a rule into Xembly directives.
      * @param rule The rule in text
      * @return Directives
      */
     private static Directives toDirs(final String rule) {
-        final String[] parts = rule.split(" -> ");
-        final Matcher left = Calc.LEFT.matcher(parts[0]);
-        if (!left.matches()) {
-            throw new IllegalStateException(
-                String.format("Wrong left part in line '%s'", parts[0])
-            );
-        }
-        final Matcher right = Calc.RIGHT.matcher(parts[1]);
+        final Calc.Rule parsed = new Calc.Rule(rule);
         final Directives dirs = new Directives().add("rule")
-            .add("f").set(left.group(1)).up()
-            .add("y").set(left.group(2)).up()
+            .add("f").set(parsed.func()).up()
+            .add("y").set(parsed.out()).up()
             .add("inputs");
-        while (right.find()) {
+        for (final List<String> inputs : parsed.inputs()) {
             dirs.add("input");
-            final String[] inputs = right.group(1).split(" ");
             for (final String input : inputs) {
                 dirs.add("x").set(input).up();
             }
@@ -135,4 +264,96 @@ public final class Calc {
         return dirs.up().up();
     }
 
+    /**
+     * One rule, parsed.
+     *
+     * @since 1.1
+     */
+    static final class Rule {
+
+        /**
+         * The placeholder of the output.
+         */
+        static final String OUT = "y";
+
+        /**
+         * Name of the function.
+         */
+        private final String name;
+
+        /**
+         * The output, or "y" if any.
+         */
+        private final String res;
+
+        /**
+         * Tuples of inputs.
+         */
+        private final List<List<String>> tuples;
+
+        /**
+         * Ctor.
+         * @param rule The rule in text
+         */
+        Rule(final String rule) {
+            final String[] parts = rule.split(" -> ");
+            if (parts.length != 2) {
+                throw new IllegalStateException(
+                    String.format("There must be one ' -> ' in line '%s'", rule)
+                );
+            }
+            final Matcher left = Calc.LEFT.matcher(parts[0]);
+            if (!left.matches()) {
+                throw new IllegalStateException(
+                    String.format("Wrong left part in line '%s'", parts[0])
+                );
+            }
+            this.name = left.group(1);
+            this.res = left.group(2);
+            this.tuples = new ArrayList<>(0);
+            final Matcher right = Calc.RIGHT.matcher(parts[1]);
+            while (right.find()) {
+                this.tuples.add(Arrays.asList(right.group(1).split(" ")));
+            }
+            if (this.tuples.isEmpty()) {
+                throw new IllegalStateException(
+                    String.format("There are no inputs in line '%s'", rule)
+                );
+            }
+            for (final List<String> tuple : this.tuples) {
+                if (tuple.size() != this.tuples.get(0).size()) {
+                    throw new IllegalStateException(
+                        String.format(
+                            "All inputs must have the same size in line '%s'", rule
+                        )
+                    );
+                }
+            }
+        }
+
+        /**
+         * Name of the function.
+         * @return Name
+         */
+        String func() {
+            return this.name;
+        }
+
+        /**
+         * The output.
+         * @return The output, or "y" if any
+         */
+        String out() {
+            return this.res;
+        }
+
+        /**
+         * Tuples of inputs.
+         * @return Tuples
+         */
+        List<List<String>> inputs() {
+            return this.tuples;
+        }
+    }
+
 }
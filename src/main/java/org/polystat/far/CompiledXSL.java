@@ -0,0 +1,230 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.xml.Sources;
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import com.jcabi.xml.XSL;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Result;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.cactoos.scalar.Solid;
+import org.cactoos.scalar.Unchecked;
+import org.w3c.dom.Document;
+
+/**
+ * XSL stylesheet, which is compiled only once.
+ *
+ * <p>Unlike {@link com.jcabi.xml.XSLDocument}, which asks Saxon
+ * to compile the stylesheet on every transformation, this one
+ * keeps the compiled {@link Templates} and reuses them. The
+ * templates are thread-safe, while a new transformer is made
+ * for every call, that's why the object is thread-safe too.</p>
+ *
+ * @since 1.0
+ */
+public final class CompiledXSL implements XSL {
+
+    /**
+     * The factory, shared by all stylesheets.
+     *
+     * <p>Saxon makes a new configuration for each factory, which takes
+     * longer than compiling most of our stylesheets, that's why only
+     * one factory is made per JVM. It is not thread-safe, while its
+     * URI resolver is different for each stylesheet, that's why
+     * compilation is synchronized on it.</p>
+     */
+    private static final TransformerFactory FACTORY = TransformerFactory.newInstance();
+
+    /**
+     * The text of the stylesheet.
+     */
+    private final String text;
+
+    /**
+     * System ID of the stylesheet.
+     */
+    private final String sid;
+
+    /**
+     * Sources for imports.
+     */
+    private final Sources sources;
+
+    /**
+     * Parameters.
+     */
+    private final Map<String, Object> params;
+
+    /**
+     * Compiled templates.
+     */
+    private final Unchecked<Templates> templates;
+
+    /**
+     * Ctor.
+     * @param txt The text of XSL
+     * @param base System ID
+     */
+    public CompiledXSL(final String txt, final String base) {
+        this(txt, base, Sources.DUMMY);
+    }
+
+    /**
+     * Ctor.
+     * @param txt The text of XSL
+     * @param base System ID
+     * @param srcs Sources for imports
+     */
+    public CompiledXSL(final String txt, final String base,
+        final Sources srcs) {
+        this(
+            txt, base, srcs, new HashMap<>(0),
+            new Unchecked<>(
+                new Solid<>(() -> CompiledXSL.compile(txt, base, srcs))
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param txt The text of XSL
+     * @param base System ID
+     * @param srcs Sources for imports
+     * @param map Parameters
+     * @param tpls Compiled templates
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private CompiledXSL(final String txt, final String base,
+        final Sources srcs, final Map<String, Object> map,
+        final Unchecked<Templates> tpls) {
+        this.text = txt;
+        this.sid = base;
+        this.sources = srcs;
+        this.params = map;
+        this.templates = tpls;
+    }
+
+    @Override
+    public XML transform(final XML xml) {
+        final Document target;
+        try {
+            target = DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder().newDocument();
+        } catch (final ParserConfigurationException ex) {
+            throw new IllegalStateException(ex);
+        }
+        this.transformInto(xml, new DOMResult(target));
+        return new XMLDocument(target);
+    }
+
+    @Override
+    public String applyTo(final XML xml) {
+        final StringWriter writer = new StringWriter();
+        this.transformInto(xml, new StreamResult(writer));
+        return writer.toString();
+    }
+
+    @Override
+    public XSL with(final Sources src) {
+        return new CompiledXSL(this.text, this.sid, src);
+    }
+
+    @Override
+    public XSL with(final String name, final Object value) {
+        final Map<String, Object> map = new HashMap<>(this.params);
+        map.put(name, value);
+        return new CompiledXSL(
+            this.text, this.sid, this.sources, map, this.templates
+        );
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+
+    /**
+     * Transform the XML into the result.
+     * @param xml The XML
+     * @param result Where to put the output
+     */
+    private void transformInto(final XML xml, final Result result) {
+        try {
+            final Transformer trans = this.templates.value().newTransformer();
+            for (final Map.Entry<String, Object> ent : this.params.entrySet()) {
+                trans.setParameter(ent.getKey(), ent.getValue());
+            }
+            trans.transform(new DOMSource(xml.inner()), result);
+        } catch (final TransformerException ex) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Failed to transform by '%s': %s",
+                    this.sid, ex.getMessageAndLocation()
+                ),
+                ex
+            );
+        }
+    }
+
+    /**
+     * Compile the stylesheet.
+     * @param txt The text of XSL
+     * @param base System ID
+     * @param srcs Sources for imports
+     * @return Templates
+     */
+    private static Templates compile(final String txt, final String base,
+        final Sources srcs) {
+        try {
+            synchronized (CompiledXSL.FACTORY) {
+                CompiledXSL.FACTORY.setURIResolver(srcs);
+                return CompiledXSL.FACTORY.newTemplates(
+                    new StreamSource(new StringReader(txt), base)
+                );
+            }
+        } catch (final TransformerConfigurationException ex) {
+            throw new IllegalArgumentException(
+                String.format("Failed to compile '%s'", base),
+                ex
+            );
+        }
+    }
+
+}
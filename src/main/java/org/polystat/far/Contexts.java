@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.microsoft.z3.Context;
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bounded pool of contexts of SMT solver.
+ *
+ * <p>Every context keeps in native memory all expressions ever made
+ * in it, that's why a context is closed after it was used a few
+ * times, and a new one is made instead. By default, it's used only
+ * once: the model the solver finds depends on everything made in the
+ * context before, so in a reused context the same object may get
+ * different bugs, while in a fresh one it always gets the same.
+ * A new context takes about a millisecond, which is much less than
+ * a solver needs for an object. No more than a given number
+ * of contexts are alive at any moment; when all of them are in use,
+ * the caller waits. When the pool is closed, all idle contexts are
+ * closed immediately, while busy ones are closed on release.</p>
+ *
+ * @since 1.1
+ */
+public final class Contexts implements Closeable {
+
+    /**
+     * How many times one context may be used, by default.
+     */
+    private static final int USES = 1;
+
+    /**
+     * Permits to use a context.
+     */
+    private final Semaphore permits;
+
+    /**
+     * How many times one context may be used.
+     */
+    private final int uses;
+
+    /**
+     * Contexts not in use now.
+     */
+    private final Queue<Slot> idle;
+
+    /**
+     * Is it closed?
+     */
+    private final AtomicBoolean closed;
+
+    /**
+     * Ctor.
+     * @param size How many contexts may be alive at the same time
+     */
+    public Contexts(final int size) {
+        this(size, Contexts.USES);
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>A context, which is used more than once, makes the work
+     * faster, but the bugs found are not reproducible.</p>
+     *
+     * @param size How many contexts may be alive at the same time
+     * @param max How many times one context may be used
+     * @throws IllegalArgumentException If any of the numbers is below one
+     */
+    public Contexts(final int size, final int max) {
+        if (size < 1 || max < 1) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "The size of the pool (%d) and the uses of a context (%d) must be positive",
+                    size, max
+                )
+            );
+        }
+        this.permits = new Semaphore(size, true);
+        this.uses = max;
+        this.idle = new ConcurrentLinkedQueue<>();
+        this.closed = new AtomicBoolean();
+    }
+
+    /**
+     * Take a context, use it, and return back to the pool.
+     *
+     * <p>Nothing made inside the context may leave the function,
+     * since the context may be closed right after it.</p>
+     *
+     * @param func The function to use the context
+     * @param <T> Type of result
+     * @return The result of the function
+     */
+    public <T> T apply(final Function<Context, T> func) {
+        if (this.closed.get()) {
+            throw new IllegalStateException("The pool of contexts is closed");
+        }
+        try {
+            this.permits.acquire();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+        try {
+            Slot slot = this.idle.poll();
+            if (slot == null) {
+                slot = new Slot(Expr.context());
+            }
+            boolean healthy = false;
+            try {
+                final T result = func.apply(slot.context());
+                healthy = true;
+                return result;
+            } finally {
+                this.release(slot, healthy);
+            }
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.closed.set(true);
+        for (Slot slot = this.idle.poll(); slot != null; slot = this.idle.poll()) {
+            slot.context().close();
+        }
+    }
+
+    /**
+     * Return the context back to the pool, or close it.
+     * @param slot The slot with the context
+     * @param healthy TRUE if it was used without errors
+     */
+    private void release(final Slot slot, final boolean healthy) {
+        if (!healthy || slot.used() >= this.uses || this.closed.get()) {
+            slot.context().close();
+        } else {
+            this.idle.offer(slot);
+            if (this.closed.get() && this.idle.remove(slot)) {
+                slot.context().close();
+            }
+        }
+    }
+
+    /**
+     * Context and the number of times it was used.
+     *
+     * @since 1.1
+     */
+    private static final class Slot {
+
+        /**
+         * The context.
+         */
+        private final Context ctx;
+
+        /**
+         * How many times it was given out.
+         */
+        private int count;
+
+        /**
+         * Ctor.
+         * @param context The context
+         */
+        Slot(final Context context) {
+            this.ctx = context;
+        }
+
+        /**
+         * The context.
+         * @return The context
+         */
+        Context context() {
+            return this.ctx;
+        }
+
+        /**
+         * Count one more use of the context.
+         * @return How many times it was used, including this one
+         */
+        int used() {
+            ++this.count;
+            return this.count;
+        }
+    }
+
+}
@@ -0,0 +1,476 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.log.Logger;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.cactoos.io.InputOf;
+
+/**
+ * Long-living analyzer, which takes requests as JSON lines.
+ *
+ * <p>The JVM, the stylesheets, the rules and the native library of
+ * SMT solver are loaded once, when the daemon starts, while all
+ * requests use them warm. Each request is one line of JSON, with
+ * the path to XMIR and the locators of objects to analyze; if there
+ * are no locators, all objects of the program are analyzed:</p>
+ *
+ * <pre> {"id": "7", "xmir": "/tmp/a.xmir", "locators": ["\\Phi.test"]}</pre>
+ *
+ * <p>The response is a few lines of JSON, with the same ID: one line
+ * per bug, as soon as it's found, with the values of attributes, the
+ * taus and their expression, one line per object with the number of
+ * its bugs, and the last line with "done", which is there even if the
+ * request fails:</p>
+ *
+ * <pre> {"id": "7", "object": "\\Phi.test", "bug": "\\perp at {a=0, b=\\any}",
+ *   "attributes": {"a": "0", "b": "\\any"}, "taus": "...", "expression": "..."}
+ * {"id": "7", "object": "\\Phi.test", "bugs": 1}
+ * {"id": "7", "done": true, "objects": 1, "ms": 12}</pre>
+ *
+ * <p>An object, which can't be analyzed, gets an "error" instead of
+ * "bugs", an object out of its budget gets "inconclusive" with the
+ * reason, while a request, which can't be done at all, gets an
+ * "error" in the "done" line. Requests of one connection are done one
+ * by one, in the order they come, while connections are served in
+ * parallel, sharing the same {@link FaR}.</p>
+ *
+ * <p>Objects are located with {@link XmirIndex}, which is made once
+ * for each program and kept, while it builds its index again, if the
+ * program changes. Only the indexes of the programs asked for most
+ * recently are kept, that's why a daemon, which lives long and sees
+ * many programs, doesn't hold all of them in memory.</p>
+ *
+ * @since 1.1
+ */
+public final class Daemon {
+
+    /**
+     * How many programs to keep indexes of, by default.
+     */
+    private static final int PROGRAMS = 64;
+
+    /**
+     * Pause after the first failure to accept a connection, in
+     * milliseconds.
+     */
+    private static final long PAUSE = 10L;
+
+    /**
+     * The longest pause after failures to accept connections, in
+     * milliseconds.
+     */
+    private static final long MAX_PAUSE = 5_000L;
+
+    /**
+     * The analyzer.
+     */
+    private final FaR far;
+
+    /**
+     * Indexes of programs, by their paths, only for the programs
+     * asked for most recently.
+     */
+    private final Map<Path, XmirIndex> indexes;
+
+    /**
+     * Ctor.
+     * @param analyzer The analyzer
+     */
+    public Daemon(final FaR analyzer) {
+        this(analyzer, Daemon.PROGRAMS);
+    }
+
+    /**
+     * Ctor.
+     * @param analyzer The analyzer
+     * @param programs How many programs to keep indexes of
+     */
+    Daemon(final FaR analyzer, final int programs) {
+        this.far = analyzer;
+        this.indexes = Collections.synchronizedMap(new Lru<>(programs));
+    }
+
+    /**
+     * Start it, on the standard input and output, or on a port.
+     *
+     * <p>Arguments are optional: "--port=N" to listen on the local
+     * port, instead of the standard input, and the ones of
+     * {@link Args}. Nothing but responses is printed to the
+     * standard output, all logs go to the standard error. The metrics
+     * of "--metrics" are written when the JVM exits, even if the
+     * daemon is stopped by a signal.</p>
+     *
+     * @param args Arguments
+     * @throws IOException If fails
+     */
+    public static void main(final String... args) throws IOException {
+        final PrintStream stdout = System.out;
+        System.setOut(System.err);
+        final Args opts = new Args(Collections.singletonList("port"), args);
+        if (!opts.positional().isEmpty()) {
+            throw new IllegalArgumentException(
+                String.format("Unknown arguments %s", opts.positional())
+            );
+        }
+        final int port = opts.number("port", -1);
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(
+                () -> {
+                    try {
+                        opts.dump();
+                    } catch (final IOException ex) {
+                        Logger.warn(Daemon.class, "Can't write the metrics: %s", ex.getMessage());
+                    }
+                }
+            )
+        );
+        try (FaR analyzer = opts.far()) {
+            final long start = System.currentTimeMillis();
+            analyzer.warm();
+            Logger.info(Daemon.class, "Warmed up in %dms", System.currentTimeMillis() - start);
+            final Daemon daemon = new Daemon(analyzer);
+            if (port < 0) {
+                daemon.serve(System.in, stdout);
+            } else {
+                try (ServerSocket server = new ServerSocket(
+                    port, 0, InetAddress.getLoopbackAddress()
+                )) {
+                    Logger.info(Daemon.class, "Listening on port %d", server.getLocalPort());
+                    daemon.listen(server);
+                }
+            }
+        }
+    }
+
+    /**
+     * Serve connections of the socket, until it's closed.
+     *
+     * <p>Each connection is served in its own thread, the same
+     * way as {@link #serve(InputStream, OutputStream)}.</p>
+     *
+     * <p>If a connection can't be accepted while the socket is open,
+     * for example because there are no file descriptors left, the
+     * next one is accepted after a pause, which is twice as long
+     * after each failure in a row, up to a few seconds. The loop stops
+     * when the socket is closed or the thread is interrupted.</p>
+     *
+     * @param server The socket
+     */
+    public void listen(final ServerSocket server) {
+        final ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            long delay = 0L;
+            while (!server.isClosed() && !Thread.currentThread().isInterrupted()) {
+                try {
+                    final Socket socket = server.accept();
+                    delay = 0L;
+                    pool.submit(
+                        () -> {
+                            try (Socket conn = socket) {
+                                this.serve(conn.getInputStream(), conn.getOutputStream());
+                            } catch (final IOException ex) {
+                                Logger.warn(this, "The connection failed: %s", ex.getMessage());
+                            }
+                        }
+                    );
+                } catch (final IOException ex) {
+                    if (server.isClosed()) {
+                        Logger.debug(this, "The socket is closed: %s", ex.getMessage());
+                    } else {
+                        delay = Math.min(Math.max(delay * 2L, Daemon.PAUSE), Daemon.MAX_PAUSE);
+                        Logger.warn(
+                            this, "Can't accept a connection, will try again in %d ms: %s",
+                            delay, ex.getMessage()
+                        );
+                        Daemon.sleep(delay);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1L, TimeUnit.MINUTES);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wait, or stop waiting if the thread is interrupted.
+     * @param millis How long to wait, in milliseconds
+     */
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Serve requests, one per line, until the end of the input.
+     * @param input Requests
+     * @param output Responses
+     * @throws IOException If fails
+     */
+    public void serve(final InputStream input, final OutputStream output)
+        throws IOException {
+        final BufferedReader reader = new BufferedReader(
+            new InputStreamReader(input, StandardCharsets.UTF_8)
+        );
+        final Writer writer = new BufferedWriter(
+            new OutputStreamWriter(output, StandardCharsets.UTF_8)
+        );
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (!line.trim().isEmpty()) {
+                this.respond(line, writer);
+            }
+        }
+    }
+
+    /**
+     * Do one request and print the response.
+     * @param line The request, in JSON
+     * @param writer Where to print the response
+     * @throws IOException If fails
+     */
+    private void respond(final String line, final Writer writer) throws IOException {
+        final long start = System.currentTimeMillis();
+        String id = "";
+        int total = 0;
+        String error = "";
+        try {
+            final JsonLine request = new JsonLine(line);
+            id = request.string("id", "");
+            final String xmir = request.string("xmir", "");
+            if (xmir.isEmpty()) {
+                throw new IllegalArgumentException("The path to XMIR is not set");
+            }
+            final Path path = Paths.get(xmir).toAbsolutePath();
+            final List<String> locators = request.strings("locators");
+            if (locators.isEmpty()) {
+                final Daemon.Printed printed = new Daemon.Printed(writer, id, "\\Phi.");
+                this.far.errorsAll(new XmirObjects(new InputOf(path)), printed);
+                total = printed.objects();
+            } else {
+                final XmirIndex index = this.indexes.computeIfAbsent(path, XmirIndex::new);
+                for (final String locator : locators) {
+                    this.object(writer, id, index, locator);
+                    ++total;
+                }
+            }
+        // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Exception ex) {
+            Logger.warn(this, "Request '%s' failed: %s", line, ex.getMessage());
+            error = String.valueOf(ex.getMessage());
+        }
+        final String done;
+        if (error.isEmpty()) {
+            done = String.format("\"done\": true, \"objects\": %d", total);
+        } else {
+            done = String.format("\"done\": false, %s", Daemon.field("error", error));
+        }
+        Daemon.line(
+            writer, Daemon.field("id", id), done,
+            String.format("\"ms\": %d", System.currentTimeMillis() - start)
+        );
+    }
+
+    /**
+     * Analyze one object and print its bugs, or the error.
+     * @param writer Where to print
+     * @param id ID of the request
+     * @param index The index of the program
+     * @param locator The object
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void object(final Writer writer, final String id,
+        final XmirIndex index, final String locator) throws IOException {
+        try {
+            this.far.errors(index, locator, new Daemon.Printed(writer, id, ""));
+        // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Exception ex) {
+            Daemon.line(
+                writer,
+                Daemon.field("id", id), Daemon.field("object", locator),
+                Daemon.field("error", String.valueOf(ex.getMessage()))
+            );
+        }
+    }
+
+    /**
+     * Print a line of JSON and flush it.
+     *
+     * <p>Lines may come from many threads of {@link FaR}, that's
+     * why they are printed one at a time.</p>
+     *
+     * @param writer Where to print
+     * @param fields Fields of the object
+     * @throws IOException If fails
+     */
+    private static void line(final Writer writer, final String... fields)
+        throws IOException {
+        synchronized (writer) {
+            writer.write(String.format("{%s}\n", String.join(", ", fields)));
+            writer.flush();
+        }
+    }
+
+    /**
+     * Make a field of JSON with a string.
+     * @param key The key
+     * @param value The value
+     * @return JSON, like "\"id\": \"7\""
+     */
+    private static String field(final String key, final String value) {
+        return String.format("%s: %s", JsonLine.quoted(key), JsonLine.quoted(value));
+    }
+
+    /**
+     * Bugs, printed as soon as they are found.
+     *
+     * @since 1.1
+     */
+    private static final class Printed implements Bugs {
+
+        /**
+         * Where to print.
+         */
+        private final Writer writer;
+
+        /**
+         * ID of the request.
+         */
+        private final String id;
+
+        /**
+         * Prefix of names of objects.
+         */
+        private final String prefix;
+
+        /**
+         * How many objects are done.
+         */
+        private final AtomicInteger done;
+
+        /**
+         * Ctor.
+         * @param out Where to print
+         * @param request ID of the request
+         * @param pfx Prefix of names of objects, to make locators of them
+         */
+        Printed(final Writer out, final String request, final String pfx) {
+            this.writer = out;
+            this.id = request;
+            this.prefix = pfx;
+            this.done = new AtomicInteger();
+        }
+
+        @Override
+        public boolean found(final Bug bug) {
+            final Collection<String> attrs = new LinkedList<>();
+            for (final Map.Entry<String, String> attr : bug.attributes().entrySet()) {
+                attrs.add(Daemon.field(attr.getKey(), attr.getValue()));
+            }
+            this.print(
+                Daemon.field("object", this.prefix + bug.object()),
+                Daemon.field("bug", bug.toString()),
+                String.format("\"attributes\": {%s}", String.join(", ", attrs)),
+                Daemon.field("taus", bug.taus()),
+                Daemon.field("expression", bug.expression())
+            );
+            return true;
+        }
+
+        @Override
+        public void analyzed(final String obj, final int total) {
+            this.done.incrementAndGet();
+            this.print(
+                Daemon.field("object", this.prefix + obj),
+                String.format("\"bugs\": %d", total)
+            );
+        }
+
+        @Override
+        public void inconclusive(final String obj, final String reason) {
+            this.done.incrementAndGet();
+            this.print(
+                Daemon.field("object", this.prefix + obj),
+                Daemon.field("inconclusive", reason)
+            );
+        }
+
+        /**
+         * How many objects are done.
+         * @return Number of them
+         */
+        int objects() {
+            return this.done.get();
+        }
+
+        /**
+         * Print a line of JSON, with the ID of the request.
+         * @param fields Fields of the object, except the ID
+         */
+        private void print(final String... fields) {
+            final String[] all = new String[fields.length + 1];
+            all[0] = Daemon.field("id", this.id);
+            System.arraycopy(fields, 0, all, 1, fields.length);
+            try {
+                Daemon.line(this.writer, all);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+}
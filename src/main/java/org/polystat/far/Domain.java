@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.EnumSort;
+import com.microsoft.z3.Expr;
+import com.microsoft.z3.Model;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finite domain of values of variables, as an enumeration sort.
+ *
+ * <p>All variables in the SMT solver, both attributes and taus, get
+ * their values from a small set of strings, which is known before
+ * solving. Instead of using the theory of strings, we turn this set
+ * into an enumeration sort, where each string is a constant, and
+ * map the constants back to strings when reading the model.</p>
+ *
+ * <p>The first constant of the sort is always the empty string,
+ * which means "no value".</p>
+ *
+ * @since 1.1
+ */
+final class Domain {
+
+    /**
+     * The empty value.
+     */
+    static final String EMPTY = "";
+
+    /**
+     * Counters of sorts made in each context, to give them names,
+     * which are unique in the context.
+     *
+     * <p>Names of sorts are symbols, which Z3 keeps in a global table
+     * for the whole life of the process, even after the context is
+     * closed. That's why sorts are counted in each context on its
+     * own: a context is used once or a few times, so the same few
+     * names are used again and again.</p>
+     */
+    private static final Map<Context, AtomicLong> SORTS =
+        Collections.synchronizedMap(new WeakHashMap<>(0));
+
+    /**
+     * Context of SMT Solver.
+     */
+    private final Context ctx;
+
+    /**
+     * The sort.
+     */
+    private final EnumSort<Object> sort;
+
+    /**
+     * Constants of the sort, by values.
+     */
+    private final Map<String, Expr<EnumSort<Object>>> consts;
+
+    /**
+     * Values, by constants of the sort.
+     */
+    private final Map<Expr<EnumSort<Object>>, String> values;
+
+    /**
+     * Ctor.
+     * @param context Context of SMT solver
+     * @param all All values that may be used
+     */
+    Domain(final Context context, final Iterable<String> all) {
+        this.ctx = context;
+        final Set<String> unique = new LinkedHashSet<>(0);
+        unique.add(Domain.EMPTY);
+        for (final String val : all) {
+            unique.add(val);
+        }
+        final List<String> list = new ArrayList<>(unique);
+        final String[] names = new String[list.size()];
+        for (int idx = 0; idx < names.length; ++idx) {
+            names[idx] = String.format("v%d", idx);
+        }
+        this.sort = context.mkEnumSort(
+            String.format(
+                "far%d",
+                Domain.SORTS.computeIfAbsent(context, key -> new AtomicLong())
+                    .incrementAndGet()
+            ),
+            names
+        );
+        this.consts = new HashMap<>(names.length);
+        this.values = new HashMap<>(names.length);
+        for (int idx = 0; idx < names.length; ++idx) {
+            final Expr<EnumSort<Object>> cnst = this.sort.getConst(idx);
+            this.consts.put(list.get(idx), cnst);
+            this.values.put(cnst, list.get(idx));
+        }
+    }
+
+    /**
+     * The variable is equal to the value.
+     * @param var Name of the variable
+     * @param val The value, which must be in the domain
+     * @return Expression
+     */
+    BoolExpr is(final String var, final String val) {
+        final Expr<EnumSort<Object>> cnst = this.consts.get(val);
+        if (cnst == null) {
+            throw new IllegalArgumentException(
+                String.format("The value '%s' of '%s' is out of domain", val, var)
+            );
+        }
+        return this.ctx.mkEq(this.variable(var), cnst);
+    }
+
+    /**
+     * Value of the variable in the model.
+     * @param model The model
+     * @param var Name of the variable
+     * @return The value, maybe empty
+     */
+    String value(final Model model, final String var) {
+        return this.values.get(model.evaluate(this.variable(var), true));
+    }
+
+    /**
+     * Make a variable.
+     * @param var Name of the variable
+     * @return The variable
+     */
+    private Expr<EnumSort<Object>> variable(final String var) {
+        return this.ctx.mkConst(var, this.sort);
+    }
+
+}
@@ -28,14 +28,18 @@ import com.jcabi.xml.XML;
 import com.microsoft.z3.BoolExpr;
 import com.microsoft.z3.Context;
 import com.microsoft.z3.Model;
+import com.microsoft.z3.Params;
 import com.microsoft.z3.Solver;
 import com.microsoft.z3.Status;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.cactoos.scalar.Solid;
+import org.cactoos.scalar.Unchecked;
 import org.xembly.Directives;
 
 /**
@@ -48,6 +52,11 @@ public final class Expr {
      */
     public static final String NEVER = "N";
 
+    /**
+     * Value, which an attribute never has.
+     */
+    private static final String NONE = "NONE";
+
     /**
      * Rules of SMT Solver.
      */
@@ -58,181 +67,466 @@ public final class Expr {
     }
 
     /**
-     * SMT Solver.
+     * Options of attributes, read only once.
+     */
+    private final Unchecked<Options> options;
+
+    /**
+     * Context of SMT Solver, or NULL if a new one is opened for
+     * each call.
+     */
+    private final Context ctx;
+
+    /**
+     * How many solutions to find, at most.
+     */
+    private final int max;
+
+    /**
+     * Listener of measurements.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Name of the object, for the listener.
      */
-    private static final Context CTX = new Context(Expr.RULES);
+    private final String name;
 
     /**
-     * Path of tau tags in XML.
+     * The budget to spend.
      */
-    private static final String TAU_PATH = "/o/o/opts/opt/tau/@i";
+    private final Budget.Meter meter;
 
     /**
-     * XML to parse.
+     * Listener of bugs.
      */
-    private final XML xml;
+    private final Bugs bugs;
 
     /**
      * Ctor.
+     *
+     * <p>A new context of the solver is opened for each call of
+     * {@link #find()} and closed right after it.</p>
+     *
      * @param xml XML
+     * @deprecated Use {@link #Expr(XML, Context)} with a context,
+     *  which may be used many times, since it's expensive to make
      */
+    @Deprecated
     public Expr(final XML xml) {
-        this.xml = xml;
+        this(xml, null);
+    }
+
+    /**
+     * Ctor.
+     * @param xml XML
+     * @param ctx Context of SMT Solver
+     */
+    public Expr(final XML xml, final Context ctx) {
+        this(xml, ctx, 1);
+    }
+
+    /**
+     * Ctor.
+     * @param xml XML
+     * @param ctx Context of SMT Solver
+     * @param total How many solutions to find, at most
+     */
+    public Expr(final XML xml, final Context ctx, final int total) {
+        this(new Unchecked<>(new Solid<>(() -> new Options(xml.inner()))), ctx, total);
+    }
+
+    /**
+     * Ctor.
+     * @param opts Options of attributes, made without XML
+     * @param ctx Context of SMT Solver
+     * @param total How many solutions to find, at most
+     */
+    Expr(final Options opts, final Context ctx, final int total) {
+        this(opts, ctx, total, new Metrics.Void(), "", new Budget().start());
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>Every check of the solver is limited by the time left in
+     * the budget. If the solver gives up, the budget is exhausted.</p>
+     *
+     * @param opts Options of attributes, made without XML
+     * @param ctx Context of SMT Solver
+     * @param total How many solutions to find, at most
+     * @param mtx Listener of measurements of the solver
+     * @param obj Name of the object, for the listener
+     * @param mtr The budget to spend
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Expr(final Options opts, final Context ctx, final int total,
+        final Metrics mtx, final String obj, final Budget.Meter mtr) {
+        this(opts, ctx, total, mtx, obj, mtr, new Bugs.Void());
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>Each bug is reported to the listener as soon as the solver
+     * finds it, before the next one is looked for. If the listener
+     * doesn't want more, the solver is not asked again.</p>
+     *
+     * @param opts Options of attributes, made without XML
+     * @param ctx Context of SMT Solver
+     * @param total How many solutions to find, at most
+     * @param mtx Listener of measurements of the solver
+     * @param obj Name of the object, for the listeners
+     * @param mtr The budget to spend
+     * @param found Listener of bugs
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Expr(final Options opts, final Context ctx, final int total,
+        final Metrics mtx, final String obj, final Budget.Meter mtr,
+        final Bugs found) {
+        this(new Unchecked<>(() -> opts), ctx, total, mtx, obj, mtr, found);
+    }
+
+    /**
+     * Ctor.
+     * @param opts Options of attributes
+     * @param ctx Context of SMT Solver
+     * @param total How many solutions to find, at most
+     */
+    private Expr(final Unchecked<Options> opts, final Context ctx, final int total) {
+        this(opts, ctx, total, new Metrics.Void(), "", new Budget().start());
+    }
+
+    /**
+     * Ctor.
+     * @param opts Options of attributes
+     * @param ctx Context of SMT Solver
+     * @param total How many solutions to find, at most
+     * @param mtx Listener of measurements of the solver
+     * @param obj Name of the object, for the listener
+     * @param mtr The budget to spend
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Expr(final Unchecked<Options> opts, final Context ctx, final int total,
+        final Metrics mtx, final String obj, final Budget.Meter mtr) {
+        this(opts, ctx, total, mtx, obj, mtr, new Bugs.Void());
+    }
+
+    /**
+     * Ctor.
+     * @param opts Options of attributes
+     * @param ctx Context of SMT Solver
+     * @param total How many solutions to find, at most
+     * @param mtx Listener of measurements of the solver
+     * @param obj Name of the object, for the listeners
+     * @param mtr The budget to spend
+     * @param found Listener of bugs
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Expr(final Unchecked<Options> opts, final Context ctx, final int total,
+        final Metrics mtx, final String obj, final Budget.Meter mtr,
+        final Bugs found) {
+        this.options = opts;
+        this.ctx = ctx;
+        this.max = total;
+        this.metrics = mtx;
+        this.name = obj;
+        this.meter = mtr;
+        this.bugs = found;
+    }
+
+    /**
+     * Make a new context of SMT Solver.
+     *
+     * <p>The caller is responsible for closing it.</p>
+     *
+     * @return Context
+     */
+    static Context context() {
+        return new Context(Expr.RULES);
     }
 
     /**
      * Make it.
+     *
+     * <p>The context of the solver may be shared between instances
+     * of this class and is not thread-safe, that's why the solving
+     * is synchronized on it.</p>
+     *
      * @return Directives
      */
     public Directives find()  {
-        final Solver slv = CTX.mkSolver();
+        final Map<Map<String, String>, String> found = this.found();
+        final Directives dirs = new Directives();
+        for (final Map.Entry<Map<String, String>, String> bug : found.entrySet()) {
+            dirs.xpath("/o").add("input").attr("found", bug.getValue());
+            for (final Map.Entry<String, String> ent : bug.getKey().entrySet()) {
+                dirs.add("a")
+                    .attr("attr", ent.getKey())
+                    .attr("x", ent.getValue())
+                    .up();
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * Find bugs, without making XML.
+     * @return Bugs, each one is values of attributes by their names
+     */
+    List<Map<String, String>> bugs() {
+        return new ArrayList<>(this.found().keySet());
+    }
+
+    /**
+     * Solve it, with the context given, or with a new one.
+     * @return Values of attributes, with the values of taus in text
+     */
+    private Map<Map<String, String>, String> found() {
+        final Map<Map<String, String>, String> found;
+        if (this.ctx == null) {
+            try (Context own = Expr.context()) {
+                found = new Expr(
+                    this.options, own, this.max, this.metrics,
+                    this.name, this.meter, this.bugs
+                ).found();
+            }
+        } else {
+            synchronized (this.ctx) {
+                found = this.solve();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Solve it, while holding the lock of the context.
+     *
+     * <p>All variables get their values from a finite domain,
+     * which is made of all values met in the XML, instead of the
+     * theory of strings, which is much slower. That's why the
+     * solver for the logic of finite domains is used. An attribute,
+     * which has no options, gets the empty value and doesn't
+     * show up in the solution.</p>
+     *
+     * <p>Before each check, the time left in the budget is checked
+     * and becomes the timeout of the check, so that the budget is
+     * never overspent, no matter how many bugs there are.</p>
+     *
+     * <p>The solver is asked again and again, while it finds new
+     * solutions, but no more than the maximum. After each model,
+     * its values of attributes are blocked by a new assertion, so
+     * the next model is a different bug, and the solver is asked no
+     * more than once per bug, plus once at the end, no matter how
+     * many assignments of taus give the same bug. Each bug is
+     * reported to the listener of bugs right away.</p>
+     *
+     * @return Values of attributes, with the values of taus in text
+     */
+    private Map<Map<String, String>, String> solve() {
+        final Options opts = this.options.value();
+        final List<String> all = new ArrayList<>(0);
+        all.add(Expr.NONE);
+        all.addAll(opts.values());
+        final Domain dom = new Domain(this.ctx, all);
+        final Solver slv = this.ctx.mkSolver("QF_FD");
         final List<BoolExpr> list = new ArrayList<>(0);
-        for (final XML obj : this.xml.nodes("o/o")) {
-            final String name = obj.xpath("@name").get(0);
-            BoolExpr equation = CTX.mkNot(
-                CTX.mkEq(
-                    CTX.mkConst(name, CTX.getStringSort()),
-                    CTX.mkString("NONE")
-                )
-            );
-            final BoolExpr cur = opts(obj, name);
-            if (!cur.isFalse()) {
-                equation = CTX.mkAnd(cur, equation);
+        final List<String> attrs = new ArrayList<>(opts.attrs().size());
+        for (final Options.Attr attr : opts.attrs()) {
+            final String name = attr.name();
+            attrs.add(name);
+            final BoolExpr cur = this.opts(attr, dom);
+            if (cur.isFalse()) {
+                list.add(dom.is(name, Domain.EMPTY));
+            } else {
+                list.add(
+                    this.ctx.mkAnd(
+                        cur, this.ctx.mkNot(dom.is(name, Expr.NONE))
+                    )
+                );
             }
-            list.add(equation);
         }
-        list.add(this.mkVariables());
+        list.add(this.mkVariables(opts.taus(), dom));
         slv.add(list.toArray(new BoolExpr[0]));
-        final Directives dirs = new Directives();
-        if (slv.check() == Status.SATISFIABLE) {
+        final Set<String> vars = opts.taus().keySet();
+        final Map<Map<String, String>, String> found = new LinkedHashMap<>(0);
+        long nanos = 0L;
+        int checks = 0;
+        Status status = Status.SATISFIABLE;
+        boolean more = true;
+        while (more && found.size() < this.max) {
+            this.limit(slv);
+            final long start = System.nanoTime();
+            status = slv.check();
+            nanos += System.nanoTime() - start;
+            ++checks;
+            if (status != Status.SATISFIABLE) {
+                break;
+            }
             final Model model = slv.getModel();
-            dirs.xpath("o").add("input").attr("found", this.found(model));
-            for (final String var : this.xml.xpath("/o/o/@name")) {
-                String val = model.evaluate(CTX.mkConst(var, CTX.getStringSort()), true).toString();
-                val = val.substring(1, val.length() - 1);
-                if (!val.isEmpty()) {
-                    dirs.xpath("/o/input").add("a")
-                        .attr("attr", var)
-                        .attr("x", val);
+            final Map<String, String> taus = Expr.assignment(model, dom, vars);
+            final Map<String, String> values = Expr.assignment(model, dom, attrs);
+            final Map<String, String> bug = new LinkedHashMap<>(0);
+            for (final Map.Entry<String, String> ent : values.entrySet()) {
+                if (!ent.getValue().isEmpty()) {
+                    bug.put(ent.getKey(), ent.getValue());
                 }
             }
+            final String text = Expr.found(taus);
+            found.put(bug, text);
+            more = this.bugs.found(new Bug(this.name, bug, text, opts.expression(bug)));
+            slv.add(new BoolExpr[] {this.blocking(dom, values)});
         }
-        return dirs;
+        this.metrics.solver(this.name, nanos, checks, slv.getNumAssertions());
+        if (status == Status.UNKNOWN) {
+            throw new Budget.Exhausted(
+                String.format("the solver gave up: %s", slv.getReasonUnknown())
+            );
+        }
+        return found;
     }
 
     /**
-     * Parse opts tags.
-     * @param xml Current XML block
-     * @param name Attr name of current XML block
+     * Make sure there is still time for one more check, and
+     * limit the check by the time left.
+     * @param slv The solver
+     */
+    private void limit(final Solver slv) {
+        this.meter.time("the check of the solver");
+        final long timeout = this.meter.solver();
+        if (timeout > 0L) {
+            final Params params = this.ctx.mkParams();
+            params.add("timeout", (int) timeout);
+            slv.setParameters(params);
+        }
+    }
+
+    /**
+     * Make BoolExpr of all opts of the attribute.
+     * @param attr The attribute
+     * @param dom Domain of values
      * @return BoolExpr of current block
      */
-    private static BoolExpr opts(final XML xml, final String name) {
-        BoolExpr result = CTX.mkFalse();
+    private BoolExpr opts(final Options.Attr attr, final Domain dom) {
+        final String name = attr.name();
+        BoolExpr result = this.ctx.mkFalse();
         final List<Map<String, BoolExpr>> obj = new ArrayList<>(0);
-        for (final XML opts : xml.nodes("opts")) {
-            obj.add(opt(opts));
+        for (final List<Options.Opt> opts : attr.opts()) {
+            obj.add(this.opt(opts, dom));
         }
         final Set<String> values = values(obj);
         for (final String val : values) {
             if (!possible(obj, val)) {
                 continue;
             }
-            final BoolExpr cur = CTX.mkAnd(
-                CTX.mkEq(
-                    CTX.mkConst(name, CTX.getStringSort()),
-                    CTX.mkString(val)
-                ),
-                mkNegations(obj, val)
+            final BoolExpr cur = this.ctx.mkAnd(
+                dom.is(name, val),
+                this.mkNegations(obj, val)
             );
-            result = CTX.mkOr(result, cur);
+            result = this.ctx.mkOr(result, cur);
         }
         return result;
     }
 
     /**
-     * Parse opt tags of current opts block.
-     * @param xml Current XML block
+     * Make BoolExprs of one group of options.
+     * @param opts Options of one opts block
+     * @param dom Domain of values
      * @return Set of all value of opt and its BoolExpr
      */
-    private static Map<String, BoolExpr> opt(final XML xml) {
+    private Map<String, BoolExpr> opt(final List<Options.Opt> opts, final Domain dom) {
         final Map<String, BoolExpr> result = new HashMap<>();
-        for (final XML opt : xml.nodes("opt")) {
-            final String val = opt.xpath("@x").get(0);
-            final BoolExpr old = result.getOrDefault(val, CTX.mkFalse());
-            result.put(val, CTX.mkOr(taus(opt), old));
+        for (final Options.Opt opt : opts) {
+            final String val = opt.value();
+            final BoolExpr old = result.getOrDefault(val, this.ctx.mkFalse());
+            result.put(val, this.ctx.mkOr(this.taus(opt, dom), old));
         }
         return result;
     }
 
     /**
-     * Parse tau tags of current opt block.
-     * @param xml Current XML block
+     * Make BoolExpr of all taus of one option.
+     * @param opt The option
+     * @param dom Domain of values
      * @return BoolExpr of this opt block
      */
-    private static BoolExpr taus(final XML xml) {
-        BoolExpr result = CTX.mkTrue();
-        for (final XML tau : xml.nodes("tau")) {
-            final String var = tau.xpath("@i").get(0).split(":")[0];
-            final String val = tau.xpath("text()").get(0);
-            final BoolExpr cur = CTX.mkEq(
-                CTX.mkConst(var, CTX.mkStringSort()),
-                CTX.mkString(val)
-            );
-            result = CTX.mkAnd(result, cur);
+    private BoolExpr taus(final Options.Opt opt, final Domain dom) {
+        final List<BoolExpr> all = new ArrayList<>(opt.taus().size() + 1);
+        all.add(this.ctx.mkTrue());
+        for (final Map.Entry<String, String> tau : opt.taus()) {
+            all.add(dom.is(tau.getKey(), tau.getValue()));
         }
-        return result;
+        return this.ctx.mkAnd(all.toArray(new BoolExpr[0]));
     }
 
     /**
      * Solution of Boolean Expressions consisting all tau variables.
-     * @param model Model
+     * @param taus Values of taus
      * @return Representation of an expression in a string
      */
-    private String found(final Model model) {
-        final Set<String> vars = new HashSet<>();
+    private static String found(final Map<String, String> taus) {
         final StringBuilder result = new StringBuilder();
-        for (final String var : this.xml.xpath(Expr.TAU_PATH)) {
-            vars.add(var.split(":")[0]);
-        }
-        for (final String var : vars) {
-            String val = model.evaluate(CTX.mkConst(var, CTX.getStringSort()), true).toString();
-            val = val.substring(1, val.length() - 1);
+        for (final Map.Entry<String, String> tau : taus.entrySet()) {
+            if (result.length() > 0) {
+                result.append(' ');
+            }
             result.append("\uD835\uDF0F")
-                .append(var)
+                .append(tau.getKey())
                 .append('=')
-                .append(val)
-                .append(' ');
+                .append(tau.getValue());
         }
-        result.setLength(result.length() - 1);
         return result.toString();
     }
 
     /**
-     * Makes a BoolExpr of all possible values of tau.
-     * @return BoolExpr
+     * Values of variables in the model.
+     * @param model Model
+     * @param dom Domain of values
+     * @param vars Names of variables
+     * @return Values by names
      */
-    private BoolExpr mkVariables() {
-        final List<String> vars = this.xml.xpath(Expr.TAU_PATH);
-        final Map<String, Set<String>> variables = new HashMap<>();
+    private static Map<String, String> assignment(final Model model,
+        final Domain dom, final Iterable<String> vars) {
+        final Map<String, String> result = new LinkedHashMap<>(0);
         for (final String var : vars) {
-            final String name = var.split(":")[0];
-            variables.putIfAbsent(name, new HashSet<>());
-            final String path = String.format("/o/o/opts/opt/tau[@i='%s']/text()", var);
-            variables.get(name).addAll(this.xml.xpath(path));
+            result.put(var, dom.value(model, var));
         }
-        BoolExpr result = CTX.mkTrue();
-        for (final String var : variables.keySet()) {
-            BoolExpr cur = CTX.mkFalse();
-            for (final String val : variables.get(var)) {
-                final BoolExpr expr = CTX.mkEq(
-                    CTX.mkConst(var, CTX.getStringSort()),
-                    CTX.mkString(val)
-                );
-                cur = CTX.mkOr(cur, expr);
+        return result;
+    }
+
+    /**
+     * Makes a BoolExpr, which forbids these values of variables.
+     * @param dom Domain of values
+     * @param vars Values of variables
+     * @return BoolExpr
+     */
+    private BoolExpr blocking(final Domain dom, final Map<String, String> vars) {
+        final List<BoolExpr> all = new ArrayList<>(vars.size());
+        for (final Map.Entry<String, String> var : vars.entrySet()) {
+            all.add(dom.is(var.getKey(), var.getValue()));
+        }
+        return this.ctx.mkNot(this.ctx.mkAnd(all.toArray(new BoolExpr[0])));
+    }
+
+    /**
+     * Makes a BoolExpr of all possible values of tau.
+     * @param taus Possible values by names of taus
+     * @param dom Domain of values
+     * @return BoolExpr
+     */
+    private BoolExpr mkVariables(final Map<String, Set<String>> taus,
+        final Domain dom) {
+        final List<BoolExpr> all = new ArrayList<>(taus.size() + 1);
+        all.add(this.ctx.mkTrue());
+        for (final Map.Entry<String, Set<String>> tau : taus.entrySet()) {
+            final List<BoolExpr> cur = new ArrayList<>(tau.getValue().size() + 1);
+            cur.add(this.ctx.mkFalse());
+            for (final String val : tau.getValue()) {
+                cur.add(dom.is(tau.getKey(), val));
             }
-            result = CTX.mkAnd(result, cur);
+            all.add(this.ctx.mkOr(cur.toArray(new BoolExpr[0])));
         }
-        return result;
+        return this.ctx.mkAnd(all.toArray(new BoolExpr[0]));
     }
 
     /**
@@ -241,21 +535,21 @@ public final class Expr {
      * @param val Value of o-tag
      * @return BoolExpr
      */
-    private static BoolExpr mkNegations(final List<Map<String, BoolExpr>> obj, final String val) {
-        BoolExpr result = CTX.mkTrue();
+    private BoolExpr mkNegations(final List<Map<String, BoolExpr>> obj, final String val) {
+        BoolExpr result = this.ctx.mkTrue();
         for (final Map<String, BoolExpr> opt : obj) {
-            BoolExpr negations = CTX.mkFalse();
-            BoolExpr cur = CTX.mkFalse();
+            BoolExpr negations = this.ctx.mkFalse();
+            BoolExpr cur = this.ctx.mkFalse();
             for (final String oth : opt.keySet()) {
                 final BoolExpr expr = opt.get(oth);
                 if (match(val, oth)) {
-                    cur = CTX.mkOr(cur, opt.get(oth));
+                    cur = this.ctx.mkOr(cur, opt.get(oth));
                 } else {
-                    negations = CTX.mkOr(negations, expr);
+                    negations = this.ctx.mkOr(negations, expr);
                 }
             }
-            cur = CTX.mkAnd(cur, CTX.mkNot(negations));
-            result = CTX.mkAnd(result, cur);
+            cur = this.ctx.mkAnd(cur, this.ctx.mkNot(negations));
+            result = this.ctx.mkAnd(result, cur);
         }
         return result;
     }
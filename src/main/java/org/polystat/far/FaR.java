@@ -24,154 +24,965 @@
 
 package org.polystat.far;
 
+import com.jcabi.log.Logger;
 import com.jcabi.xml.ClasspathSources;
 import com.jcabi.xml.XML;
 import com.jcabi.xml.XMLDocument;
 import com.jcabi.xml.XSL;
-import com.jcabi.xml.XSLDocument;
 import com.yegor256.xsline.Shift;
-import com.yegor256.xsline.StEndless;
+import com.yegor256.xsline.StBefore;
 import com.yegor256.xsline.StLambda;
-import com.yegor256.xsline.StRepeated;
 import com.yegor256.xsline.TrDefault;
 import com.yegor256.xsline.TrLogged;
 import com.yegor256.xsline.TrXSL;
 import com.yegor256.xsline.Train;
 import com.yegor256.xsline.Xsline;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
-import javax.xml.transform.stream.StreamSource;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import org.cactoos.Func;
-import org.cactoos.io.InputStreamOf;
 import org.cactoos.io.ResourceOf;
 import org.cactoos.iterable.Mapped;
 import org.cactoos.text.TextOf;
 import org.cactoos.text.UncheckedText;
-import org.xembly.Directives;
-import org.xembly.Xembler;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 /**
  * Finding bugs via reverses.
  *
+ * <p>The object keeps a pool of contexts of SMT solver, which live
+ * in native memory. Close it when it's not needed anymore.</p>
+ *
  * @since 1.0
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
-public final class FaR {
+public final class FaR implements Closeable {
+
+    /**
+     * XPath of objects, which can be analyzed, in a program.
+     */
+    private static final String OBJECTS = String.join(
+        "",
+        "/program/objects/o[@name and o[@name='@']",
+        " and o[not(@base) and not(o)]]"
+    );
+
+    /**
+     * XPath of an object, which can be analyzed, in its own document.
+     */
+    private static final String OBJECT = String.join(
+        "",
+        "/o[@name and o[@name='@']",
+        " and o[not(@base) and not(o)]]"
+    );
+
+    /**
+     * Version of the engine, which is a part of the keys of results.
+     *
+     * <p>The results of one version are not used by another one, since
+     * the bugs found may be different. The number must be increased
+     * every time the analysis changes the bugs it finds, while the
+     * version of the JAR is added to it, if known, so that a release
+     * never takes the results of another one.</p>
+     */
+    private static final String VERSION = FaR.version("3");
+
+    /**
+     * The object to warm up with, in {@link #warm()}.
+     */
+    private static final String WARM = String.join(
+        "",
+        "<o abstract='' name='warm' line='1'><o name='a' line='1' pos='1'/>",
+        "<o name='b' line='1' pos='2'/><o base='.div' name='@' line='2' pos='2'>",
+        "<o base='a' ref='1' line='2' pos='3'/><o base='b' ref='1' line='2' pos='4'/>",
+        "</o></o>"
+    );
+
+    /**
+     * Stylesheets already compiled, by their names.
+     */
+    private static final Map<String, XSL> XSLS = new ConcurrentHashMap<>(0);
+
+    /**
+     * How many threads to use for many objects.
+     */
+    private final int threads;
+
+    /**
+     * How many bugs to find in one object, at most.
+     */
+    private final int max;
+
+    /**
+     * Contexts of SMT solver.
+     */
+    private final Contexts contexts;
+
+    /**
+     * The rules.
+     */
+    private final Rules rules;
+
+    /**
+     * Calculate options in memory, instead of the trains of shifts?
+     */
+    private final boolean memory;
+
+    /**
+     * Bugs found earlier.
+     */
+    private final Results results;
+
+    /**
+     * Listener of measurements.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Limits of the work for one object.
+     */
+    private final Budget budget;
+
+    /**
+     * Version of the engine, in the keys of results.
+     */
+    private final String version;
+
+    /**
+     * How many objects went which way, by names of the ways.
+     */
+    private final Map<String, AtomicLong> counters;
+
+    /**
+     * Ctor.
+     */
+    public FaR() {
+        this(1);
+    }
+
+    /**
+     * Ctor.
+     * @param total How many threads to use in {@link #errorsAll(XML)}
+     */
+    public FaR(final int total) {
+        this(total, 1);
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>By default, only one bug is reported for each object, even
+     * if there are more. With a bigger maximum, the solver is asked
+     * for more solutions, each giving a different bug.</p>
+     *
+     * @param total How many threads to use in {@link #errorsAll(XML)}
+     * @param bugs How many bugs to find in one object, at most
+     */
+    public FaR(final int total, final int bugs) {
+        this(total, bugs, false);
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>By default, the options of the object are calculated by the
+     * train of XSL shifts. In memory, the same options are calculated
+     * by {@link Reverses} in Java objects, while no XML is made at
+     * all, unless the logging level is DEBUG. The bugs found are the
+     * same, but it's much faster. Either way, the solver reports each
+     * bug as soon as it's found, with its expression.</p>
+     *
+     * @param total How many threads to use in {@link #errorsAll(XML)}
+     * @param bugs How many bugs to find in one object, at most
+     * @param mem Calculate options in memory, without XML?
+     */
+    public FaR(final int total, final int bugs, final boolean mem) {
+        this(total, bugs, mem, new RulesOf());
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>The rules are asked for only once in each call to
+     * {@link #errors(Func, String)} or {@link #errorsAll(XML)}, all
+     * objects of the call are analyzed with the same rules, even if
+     * they change in the meantime, for example in {@link RulesFile}.</p>
+     *
+     * @param total How many threads to use in {@link #errorsAll(XML)}
+     * @param bugs How many bugs to find in one object, at most
+     * @param mem Calculate options in memory, without XML?
+     * @param rls The rules of calculation
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public FaR(final int total, final int bugs, final boolean mem,
+        final Rules rls) {
+        this(total, bugs, mem, rls, new Results.Void());
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>Before analyzing an object, its bugs are looked up in the
+     * results, by the fingerprint of the object, the rules, the version
+     * of the engine and the maximum of bugs. If they are there, the
+     * object is not analyzed at all. Otherwise, they are saved there,
+     * as soon as they are found. For example, with {@link ResultsFile}
+     * only objects changed since the previous run are analyzed.</p>
+     *
+     * @param total How many threads to use in {@link #errorsAll(XML)}
+     * @param bugs How many bugs to find in one object, at most
+     * @param mem Calculate options in memory, without XML?
+     * @param rls The rules of calculation
+     * @param found Bugs found earlier
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public FaR(final int total, final int bugs, final boolean mem,
+        final Rules rls, final Results found) {
+        this(total, bugs, mem, rls, found, new Metrics.Void());
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>Every stage of the train of shifts, applied to an object,
+     * and the solver are reported to the listener, with the name of
+     * the object, which is either the locator in
+     * {@link #errors(Func, String)} or the name of the object in
+     * {@link #errorsAll(XML)}. In memory, only the solver is
+     * reported, since there is no train.</p>
+     *
+     * @param total How many threads to use in {@link #errorsAll(XML)}
+     * @param bugs How many bugs to find in one object, at most
+     * @param mem Calculate options in memory, without XML?
+     * @param rls The rules of calculation
+     * @param found Bugs found earlier
+     * @param mtx Listener of measurements, like {@link MetricsInMemory}
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public FaR(final int total, final int bugs, final boolean mem,
+        final Rules rls, final Results found, final Metrics mtx) {
+        this(total, bugs, mem, rls, found, mtx, new Budget());
+    }
+
+    /**
+     * Ctor.
+     *
+     * <p>If the budget of an object is over, its analysis stops, it's
+     * counted as "inconclusive" in {@link #counters()} and reported
+     * to {@link Bugs#inconclusive(String, String)} with the limit that
+     * was hit. Such a result is not saved to the results, the object
+     * will be analyzed again next time.</p>
+     *
+     * @param total How many threads to use in {@link #errorsAll(XML)}
+     * @param bugs How many bugs to find in one object, at most
+     * @param mem Calculate options in memory, without XML?
+     * @param rls The rules of calculation
+     * @param found Bugs found earlier
+     * @param mtx Listener of measurements, like {@link MetricsInMemory}
+     * @param bgt Limits of the work for one object
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public FaR(final int total, final int bugs, final boolean mem,
+        final Rules rls, final Results found, final Metrics mtx, final Budget bgt) {
+        this(total, bugs, mem, rls, found, mtx, bgt, FaR.VERSION);
+    }
+
+    /**
+     * Ctor.
+     * @param total How many threads to use in {@link #errorsAll(XML)}
+     * @param bugs How many bugs to find in one object, at most
+     * @param mem Calculate options in memory, without XML?
+     * @param rls The rules of calculation
+     * @param found Bugs found earlier
+     * @param mtx Listener of measurements, like {@link MetricsInMemory}
+     * @param bgt Limits of the work for one object
+     * @param ver Version of the engine, in the keys of results
+     * @throws IllegalArgumentException If any of the numbers is below one
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    FaR(final int total, final int bugs, final boolean mem, final Rules rls,
+        final Results found, final Metrics mtx, final Budget bgt, final String ver) {
+        if (total < 1 || bugs < 1) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Both the number of threads (%d) and the maximum of bugs (%d) must be positive",
+                    total, bugs
+                )
+            );
+        }
+        this.threads = total;
+        this.max = bugs;
+        this.contexts = new Contexts(total);
+        this.rules = rls;
+        this.memory = mem;
+        this.results = found;
+        this.metrics = mtx;
+        this.budget = bgt;
+        this.version = ver;
+        this.counters = new LinkedHashMap<>(0);
+        final String[] ways = {"cached", "no-perps", "no-options", "solved", "inconclusive"};
+        for (final String name : ways) {
+            this.counters.put(name, new AtomicLong());
+        }
+    }
 
     /**
      * Find all errors.
      *
+     * <p>The method is thread-safe: all stylesheets are compiled
+     * during the first call and then reused by all further calls,
+     * from any thread.</p>
+     *
      * @param xmir The program
      * @param locator Name of the object to fetch
      * @return List of errors found
-     * @throws Exception If fails
-     * @checkstyle NonStaticMethodCheck (10 lines)
+     * @throws Exception If fails, or if the budget of the object is over
      */
     public Collection<String> errors(final Func<String, XML> xmir,
         final String locator) throws Exception {
-        final XML obj = xmir.apply(locator);
-        final Train<Shift> train = new TrXSL<>(new TrLogged(new TrDefault<>()))
+        final BugsInMemory bugs = new BugsInMemory();
+        this.errors(xmir, locator, bugs);
+        return bugs.of(locator);
+    }
+
+    /**
+     * Find all errors and report them one by one.
+     *
+     * <p>The same as {@link #errors(Func, String)}, but each bug is
+     * reported to the listener as soon as it's found, with the values
+     * of attributes, the taus chosen by the solver and their
+     * expression, instead of the text.</p>
+     *
+     * @param xmir The program
+     * @param locator Name of the object to fetch
+     * @param bugs Listener of bugs
+     * @throws Exception If fails
+     */
+    public void errors(final Func<String, XML> xmir, final String locator,
+        final Bugs bugs) throws Exception {
+        this.errors(xmir.apply(locator), this.rules.calc(), locator, new FaR.Until(bugs));
+    }
+
+    /**
+     * Find all errors in all objects of the program.
+     *
+     * <p>The program is a complete XMIR document, which is
+     * already parsed. All top-level abstract objects, which have
+     * free attributes and a decoratee, are analyzed without parsing
+     * the program again. Objects don't depend on each other, that's
+     * why they are analyzed in parallel, by a pool of threads. Each
+     * thread takes its own context of SMT solver from the pool.</p>
+     *
+     * @param program The program, as XMIR
+     * @return Lists of errors found, by names of objects
+     */
+    public Map<String, Collection<String>> errorsAll(final XML program) {
+        return this.errorsAll(
+            new Mapped<>(
+                obj -> new XMLDocument(obj.deepCopy().getOwnerDocument()),
+                program.nodes(FaR.OBJECTS)
+            )
+        );
+    }
+
+    /**
+     * Find all errors in all objects, one by one.
+     *
+     * <p>Each object is a document, where the root element is the
+     * object, like the ones made by {@link XmirObjects}. Objects, which
+     * can't be analyzed, because they have no free attributes or no
+     * decoratee, are skipped. Objects are taken from the iterable only
+     * when there is a thread ready to analyze them, that's why no more
+     * than two objects per thread are in memory at a time, no matter
+     * how many objects there are. They are analyzed in parallel, the
+     * same way as in {@link #errorsAll(XML)}. Objects, whose budget
+     * is over, are not in the result, they are only counted in
+     * {@link #counters()}.</p>
+     *
+     * @param objects The objects
+     * @return Lists of errors found, by names of objects
+     */
+    public Map<String, Collection<String>> errorsAll(final Iterable<XML> objects) {
+        final BugsInMemory bugs = new BugsInMemory();
+        this.each(objects, bugs, bugs::expect);
+        return bugs.all();
+    }
+
+    /**
+     * Find all errors in all objects, one by one, and report them
+     * one by one.
+     *
+     * <p>The same as {@link #errorsAll(Iterable)}, but nothing is
+     * kept in memory: each bug is reported to the listener as soon as
+     * it's found, and each object, as soon as it's done. If the
+     * listener wants no more bugs, no more objects are taken from the
+     * iterable, while the ones already taken are left unfinished.</p>
+     *
+     * @param objects The objects
+     * @param bugs Listener of bugs
+     * @return TRUE if all objects were analyzed, FALSE if stopped
+     */
+    public boolean errorsAll(final Iterable<XML> objects, final Bugs bugs) {
+        return this.each(objects, bugs, name -> { });
+    }
+
+    /**
+     * Find all errors in all objects, one by one, and report them
+     * one by one.
+     *
+     * @param objects The objects
+     * @param bugs Listener of bugs
+     * @param taken What to do with the name of each object, right
+     *  when it's taken from the iterable, before it's analyzed
+     * @return TRUE if all objects were analyzed, FALSE if stopped
+     */
+    private boolean each(final Iterable<XML> objects, final Bugs bugs,
+        final Consumer<String> taken) {
+        final FaR.Until until = new FaR.Until(bugs);
+        final Calc calc = this.rules.calc();
+        final ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        final Semaphore ahead = new Semaphore(this.threads * 2);
+        final Collection<Future<?>> futures = new LinkedList<>();
+        final Iterator<XML> iter = objects.iterator();
+        try {
+            while (!until.stopped() && iter.hasNext()) {
+                final XML obj = iter.next();
+                if (obj.nodes(FaR.OBJECT).isEmpty()) {
+                    continue;
+                }
+                final String name = obj.xpath("/o/@name").get(0);
+                ahead.acquire();
+                taken.accept(name);
+                futures.add(
+                    pool.submit(
+                        () -> {
+                            try {
+                                if (!until.stopped()) {
+                                    this.errors(obj, calc, name, until);
+                                }
+                            } finally {
+                                ahead.release();
+                            }
+                        }
+                    )
+                );
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (final ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+            FaR.close(iter);
+        }
+        return !until.stopped();
+    }
+
+    /**
+     * Close the iterator, if it holds anything open, like the one
+     * of {@link XmirObjects} does, while its objects are not over.
+     * @param iter The iterator
+     */
+    private static void close(final Iterator<XML> iter) {
+        if (iter instanceof Closeable) {
+            try {
+                ((Closeable) iter).close();
+            } catch (final IOException ex) {
+                Logger.warn(FaR.class, "Can't close the objects: %s", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * How many objects were analyzed so far, by the ways they went.
+     *
+     * <p>An object is "cached", if its bugs were found in the results.
+     * Most objects are clean and don't need the solver. An object
+     * is skipped before its options are calculated, if none of its
+     * operations can return <code>\perp</code> according to the
+     * rules ("no-perps"). It is skipped before the solver, if it has
+     * no options left, except NONE ("no-options"). The rest are
+     * "solved". Nothing is reported for skipped objects. An object,
+     * which ran out of its budget, is also "inconclusive".</p>
+     *
+     * @return Numbers of objects, by the ways
+     */
+    public Map<String, Long> counters() {
+        final Map<String, Long> all = new LinkedHashMap<>(0);
+        for (final Map.Entry<String, AtomicLong> ent : this.counters.entrySet()) {
+            all.put(ent.getKey(), ent.getValue().get());
+        }
+        return all;
+    }
+
+    /**
+     * Get ready for the first object, in advance.
+     *
+     * <p>A tiny object is passed through the train and the solver,
+     * without counting or reporting it anywhere. That's how all
+     * stylesheets get compiled and run once, the rules get compiled to
+     * a table, and one context of SMT solver is made, which loads the
+     * native library of it. A long-living process, like {@link Daemon},
+     * does it once, before the first request.</p>
+     */
+    void warm() {
+        final Calc calc = this.rules.calc();
+        final XML opts = new Xsline(FaR.before(calc)).pass(new XMLDocument(FaR.WARM));
+        final Options options = new Options(opts.inner());
+        if (!options.empty()) {
+            this.contexts.apply(ctx -> new Expr(options, ctx, 1).bugs());
+        }
+    }
+
+    @Override
+    public void close() {
+        this.contexts.close();
+    }
+
+    /**
+     * Find all errors in the object, or take them from the results,
+     * and report them.
+     *
+     * @param obj The object
+     * @param calc The rules
+     * @param name Name of the object
+     * @param bugs Listener of bugs
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void errors(final XML obj, final Calc calc, final String name,
+        final Bugs bugs) {
+        final String key = new Fingerprint(
+            obj.inner(), calc.toString(), this.version, Integer.toString(this.max)
+        ).asString();
+        final Optional<Collection<String>> before = this.results.find(key);
+        if (before.isPresent()) {
+            this.counters.get("cached").incrementAndGet();
+            final FaR.Kept kept = new FaR.Kept(bugs);
+            final Iterator<String> iter = before.get().iterator();
+            while (kept.complete() && iter.hasNext()) {
+                kept.found(new Bug(name, iter.next()));
+            }
+            bugs.analyzed(name, kept.texts().size());
+        } else {
+            this.budgeted(obj, calc, name, key, bugs);
+        }
+    }
+
+    /**
+     * Find all errors in the object, within the budget, report them,
+     * and save them to the results, if the analysis is complete.
+     *
+     * @param obj The object
+     * @param calc The rules
+     * @param name Name of the object
+     * @param key The key of the results
+     * @param bugs Listener of bugs
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void budgeted(final XML obj, final Calc calc,
+        final String name, final String key, final Bugs bugs) {
+        final FaR.Kept kept = new FaR.Kept(bugs);
+        try {
+            this.analyzed(obj, calc, name, this.budget.start(), kept);
+            if (kept.complete()) {
+                this.results.save(key, kept.texts());
+            }
+            bugs.analyzed(name, kept.texts().size());
+        } catch (final RuntimeException ex) {
+            final Budget.Exhausted over = FaR.exhausted(ex);
+            if (over == null) {
+                throw ex;
+            }
+            this.counters.get("inconclusive").incrementAndGet();
+            Logger.warn(this, "The analysis of %s is inconclusive: %s", name, over.getMessage());
+            bugs.inconclusive(name, over.getMessage());
+        }
+    }
+
+    /**
+     * Find all errors in the object and report them.
+     *
+     * @param obj The object
+     * @param calc The rules
+     * @param name Name of the object
+     * @param meter The budget to spend
+     * @param bugs Listener of bugs
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void analyzed(final XML obj, final Calc calc,
+        final String name, final Budget.Meter meter, final Bugs bugs) {
+        if (!FaR.reaches(obj, calc)) {
+            this.counters.get("no-perps").incrementAndGet();
+        } else if (this.memory) {
+            this.inMemory(obj, calc, name, meter, bugs);
+        } else {
+            this.viaXsl(obj, calc, name, meter, bugs);
+        }
+    }
+
+    /**
+     * Find all bugs in the object, with the train of shifts, and report them.
+     *
+     * @param obj The object
+     * @param calc The rules
+     * @param name Name of the object
+     * @param meter The budget to spend
+     * @param bugs Listener of bugs
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void viaXsl(final XML obj, final Calc calc,
+        final String name, final Budget.Meter meter, final Bugs bugs) {
+        final XML opts = new Xsline(
+            this.metered(FaR.before(calc, meter), name, meter)
+        ).pass(obj);
+        this.solved(new Options(opts.inner()), name, meter, bugs);
+    }
+
+    /**
+     * Find all bugs in the object, in memory, and report them.
+     *
+     * @param obj The object
+     * @param calc The rules
+     * @param name Name of the object
+     * @param meter The budget to spend
+     * @param bugs Listener of bugs
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void inMemory(final XML obj, final Calc calc,
+        final String name, final Budget.Meter meter, final Bugs bugs) {
+        final Reverses reverses = new Reverses(obj, calc, "\\perp", meter);
+        if (Logger.isDebugEnabled(this)) {
+            Logger.debug(this, "Options calculated in memory:%n%s", reverses.xml());
+        }
+        this.solved(reverses.options(), name, meter, bugs);
+    }
+
+    /**
+     * Find all bugs in the options, with the solver, and report them
+     * one by one, as soon as the solver finds them.
+     *
+     * <p>If the listener wants no more bugs, the solver is not asked
+     * again. The expressions of bugs are made by {@link Options}.</p>
+     *
+     * @param options The options
+     * @param name Name of the object
+     * @param meter The budget to spend
+     * @param bugs Listener of bugs
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void solved(final Options options, final String name,
+        final Budget.Meter meter, final Bugs bugs) {
+        if (options.empty()) {
+            this.counters.get("no-options").incrementAndGet();
+        } else {
+            this.counters.get("solved").incrementAndGet();
+            meter.time("solver");
+            this.contexts.apply(
+                ctx -> new Expr(options, ctx, this.max, this.metrics, name, meter, bugs).bugs()
+            );
+        }
+    }
+
+    /**
+     * Make every shift of the train report to the listener and
+     * check the time left, before it starts.
+     *
+     * @param train The train
+     * @param name Name of the object
+     * @param meter The budget to spend
+     * @return The train
+     */
+    private Train<Shift> metered(final Train<Shift> train, final String name,
+        final Budget.Meter meter) {
+        Train<Shift> result = new TrDefault<>();
+        for (final Shift shift : train) {
+            result = result.with(
+                new StBefore(
+                    new StMetered(shift, this.metrics, name),
+                    new StLambda(
+                        (pos, xml) -> {
+                            meter.time(shift.uid());
+                            return xml;
+                        }
+                    )
+                )
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Make the version of the engine.
+     * @param engine Number of the engine
+     * @return The number, with the version of the JAR, if known
+     */
+    private static String version(final String engine) {
+        final String jar = FaR.class.getPackage().getImplementationVersion();
+        String ver = engine;
+        if (jar != null) {
+            ver = String.format("%s/%s", engine, jar);
+        }
+        return ver;
+    }
+
+    /**
+     * Find the exhausted budget among the causes of the exception.
+     *
+     * @param error The exception
+     * @return The budget, or NULL if it's not there
+     */
+    private static Budget.Exhausted exhausted(final Throwable error) {
+        Budget.Exhausted found = null;
+        for (Throwable cause = error; cause != null && found == null;
+            cause = cause.getCause()) {
+            if (cause instanceof Budget.Exhausted) {
+                found = (Budget.Exhausted) cause;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Can any operation in the object return <code>\perp</code>?
+     *
+     * <p>If none of them can, all options of the object are NONE,
+     * or there are no options at all, that's why there is no need
+     * to calculate them.</p>
+     *
+     * @param obj The object
+     * @param calc The rules
+     * @return TRUE if it can
+     */
+    private static boolean reaches(final XML obj, final Calc calc) {
+        final Node node = obj.inner();
+        final NodeList all;
+        if (node instanceof Document) {
+            all = ((Document) node).getElementsByTagName("o");
+        } else {
+            all = ((Element) node).getElementsByTagName("o");
+        }
+        boolean found = false;
+        for (int idx = 0; idx < all.getLength() && !found; ++idx) {
+            final String base = ((Element) all.item(idx)).getAttribute("base");
+            found = !base.isEmpty() && calc.reaches(base);
+        }
+        return found;
+    }
+
+    /**
+     * Make a train of shifts, which prepare options for the solver,
+     * with the rules shipped with the library.
+     *
+     * @return The train
+     */
+    static Train<Shift> before() {
+        return FaR.before(new RulesOf().calc());
+    }
+
+    /**
+     * Make a train of shifts, which prepare options for the solver.
+     *
+     * <p>The train is cheap to make, since all stylesheets in it
+     * are compiled only once per JVM.</p>
+     *
+     * @param calc The rules
+     * @return The train
+     */
+    static Train<Shift> before(final Calc calc) {
+        return FaR.before(calc, new Budget().start());
+    }
+
+    /**
+     * Make a train of shifts, which prepare options for the solver,
+     * within the budget of one object.
+     *
+     * @param calc The rules
+     * @param meter The budget to spend, while options are calculated
+     * @return The train
+     */
+    static Train<Shift> before(final Calc calc, final Budget.Meter meter) {
+        return new TrXSL<>(new TrLogged(new TrDefault<>()))
             .with(FaR.xsl("expected.xsl").with("expected", "\\perp"))
+            .with(new StIds())
             .with(FaR.xsl("data-to-attrs.xsl"))
+            .with(new StIds())
             .with(FaR.xsl("reverses.xsl"))
-            .with(
-                new StRepeated(
-                    FaR.xsl("calculate.xsl").with(
-                        (href, base) -> new StreamSource(
-                            new InputStreamOf(
-                                new Calc(
-                                    new UncheckedText(
-                                        new TextOf(
-                                            new ResourceOf(
-                                                "org/polystat/far/rules.txt"
-                                            )
-                                        )
-                                    ).asString().trim()
-                                ).xsl().toString()
-                            )
-                        )
-                    ),
-                    after -> !after.nodes("//r").isEmpty()
-                )
-            )
+            .with(new StCalculations(calc, meter))
             .with(FaR.xsl("cleanup-outsiders.xsl"))
             .with(FaR.xsl("taus-to-tree.xsl"))
             .with(FaR.xsl("unmatch-data.xsl").with("never", Expr.NEVER))
-            .with(new StEndless(FaR.xsl("cleanup-conflicts.xsl")))
+            .with(new StConflicts())
             .with(FaR.xsl("cleanup-perps.xsl"))
-            .with(
-                new StLambda(
-                    (integer, xml) -> new XMLDocument(
-                        new Xembler(new Expr(xml).find()).applyQuietly(xml.node())
-                    )
-                )
-            )
-            .with(FaR.xsl("opts-to-expressions.xsl"))
-            .with(
-                new StLambda(
-                    (integer, xml) -> {
-                        final Directives dirs = new Directives();
-                        final StringBuilder expression = new StringBuilder();
-                        for (final String var : xml.xpath("/o/input/a/@attr")) {
-                            final String path = String.format("/o/input/a[@attr='%s']", var);
-                            final String val = xml.xpath(String.format("%s/@x", path)).get(0);
-                            final String expr = xml.xpath(
-                                String.format("/o/o[@name='%s']/b[@x='%s']/text()", var, val)
-                            ).get(0);
-                            dirs.xpath(path)
-                                .set(expr);
-                            if (expression.length() != 0) {
-                                expression.append(" and ");
-                            }
-                            expression.append(expr);
-                        }
-                        dirs.xpath("/o/input").add("expr").set(expression);
-                        return new XMLDocument(
-                            new Xembler(dirs).applyQuietly(xml.node())
-                        );
-                    }
-                )
-            )
-            .with(FaR.xsl("cleanup-expressions.xsl"))
             .back();
-        final XML out = new Xsline(train).pass(obj);
-        final Collection<String> bugs = new LinkedList<>();
-        for (final XML bug : out.nodes("/o/input[@found]")) {
-            bugs.add(
-                String.format(
-                    "\\perp at {%s}",
-                    String.join(
-                        ", ",
-                        new Mapped<>(
-                            attr -> String.format(
-                                "%s=%s", attr.xpath("@attr").get(0),
-                                attr.xpath("@x").get(0)
-                            ),
-                            bug.nodes("a")
-                        )
-                    )
-                )
-            );
-        }
-        return bugs;
     }
 
     /**
-     * Make XSL.
+     * Make XSL, or take it from the cache.
      *
      * @param name Name of it
-     * @return A new XSL
+     * @return The XSL
      */
     private static XSL xsl(final String name) {
-        final String path = String.format("org/polystat/far/%s", name);
-        return new XSLDocument(
-            new UncheckedText(
-                new TextOf(
-                    new ResourceOf(path)
-                )
-            ).asString(),
-            path
-        ).with(new ClasspathSources());
+        return FaR.XSLS.computeIfAbsent(
+            name,
+            key -> {
+                final String path = String.format("org/polystat/far/%s", key);
+                return new CompiledXSL(
+                    new UncheckedText(
+                        new TextOf(
+                            new ResourceOf(path)
+                        )
+                    ).asString(),
+                    path,
+                    new ClasspathSources()
+                );
+            }
+        );
+    }
+
+    /**
+     * Listener of bugs, which hears nothing, after it was told to stop.
+     *
+     * @since 1.1
+     */
+    private static final class Until implements Bugs {
+
+        /**
+         * The listener.
+         */
+        private final Bugs origin;
+
+        /**
+         * Was it told to stop?
+         */
+        private final AtomicBoolean stop;
+
+        /**
+         * Ctor.
+         * @param bugs The listener
+         */
+        Until(final Bugs bugs) {
+            this.origin = bugs;
+            this.stop = new AtomicBoolean();
+        }
+
+        @Override
+        public boolean found(final Bug bug) {
+            if (!this.stop.get() && !this.origin.found(bug)) {
+                this.stop.set(true);
+            }
+            return !this.stop.get();
+        }
+
+        @Override
+        public void analyzed(final String obj, final int total) {
+            if (!this.stop.get()) {
+                this.origin.analyzed(obj, total);
+            }
+        }
+
+        @Override
+        public void inconclusive(final String obj, final String reason) {
+            if (!this.stop.get()) {
+                this.origin.inconclusive(obj, reason);
+            }
+        }
+
+        /**
+         * Was it told to stop?
+         * @return TRUE if so
+         */
+        boolean stopped() {
+            return this.stop.get();
+        }
+    }
+
+    /**
+     * Listener of bugs of one object, which keeps their text, to
+     * save it to the results.
+     *
+     * @since 1.1
+     */
+    private static final class Kept implements Bugs {
+
+        /**
+         * The listener.
+         */
+        private final Bugs origin;
+
+        /**
+         * Bugs in text.
+         */
+        private final Collection<String> all;
+
+        /**
+         * Does the listener want more?
+         */
+        private boolean more;
+
+        /**
+         * Ctor.
+         * @param bugs The listener
+         */
+        Kept(final Bugs bugs) {
+            this.origin = bugs;
+            this.all = new LinkedList<>();
+            this.more = true;
+        }
+
+        @Override
+        public boolean found(final Bug bug) {
+            this.all.add(bug.toString());
+            this.more = this.origin.found(bug);
+            return this.more;
+        }
+
+        @Override
+        public void analyzed(final String obj, final int total) {
+            this.origin.analyzed(obj, total);
+        }
+
+        @Override
+        public void inconclusive(final String obj, final String reason) {
+            this.origin.inconclusive(obj, reason);
+        }
+
+        /**
+         * Were all bugs of the object found?
+         * @return TRUE if the listener never wanted to stop
+         */
+        boolean complete() {
+            return this.more;
+        }
+
+        /**
+         * Bugs found so far.
+         * @return Bugs in text
+         */
+        Collection<String> texts() {
+            return this.all;
+        }
     }
 
 }
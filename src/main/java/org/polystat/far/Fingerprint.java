@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * SHA-256 fingerprint of an XMIR object and some text.
+ *
+ * <p>The object is walked in canonical form: names of elements,
+ * their attributes sorted by names, and their texts without leading
+ * and trailing spaces. That's why the fingerprint doesn't depend on
+ * formatting of the XML, on the order of attributes, or on
+ * comments.</p>
+ *
+ * @since 1.1
+ */
+final class Fingerprint {
+
+    /**
+     * The object, either a document or its root element.
+     */
+    private final Node node;
+
+    /**
+     * Text to add.
+     */
+    private final String[] extra;
+
+    /**
+     * Ctor.
+     * @param obj The object, either a document or its root element
+     * @param txt Texts to add, like the rules
+     */
+    Fingerprint(final Node obj, final String... txt) {
+        this.node = obj;
+        this.extra = txt.clone();
+    }
+
+    /**
+     * Calculate it.
+     * @return The fingerprint, in hex
+     */
+    String asString() {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        for (final String txt : this.extra) {
+            Fingerprint.update(digest, 'X', txt);
+        }
+        final Element root;
+        if (this.node instanceof Document) {
+            root = ((Document) this.node).getDocumentElement();
+        } else {
+            root = (Element) this.node;
+        }
+        Fingerprint.walk(digest, root);
+        final StringBuilder hex = new StringBuilder();
+        for (final byte bte : digest.digest()) {
+            hex.append(String.format("%02x", bte));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Add the element, with all its kids, to the digest.
+     * @param digest The digest
+     * @param elm The element
+     */
+    private static void walk(final MessageDigest digest, final Element elm) {
+        Fingerprint.update(digest, 'E', elm.getNodeName());
+        final NamedNodeMap attrs = elm.getAttributes();
+        final List<String> names = new ArrayList<>(attrs.getLength());
+        for (int idx = 0; idx < attrs.getLength(); ++idx) {
+            names.add(attrs.item(idx).getNodeName());
+        }
+        names.sort(String::compareTo);
+        for (final String name : names) {
+            Fingerprint.update(digest, 'A', name);
+            Fingerprint.update(digest, 'V', elm.getAttribute(name));
+        }
+        for (Node kid = elm.getFirstChild(); kid != null; kid = kid.getNextSibling()) {
+            if (kid.getNodeType() == Node.ELEMENT_NODE) {
+                Fingerprint.walk(digest, (Element) kid);
+            } else if (kid.getNodeType() == Node.TEXT_NODE
+                || kid.getNodeType() == Node.CDATA_SECTION_NODE) {
+                final String text = kid.getNodeValue().trim();
+                if (!text.isEmpty()) {
+                    Fingerprint.update(digest, 'T', text);
+                }
+            }
+        }
+        Fingerprint.update(digest, 'C', "");
+    }
+
+    /**
+     * Add the text to the digest, with its kind before it and
+     * a separator after it.
+     * @param digest The digest
+     * @param kind The kind of the text, like 'E' for an element
+     * @param text The text
+     */
+    private static void update(final MessageDigest digest, final char kind,
+        final String text) {
+        digest.update((byte) kind);
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+}
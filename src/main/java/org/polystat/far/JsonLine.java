@@ -0,0 +1,283 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One line of JSON, with an object of strings and arrays of strings.
+ *
+ * <p>This is all {@link Daemon} needs from JSON, that's why numbers,
+ * booleans and NULL are kept as text, while nested objects are not
+ * allowed. For example:</p>
+ *
+ * <pre> {"id": "7", "xmir": "a.xmir", "locators": ["\\Phi.test"]}</pre>
+ *
+ * @since 1.1
+ */
+final class JsonLine {
+
+    /**
+     * The text.
+     */
+    private final String text;
+
+    /**
+     * Values, by keys.
+     */
+    private final Map<String, List<String>> values;
+
+    /**
+     * Position of the next character to read.
+     */
+    private int pos;
+
+    /**
+     * Ctor.
+     * @param line The line
+     */
+    JsonLine(final String line) {
+        this.text = line;
+        this.values = new HashMap<>(0);
+        this.parse();
+    }
+
+    /**
+     * Take a string.
+     * @param key The key
+     * @param def The value to return if there is no such key
+     * @return The value, or the first one, if it's an array
+     */
+    String string(final String key, final String def) {
+        final List<String> list = this.values.get(key);
+        final String result;
+        if (list == null || list.isEmpty()) {
+            result = def;
+        } else {
+            result = list.get(0);
+        }
+        return result;
+    }
+
+    /**
+     * Take an array of strings.
+     * @param key The key
+     * @return Values, maybe empty
+     */
+    List<String> strings(final String key) {
+        return this.values.getOrDefault(key, Collections.emptyList());
+    }
+
+    /**
+     * Make a JSON string.
+     * @param txt The text
+     * @return JSON string, in quotes
+     */
+    static String quoted(final String txt) {
+        final StringBuilder out = new StringBuilder(txt.length() + 2).append('"');
+        for (final char chr : txt.toCharArray()) {
+            if (chr == '"' || chr == '\\') {
+                out.append('\\').append(chr);
+            } else if (chr < ' ') {
+                out.append(String.format("\\u%04x", (int) chr));
+            } else {
+                out.append(chr);
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    /**
+     * Parse the object.
+     */
+    private void parse() {
+        this.expect('{');
+        if (this.peek() == '}') {
+            ++this.pos;
+        } else {
+            char next = ',';
+            while (next == ',') {
+                final String key = this.string();
+                this.expect(':');
+                this.values.put(key, this.value());
+                next = this.next();
+            }
+            if (next != '}') {
+                throw this.error("',' or '}'");
+            }
+        }
+        if (this.peek() != 0) {
+            throw this.error("the end of line");
+        }
+    }
+
+    /**
+     * Read a value: a string, an array, or a literal.
+     * @return Values
+     */
+    private List<String> value() {
+        final List<String> list = new ArrayList<>(1);
+        final char first = this.peek();
+        if (first == '[') {
+            ++this.pos;
+            if (this.peek() == ']') {
+                ++this.pos;
+            } else {
+                char next = ',';
+                while (next == ',') {
+                    list.add(this.scalar());
+                    next = this.next();
+                }
+                if (next != ']') {
+                    throw this.error("',' or ']'");
+                }
+            }
+        } else {
+            list.add(this.scalar());
+        }
+        return list;
+    }
+
+    /**
+     * Read a string or a literal, like a number or TRUE.
+     * @return The value, without quotes
+     */
+    private String scalar() {
+        final String result;
+        if (this.peek() == '"') {
+            result = this.string();
+        } else {
+            final int start = this.pos;
+            while (this.pos < this.text.length()
+                && ",]} \t".indexOf(this.text.charAt(this.pos)) < 0) {
+                ++this.pos;
+            }
+            if (start == this.pos) {
+                throw this.error("a value");
+            }
+            result = this.text.substring(start, this.pos);
+        }
+        return result;
+    }
+
+    /**
+     * Read a string in quotes.
+     * @return The string, unescaped
+     */
+    private String string() {
+        this.expect('"');
+        final StringBuilder out = new StringBuilder(0);
+        while (this.pos < this.text.length() && this.text.charAt(this.pos) != '"') {
+            char chr = this.text.charAt(this.pos);
+            ++this.pos;
+            if (chr == '\\') {
+                if (this.pos >= this.text.length()) {
+                    throw this.error("an escaped character");
+                }
+                chr = this.text.charAt(this.pos);
+                ++this.pos;
+                if (chr == 'u') {
+                    if (this.pos + 4 > this.text.length()) {
+                        throw this.error("four hex digits");
+                    }
+                    chr = (char) Integer.parseInt(this.text.substring(this.pos, this.pos + 4), 16);
+                    this.pos += 4;
+                } else if (chr == 'n') {
+                    chr = '\n';
+                } else if (chr == 't') {
+                    chr = '\t';
+                } else if (chr == 'r') {
+                    chr = '\r';
+                } else if (chr == 'b') {
+                    chr = '\b';
+                } else if (chr == 'f') {
+                    chr = '\f';
+                }
+            }
+            out.append(chr);
+        }
+        if (this.pos >= this.text.length()) {
+            throw this.error("'\"'");
+        }
+        ++this.pos;
+        return out.toString();
+    }
+
+    /**
+     * Skip spaces and make sure the next character is the one expected.
+     * @param chr The character
+     */
+    private void expect(final char chr) {
+        if (this.next() != chr) {
+            throw this.error(String.format("'%c'", chr));
+        }
+    }
+
+    /**
+     * Skip spaces and read the next character.
+     * @return The character, or zero at the end
+     */
+    private char next() {
+        final char chr = this.peek();
+        if (chr != 0) {
+            ++this.pos;
+        }
+        return chr;
+    }
+
+    /**
+     * Skip spaces and look at the next character, without reading it.
+     * @return The character, or zero at the end
+     */
+    private char peek() {
+        while (this.pos < this.text.length()
+            && Character.isWhitespace(this.text.charAt(this.pos))) {
+            ++this.pos;
+        }
+        char chr = 0;
+        if (this.pos < this.text.length()) {
+            chr = this.text.charAt(this.pos);
+        }
+        return chr;
+    }
+
+    /**
+     * Make an error.
+     * @param expected What was expected
+     * @return The error
+     */
+    private IllegalArgumentException error(final String expected) {
+        return new IllegalArgumentException(
+            String.format(
+                "Expected %s at position %d in JSON '%s'", expected, this.pos, this.text
+            )
+        );
+    }
+
+}
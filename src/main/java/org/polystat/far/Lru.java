@@ -0,0 +1,67 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Map, which keeps only the entries used most recently.
+ *
+ * <p>As soon as there are more entries than the limit, the one
+ * used least recently is dropped. The map is not thread-safe, wrap
+ * it with {@link java.util.Collections#synchronizedMap(Map)}, if
+ * it is shared.</p>
+ *
+ * @param <K> Type of keys
+ * @param <V> Type of values
+ * @since 1.1
+ */
+final class Lru<K, V> extends LinkedHashMap<K, V> {
+
+    /**
+     * Serialization marker.
+     */
+    private static final long serialVersionUID = 0x4c7275L;
+
+    /**
+     * How many entries to keep, at most.
+     */
+    private final int limit;
+
+    /**
+     * Ctor.
+     * @param max How many entries to keep, at most
+     */
+    Lru(final int max) {
+        super(0, 0.75f, true);
+        this.limit = max;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+        return this.size() > this.limit;
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.cactoos.io.InputOf;
+
+/**
+ * Command line, which analyzes one program and exits.
+ *
+ * <p>The first positional argument is the path to XMIR, the rest are
+ * the locators of objects; if there are none, all objects of the
+ * program are analyzed. Each bug is printed to the standard output
+ * as soon as it's found, on its own line, after the locator of its
+ * object, while logs go to the standard error. The exit code is one,
+ * if there are bugs, which is what a pre-commit hook expects. If there
+ * are no bugs, but some objects are inconclusive, since their budget
+ * was over, the exit code is two, while the limits are set by the
+ * options "--time", "--options" and "--solver":</p>
+ *
+ * <pre> $ java -cp far.jar:... org.polystat.far.Main --bugs=3 a.xmir '\Phi.test'
+ * \Phi.test: \perp at {a=0, b=\any}</pre>
+ *
+ * <p>The options are the ones of {@link Args}, while the metrics of
+ * "--metrics" are written when the analysis is over, even if it
+ * fails. The native library of SMT solver is not loaded, unless some
+ * object needs the solver. If the start of JVM takes too long, use
+ * the archive of classes built by the "cds" profile, see README.</p>
+ *
+ * @since 1.1
+ */
+public final class Main {
+
+    /**
+     * Ctor.
+     */
+    private Main() {
+        // utility class
+    }
+
+    /**
+     * Run it.
+     * @param args Arguments
+     * @throws Exception If fails
+     */
+    public static void main(final String... args) throws Exception {
+        final PrintStream stdout = System.out;
+        System.setOut(System.err);
+        final int code = Main.run(stdout, args);
+        if (code != 0) {
+            System.exit(code);
+        }
+    }
+
+    /**
+     * Run it, without exiting.
+     * @param stdout Where to print bugs
+     * @param args Arguments
+     * @return The exit code
+     * @throws Exception If fails
+     */
+    static int run(final PrintStream stdout, final String... args) throws Exception {
+        final Args opts = new Args(Collections.emptyList(), args);
+        final List<String> rest = opts.positional();
+        if (rest.isEmpty()) {
+            throw new IllegalArgumentException(
+                "The path to XMIR is required, and maybe the locators of objects"
+            );
+        }
+        final Path xmir = Paths.get(rest.get(0));
+        final Main.Printed printed = new Main.Printed(stdout);
+        try (FaR far = opts.far()) {
+            if (rest.size() == 1) {
+                far.errorsAll(new XmirObjects(new InputOf(xmir)), printed.under("\\Phi."));
+            } else {
+                final XmirIndex index = new XmirIndex(xmir);
+                for (final String locator : rest.subList(1, rest.size())) {
+                    far.errors(index, locator, printed.under(""));
+                }
+            }
+        } finally {
+            opts.dump();
+        }
+        stdout.flush();
+        int code = 0;
+        if (printed.bugs() > 0) {
+            code = 1;
+        } else if (printed.inconclusive() > 0) {
+            code = 2;
+        }
+        return code;
+    }
+
+    /**
+     * Bugs, printed as soon as they are found.
+     *
+     * <p>An inconclusive object is printed as a bug, with the reason
+     * instead of values of attributes, but it is counted apart.</p>
+     *
+     * @since 1.1
+     */
+    private static final class Printed implements Bugs {
+
+        /**
+         * Where to print.
+         */
+        private final PrintStream out;
+
+        /**
+         * Prefix of names of objects.
+         */
+        private final String prefix;
+
+        /**
+         * How many bugs were printed.
+         */
+        private final AtomicInteger found;
+
+        /**
+         * How many inconclusive objects were printed.
+         */
+        private final AtomicInteger unsure;
+
+        /**
+         * Ctor.
+         * @param stdout Where to print
+         */
+        Printed(final PrintStream stdout) {
+            this(stdout, "", new AtomicInteger(), new AtomicInteger());
+        }
+
+        /**
+         * Ctor.
+         * @param stdout Where to print
+         * @param pfx Prefix of names of objects, to make locators of them
+         * @param bugs How many bugs were printed
+         * @param objs How many inconclusive objects were printed
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        private Printed(final PrintStream stdout, final String pfx,
+            final AtomicInteger bugs, final AtomicInteger objs) {
+            this.out = stdout;
+            this.prefix = pfx;
+            this.found = bugs;
+            this.unsure = objs;
+        }
+
+        @Override
+        public boolean found(final Bug bug) {
+            this.print(bug.object(), bug.toString());
+            this.found.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public void analyzed(final String obj, final int total) {
+            // nothing to print
+        }
+
+        @Override
+        public void inconclusive(final String obj, final String reason) {
+            this.print(obj, String.format("inconclusive: %s", reason));
+            this.unsure.incrementAndGet();
+        }
+
+        /**
+         * The same, with another prefix of names of objects.
+         * @param pfx The prefix
+         * @return Bugs
+         */
+        Main.Printed under(final String pfx) {
+            return new Main.Printed(this.out, pfx, this.found, this.unsure);
+        }
+
+        /**
+         * How many bugs were printed.
+         * @return Number of them
+         */
+        int bugs() {
+            return this.found.get();
+        }
+
+        /**
+         * How many inconclusive objects were printed.
+         * @return Number of them
+         */
+        int inconclusive() {
+            return this.unsure.get();
+        }
+
+        /**
+         * Print one line.
+         * @param obj Name of the object
+         * @param text The text
+         */
+        private void print(final String obj, final String text) {
+            this.out.printf("%s%s: %s%n", this.prefix, obj, text);
+        }
+    }
+
+}
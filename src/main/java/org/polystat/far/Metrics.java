@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+
+/**
+ * Listener of measurements, made by {@link FaR} for each object.
+ *
+ * <p>Every stage of the trains of shifts, applied to an object,
+ * is reported with the time it took and the document it made. The
+ * solver is reported once per object, with the time of all its
+ * checks and the number of assertions it had. Calls come from many
+ * threads, if {@link FaR#errorsAll(XML)} uses many of them.</p>
+ *
+ * @since 1.1
+ */
+public interface Metrics {
+
+    /**
+     * A stage was applied to the object.
+     * @param obj Name of the object
+     * @param stage ID of the stage, like "reverses"
+     * @param nanos How long it took, in nanoseconds
+     * @param out The document it made
+     */
+    void stage(String obj, String stage, long nanos, XML out);
+
+    /**
+     * The solver was asked about the object.
+     * @param obj Name of the object
+     * @param nanos How long all checks took, in nanoseconds
+     * @param checks How many times the solver checked the model
+     * @param assertions How many assertions the solver had at the end
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    void solver(String obj, long nanos, int checks, int assertions);
+
+    /**
+     * Metrics, which are never kept.
+     *
+     * @since 1.1
+     */
+    final class Void implements Metrics {
+        @Override
+        public void stage(final String obj, final String stage, final long nanos,
+            final XML out) {
+            // nothing to do
+        }
+
+        @Override
+        public void solver(final String obj, final long nanos, final int checks,
+            final int assertions) {
+            // nothing to do
+        }
+    }
+
+}
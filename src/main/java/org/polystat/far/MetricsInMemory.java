@@ -0,0 +1,262 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Metrics, kept in memory and printed as JSON.
+ *
+ * <p>For each object and each stage, it keeps how many times the
+ * stage ran on objects with this name, how long it took in total, and
+ * the size of the document it made last time: how many nodes there
+ * are, including attributes and texts, and how many characters there
+ * are in all names and values, without the markup. For the solver,
+ * it keeps how many times it was asked about the object, how many
+ * checks it made, how long they took, and how many assertions it
+ * had last time. For example:</p>
+ *
+ * <pre> {"objects": [
+ *   {"name": "test", "stages": [
+ *     {"stage": "expected", "runs": 1, "nanos": 812000,
+ *      "nodes": 31, "chars": 214},
+ *     ...
+ *   ], "solver": {"calls": 1, "checks": 2, "nanos": 4100000,
+ *      "assertions": 9}}
+ * ]}</pre>
+ *
+ * <p>Objects are known by their names only, that's why objects with
+ * the same name from different programs are measured together. Only
+ * the objects measured most recently are kept, not more than the
+ * limit, since a daemon may measure objects for the whole life of
+ * its JVM.</p>
+ *
+ * <p>The object is thread-safe.</p>
+ *
+ * @since 1.1
+ */
+public final class MetricsInMemory implements Metrics {
+
+    /**
+     * How many objects to keep, by default.
+     */
+    private static final int KEEP = 1024;
+
+    /**
+     * Measurements, by names of objects, used most recently.
+     */
+    private final Map<String, MetricsInMemory.Obj> objects;
+
+    /**
+     * Ctor.
+     */
+    public MetricsInMemory() {
+        this(MetricsInMemory.KEEP);
+    }
+
+    /**
+     * Ctor.
+     * @param max How many objects to keep, at most
+     */
+    public MetricsInMemory(final int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException(
+                String.format("The limit of objects must be positive: %d", max)
+            );
+        }
+        this.objects = new Lru<>(max);
+    }
+
+    @Override
+    public void stage(final String obj, final String stage, final long nanos,
+        final XML out) {
+        final long[] size = new long[2];
+        MetricsInMemory.count(out.inner(), size);
+        synchronized (this.objects) {
+            final MetricsInMemory.Stage stg = this.object(obj).stages.computeIfAbsent(
+                stage, key -> new MetricsInMemory.Stage()
+            );
+            stg.runs += 1;
+            stg.nanos += nanos;
+            stg.nodes = size[0];
+            stg.chars = size[1];
+        }
+    }
+
+    @Override
+    public void solver(final String obj, final long nanos, final int checks,
+        final int assertions) {
+        synchronized (this.objects) {
+            final MetricsInMemory.Obj all = this.object(obj);
+            all.calls += 1;
+            all.checks += checks;
+            all.nanos += nanos;
+            all.assertions = assertions;
+        }
+    }
+
+    /**
+     * Print all of them as JSON.
+     * @return JSON
+     */
+    public String json() {
+        final StringBuilder json = new StringBuilder("{\"objects\": [");
+        synchronized (this.objects) {
+            String sep = "";
+            for (final Map.Entry<String, MetricsInMemory.Obj> ent : this.objects.entrySet()) {
+                json.append(sep).append("\n  {\"name\": ")
+                    .append(JsonLine.quoted(ent.getKey()))
+                    .append(", \"stages\": [");
+                String comma = "";
+                for (final Map.Entry<String, MetricsInMemory.Stage> stg
+                    : ent.getValue().stages.entrySet()) {
+                    json.append(comma).append(
+                        String.format(
+                            String.join(
+                                "",
+                                "\n    {\"stage\": %s, \"runs\": %d, ",
+                                "\"nanos\": %d, \"nodes\": %d, \"chars\": %d}"
+                            ),
+                            JsonLine.quoted(stg.getKey()), stg.getValue().runs,
+                            stg.getValue().nanos, stg.getValue().nodes, stg.getValue().chars
+                        )
+                    );
+                    comma = ",";
+                }
+                final MetricsInMemory.Obj obj = ent.getValue();
+                json.append(
+                    String.format(
+                        String.join(
+                            "",
+                            "], \"solver\": {\"calls\": %d, \"checks\": %d, ",
+                            "\"nanos\": %d, \"assertions\": %d}}"
+                        ),
+                        obj.calls, obj.checks, obj.nanos, obj.assertions
+                    )
+                );
+                sep = ",";
+            }
+        }
+        return json.append("\n]}\n").toString();
+    }
+
+    /**
+     * Find the object, or make a new one.
+     * @param name Name of the object
+     * @return The object
+     */
+    private MetricsInMemory.Obj object(final String name) {
+        return this.objects.computeIfAbsent(name, key -> new MetricsInMemory.Obj());
+    }
+
+    /**
+     * Count nodes and characters in them.
+     * @param node The node
+     * @param size Nodes and characters, to add to
+     */
+    private static void count(final Node node, final long[] size) {
+        size[0] += 1L;
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            size[1] += node.getNodeName().length();
+            final NamedNodeMap attrs = node.getAttributes();
+            for (int idx = 0; idx < attrs.getLength(); ++idx) {
+                final Node attr = attrs.item(idx);
+                size[0] += 1L;
+                size[1] += attr.getNodeName().length() + attr.getNodeValue().length();
+            }
+        } else if (node.getNodeValue() != null) {
+            size[1] += node.getNodeValue().length();
+        }
+        for (Node kid = node.getFirstChild(); kid != null; kid = kid.getNextSibling()) {
+            MetricsInMemory.count(kid, size);
+        }
+    }
+
+    /**
+     * Measurements of one object.
+     *
+     * @since 1.1
+     */
+    private static final class Obj {
+
+        /**
+         * Stages, by their IDs, in the order they were met.
+         */
+        private final Map<String, MetricsInMemory.Stage> stages = new LinkedHashMap<>(0);
+
+        /**
+         * How many times the solver was asked.
+         */
+        private long calls;
+
+        /**
+         * How many checks the solver made.
+         */
+        private long checks;
+
+        /**
+         * How long the checks took, in nanoseconds.
+         */
+        private long nanos;
+
+        /**
+         * How many assertions the solver had last time.
+         */
+        private long assertions;
+    }
+
+    /**
+     * Measurements of one stage.
+     *
+     * @since 1.1
+     */
+    private static final class Stage {
+
+        /**
+         * How many times it ran.
+         */
+        private long runs;
+
+        /**
+         * How long it took, in nanoseconds.
+         */
+        private long nanos;
+
+        /**
+         * Nodes in the document it made last time.
+         */
+        private long nodes;
+
+        /**
+         * Characters in the document it made last time.
+         */
+        private long chars;
+    }
+
+}
@@ -0,0 +1,425 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Options of attributes, read from XML in one pass.
+ *
+ * <p>The XML is the output of the train before the solver,
+ * for example:</p>
+ *
+ * <pre> &lt;o&gt;
+ *   &lt;o name="a"&gt;
+ *     &lt;opts&gt;
+ *       &lt;opt x="0"&gt;&lt;tau i="4:1"&gt;1&lt;/tau&gt;&lt;/opt&gt;
+ *     &lt;/opts&gt;
+ *   &lt;/o&gt;
+ * &lt;/o&gt;</pre>
+ *
+ * <p>All elements are visited only once, while all attributes,
+ * all values, and all taus with their possible values are
+ * collected, in the order of the document. The options may also
+ * be made in memory, without XML at all, by {@link Reverses}.</p>
+ *
+ * @since 1.1
+ */
+final class Options {
+
+    /**
+     * Attributes.
+     */
+    private final List<Options.Attr> all;
+
+    /**
+     * All values met, both of options and of taus.
+     */
+    private final Set<String> vals;
+
+    /**
+     * Possible values of taus, by names of taus.
+     */
+    private final Map<String, Set<String>> vars;
+
+    /**
+     * Is there an option, which is not NONE?
+     */
+    private final boolean some;
+
+    /**
+     * Ctor.
+     * @param node The XML node, either a document or its root element
+     */
+    Options(final Node node) {
+        this(Options.read(node));
+    }
+
+    /**
+     * Ctor.
+     * @param attrs Attributes, with their groups of options
+     */
+    Options(final List<Options.Attr> attrs) {
+        this.all = attrs;
+        this.vals = new LinkedHashSet<>(0);
+        this.vars = new LinkedHashMap<>(0);
+        boolean found = false;
+        for (final Options.Attr attr : attrs) {
+            for (final List<Options.Opt> group : attr.opts()) {
+                for (final Options.Opt opt : group) {
+                    found |= !Table.NONE.equals(opt.value());
+                    this.vals.add(opt.value());
+                    for (final Map.Entry<String, String> tau : opt.taus()) {
+                        this.vals.add(tau.getValue());
+                        this.vars.computeIfAbsent(
+                            tau.getKey(), key -> new LinkedHashSet<>(0)
+                        ).add(tau.getValue());
+                    }
+                }
+            }
+        }
+        this.some = found;
+    }
+
+    /**
+     * All attributes.
+     * @return Attributes, in the order of the document
+     */
+    List<Options.Attr> attrs() {
+        return Collections.unmodifiableList(this.all);
+    }
+
+    /**
+     * Is there nothing the solver may choose from?
+     *
+     * <p>It's so, if there are no options at all, or all of them are
+     * NONE. No bug can be found in such options: with no options the
+     * solver has no constraints, while NONE is never a solution.</p>
+     *
+     * @return TRUE if there are no options, except NONE
+     */
+    boolean empty() {
+        return !this.some;
+    }
+
+    /**
+     * All values met in options and in taus.
+     * @return Values
+     */
+    Set<String> values() {
+        return Collections.unmodifiableSet(this.vals);
+    }
+
+    /**
+     * All taus with their possible values.
+     * @return Values by names of taus, in the order of the document
+     */
+    Map<String, Set<String>> taus() {
+        return Collections.unmodifiableMap(this.vars);
+    }
+
+    /**
+     * Boolean expression of taus, which gives the values of attributes.
+     *
+     * <p>It's the expression of the bug, which {@link Expr} reports:
+     * the expressions of all attributes, in the order of the document,
+     * joined by "and".</p>
+     *
+     * @param values Values of attributes, by their names
+     * @return The expression
+     */
+    String expression(final Map<String, String> values) {
+        return String.join(" and ", this.expressions(values).values());
+    }
+
+    /**
+     * Boolean expressions of taus, one for each value of attribute.
+     *
+     * <p>This is the only place where the expressions of bugs,
+     * found by {@link Expr}, are made.</p>
+     *
+     * @param values Values of attributes, by their names
+     * @return Expressions by names of attributes, in the order of the document
+     * @throws IllegalStateException If there is no such attribute or value
+     */
+    Map<String, String> expressions(final Map<String, String> values) {
+        final Map<String, String> exprs = new LinkedHashMap<>(0);
+        for (final Options.Attr attr : this.all) {
+            final String value = values.get(attr.name());
+            if (value != null) {
+                exprs.put(attr.name(), attr.expression(value));
+            }
+        }
+        for (final Map.Entry<String, String> ent : values.entrySet()) {
+            if (!exprs.containsKey(ent.getKey())) {
+                throw new IllegalStateException(
+                    String.format(
+                        "There is no expression for %s=%s",
+                        ent.getKey(), ent.getValue()
+                    )
+                );
+            }
+        }
+        return exprs;
+    }
+
+    /**
+     * Read all attributes.
+     * @param node The XML node, either a document or its root element
+     * @return Attributes
+     */
+    private static List<Options.Attr> read(final Node node) {
+        final Element root;
+        if (node instanceof Document) {
+            root = ((Document) node).getDocumentElement();
+        } else {
+            root = (Element) node;
+        }
+        final List<Options.Attr> attrs = new ArrayList<>(0);
+        for (final Element obj : Options.children(root, "o")) {
+            final List<List<Options.Opt>> opts = new ArrayList<>(0);
+            for (final Element group : Options.children(obj, "opts")) {
+                final List<Options.Opt> list = new ArrayList<>(0);
+                for (final Element opt : Options.children(group, "opt")) {
+                    list.add(Options.opt(opt));
+                }
+                opts.add(list);
+            }
+            attrs.add(new Options.Attr(obj.getAttribute("name"), opts));
+        }
+        return attrs;
+    }
+
+    /**
+     * Read one option.
+     * @param opt The element
+     * @return The option
+     */
+    private static Options.Opt opt(final Element opt) {
+        final List<Map.Entry<String, String>> taus = new ArrayList<>(0);
+        for (final Element tau : Options.children(opt, "tau")) {
+            taus.add(
+                new AbstractMap.SimpleImmutableEntry<>(
+                    tau.getAttribute("i").split(":")[0], tau.getTextContent()
+                )
+            );
+        }
+        return new Options.Opt(opt.getAttribute("x"), taus);
+    }
+
+    /**
+     * Child elements with the given name.
+     * @param parent The parent
+     * @param name Name of children
+     * @return Children
+     */
+    static List<Element> children(final Element parent, final String name) {
+        final List<Element> list = new ArrayList<>(0);
+        for (Node kid = parent.getFirstChild(); kid != null; kid = kid.getNextSibling()) {
+            if (kid.getNodeType() == Node.ELEMENT_NODE && name.equals(kid.getNodeName())) {
+                list.add((Element) kid);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Attribute with its groups of options.
+     *
+     * @since 1.1
+     */
+    static final class Attr {
+
+        /**
+         * Name of it.
+         */
+        private final String label;
+
+        /**
+         * Groups of options, one group for each opts element.
+         */
+        private final List<List<Options.Opt>> groups;
+
+        /**
+         * Ctor.
+         * @param name Name of it
+         * @param opts Groups of options
+         */
+        Attr(final String name, final List<List<Options.Opt>> opts) {
+            this.label = name;
+            this.groups = opts;
+        }
+
+        /**
+         * Name of it.
+         * @return Name
+         */
+        String name() {
+            return this.label;
+        }
+
+        /**
+         * Groups of options.
+         * @return Groups, one for each opts element
+         */
+        List<List<Options.Opt>> opts() {
+            return Collections.unmodifiableList(this.groups);
+        }
+
+        /**
+         * Boolean expression of taus, which gives the value.
+         *
+         * <p>It's the same as the <code>b</code> element, which
+         * "opts-to-expressions.xsl" makes for the value: all groups,
+         * which may give the value, joined by "and", while in each
+         * group all options with the value, or with <code>\any</code>
+         * and some taus, are joined by "or".</p>
+         *
+         * @param value The value
+         * @return The expression, like "((t4=1) or (t3=1))"
+         * @throws IllegalStateException If no option has the value
+         */
+        String expression(final String value) {
+            if (!this.has(value)) {
+                throw new IllegalStateException(
+                    String.format(
+                        "There is no expression for %s=%s", this.label, value
+                    )
+                );
+            }
+            final StringBuilder expr = new StringBuilder();
+            for (final List<Options.Opt> group : this.groups) {
+                if (!Options.Attr.gives(group, value)) {
+                    continue;
+                }
+                if (expr.length() > 0) {
+                    expr.append(" and ");
+                }
+                expr.append('(');
+                String sep = "";
+                for (final Options.Opt opt : group) {
+                    if (value.equals(opt.value())
+                        || Table.ANY.equals(opt.value()) && !opt.taus().isEmpty()) {
+                        expr.append(sep).append('(');
+                        String and = "";
+                        for (final Map.Entry<String, String> tau : opt.taus()) {
+                            expr.append(and).append("\uD835\uDF0F")
+                                .append(tau.getKey()).append('=').append(tau.getValue());
+                            and = " \u2227 ";
+                        }
+                        expr.append(')');
+                        sep = " or ";
+                    }
+                }
+                expr.append(')');
+            }
+            return expr.toString();
+        }
+
+        /**
+         * Is there an option with the value?
+         * @param value The value
+         * @return TRUE if some option has it
+         */
+        private boolean has(final String value) {
+            boolean found = false;
+            for (final List<Options.Opt> group : this.groups) {
+                for (final Options.Opt opt : group) {
+                    found |= value.equals(opt.value());
+                }
+            }
+            return found;
+        }
+
+        /**
+         * May the group of options give the value?
+         * @param group The options
+         * @param value The value
+         * @return TRUE if there is an option with it or with \any
+         */
+        private static boolean gives(final List<Options.Opt> group, final String value) {
+            boolean found = false;
+            for (final Options.Opt opt : group) {
+                found |= value.equals(opt.value()) || Table.ANY.equals(opt.value());
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Option: a value and taus, which lead to it.
+     *
+     * @since 1.1
+     */
+    static final class Opt {
+
+        /**
+         * The value.
+         */
+        private final String val;
+
+        /**
+         * Taus and their values.
+         */
+        private final List<Map.Entry<String, String>> all;
+
+        /**
+         * Ctor.
+         * @param value The value
+         * @param taus Taus and their values
+         */
+        Opt(final String value, final List<Map.Entry<String, String>> taus) {
+            this.val = value;
+            this.all = taus;
+        }
+
+        /**
+         * The value.
+         * @return Value
+         */
+        String value() {
+            return this.val;
+        }
+
+        /**
+         * Taus and their values.
+         * @return Pairs of name of tau and its value
+         */
+        List<Map.Entry<String, String>> taus() {
+            return Collections.unmodifiableList(this.all);
+        }
+    }
+
+}
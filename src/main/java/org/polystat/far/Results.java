@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Bugs found earlier, by keys.
+ *
+ * <p>{@link FaR} asks for the bugs of an object before analyzing it,
+ * by its key, which is a fingerprint of the object, the rules and the
+ * version of the engine. If they are found, the object is not
+ * analyzed. Otherwise, the bugs found are saved by the same key.</p>
+ *
+ * @since 1.1
+ */
+public interface Results {
+
+    /**
+     * Find the bugs.
+     * @param key The key
+     * @return The bugs, or nothing, if the key is not known
+     */
+    Optional<Collection<String>> find(String key);
+
+    /**
+     * Save the bugs.
+     * @param key The key
+     * @param bugs The bugs, maybe empty
+     */
+    void save(String key, Collection<String> bugs);
+
+    /**
+     * Results, which are never kept.
+     *
+     * @since 1.1
+     */
+    final class Void implements Results {
+        @Override
+        public Optional<Collection<String>> find(final String key) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void save(final String key, final Collection<String> bugs) {
+            // nothing to do
+        }
+    }
+
+}
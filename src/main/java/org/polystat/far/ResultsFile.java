@@ -0,0 +1,283 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.log.Logger;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bugs found earlier, in a file.
+ *
+ * <p>The file is a log of records, each one is a key with its
+ * bugs. New records are only appended to the end of it, while the
+ * last record of a key wins. The file is read only once, during the
+ * first call, into an index in memory. If the last record is broken,
+ * for example because the process was killed while writing it, it's
+ * cut off.</p>
+ *
+ * <p>As soon as the file gets bigger than the limit, it is written
+ * again, with only the latest record of each key, while the keys
+ * used least recently are dropped, until the file is half of the
+ * limit. The new file replaces the old one atomically.</p>
+ *
+ * <p>The object is thread-safe, but only one process may use the
+ * file at a time.</p>
+ *
+ * @since 1.1
+ */
+public final class ResultsFile implements Results {
+
+    /**
+     * The default limit of the file, in bytes.
+     */
+    private static final long LIMIT = 64L * 1024L * 1024L;
+
+    /**
+     * The file.
+     */
+    private final Path path;
+
+    /**
+     * The limit of the file, in bytes.
+     */
+    private final long limit;
+
+    /**
+     * Bugs by keys, from used least recently to used most recently.
+     */
+    private final Map<String, List<String>> index;
+
+    /**
+     * Size of the file, or -1 if it is not read yet.
+     */
+    private long size;
+
+    /**
+     * Ctor.
+     * @param file The file
+     */
+    public ResultsFile(final Path file) {
+        this(file, ResultsFile.LIMIT);
+    }
+
+    /**
+     * Ctor.
+     * @param file The file
+     * @param bytes The limit of the file, in bytes
+     */
+    public ResultsFile(final Path file, final long bytes) {
+        this.path = file;
+        this.limit = bytes;
+        this.index = new LinkedHashMap<>(0, 0.75f, true);
+        this.size = -1L;
+    }
+
+    @Override
+    public synchronized Optional<Collection<String>> find(final String key) {
+        this.load();
+        return Optional.ofNullable(this.index.get(key));
+    }
+
+    @Override
+    public synchronized void save(final String key, final Collection<String> bugs) {
+        this.load();
+        final List<String> list = Collections.unmodifiableList(new ArrayList<>(bugs));
+        byte[] record = new byte[0];
+        try {
+            record = ResultsFile.record(key, list);
+        } catch (final IOException ex) {
+            Logger.warn(this, "Can't save the bugs of %s: %s", key, ex.getMessage());
+        }
+        if (record.length > 0) {
+            this.index.put(key, list);
+            try {
+                this.append(record);
+            } catch (final IOException ex) {
+                throw new IllegalStateException(
+                    String.format("Can't write results to %s", this.path), ex
+                );
+            }
+        }
+    }
+
+    /**
+     * Append the record to the file.
+     * @param record The record
+     * @throws IOException If fails
+     */
+    private void append(final byte[] record) throws IOException {
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        try (OutputStream out = Files.newOutputStream(
+            this.path, StandardOpenOption.CREATE, StandardOpenOption.APPEND
+        )) {
+            out.write(record);
+        }
+        this.size += record.length;
+        if (this.size > this.limit) {
+            this.compact();
+        }
+    }
+
+    /**
+     * Read the file into the index, if not yet.
+     */
+    private void load() {
+        if (this.size < 0L) {
+            this.size = 0L;
+            if (Files.exists(this.path)) {
+                try {
+                    this.size = this.read(Files.readAllBytes(this.path));
+                } catch (final IOException ex) {
+                    throw new IllegalStateException(
+                        String.format("Can't read results from %s", this.path), ex
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Read all records into the index, and cut off the broken one
+     * at the end, if any.
+     * @param bytes Content of the file
+     * @return How many bytes of it are good
+     * @throws IOException If fails
+     */
+    private long read(final byte[] bytes) throws IOException {
+        final ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+        final DataInputStream data = new DataInputStream(input);
+        long good = 0L;
+        try {
+            while (input.available() > 0) {
+                final String key = data.readUTF();
+                final int total = data.readInt();
+                if (total < 0 || total > input.available()) {
+                    throw new IOException(String.format("Wrong number of bugs: %d", total));
+                }
+                final List<String> bugs = new ArrayList<>(total);
+                for (int idx = 0; idx < total; ++idx) {
+                    bugs.add(data.readUTF());
+                }
+                this.index.put(key, Collections.unmodifiableList(bugs));
+                good = bytes.length - input.available();
+            }
+        } catch (final IOException ex) {
+            Logger.warn(
+                this, "The results in %s are broken after %d bytes, cut off: %s",
+                this.path, good, ex.getMessage()
+            );
+            try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.WRITE)) {
+                channel.truncate(good);
+            }
+        }
+        return good;
+    }
+
+    /**
+     * Write the file again, without old records.
+     * @throws IOException If fails
+     */
+    private void compact() throws IOException {
+        final List<byte[]> records = new ArrayList<>(this.index.size());
+        long total = 0L;
+        for (final Map.Entry<String, List<String>> ent : this.index.entrySet()) {
+            final byte[] record = ResultsFile.record(ent.getKey(), ent.getValue());
+            records.add(record);
+            total += record.length;
+        }
+        final Iterator<Map.Entry<String, List<String>>> keys =
+            this.index.entrySet().iterator();
+        int first = 0;
+        while (total > this.limit / 2L && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            total -= records.get(first).length;
+            ++first;
+        }
+        final Path temp = Files.createTempFile(
+            this.path.toAbsolutePath().getParent(),
+            this.path.getFileName().toString(), ".tmp"
+        );
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                for (final byte[] record : records.subList(first, records.size())) {
+                    out.write(record);
+                }
+            }
+            Files.move(
+                temp, this.path,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE
+            );
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        Logger.info(
+            this, "Results in %s compacted to %d keys and %d bytes",
+            this.path, this.index.size(), total
+        );
+        this.size = total;
+    }
+
+    /**
+     * Make a record.
+     * @param key The key
+     * @param bugs The bugs
+     * @return The record, in bytes
+     * @throws IOException If fails, for example if a bug is too long
+     */
+    private static byte[] record(final String key, final List<String> bugs)
+        throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream(bytes);
+        data.writeUTF(key);
+        data.writeInt(bugs.size());
+        for (final String bug : bugs) {
+            data.writeUTF(bug);
+        }
+        data.flush();
+        return bytes.toByteArray();
+    }
+
+}
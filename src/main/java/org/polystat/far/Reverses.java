@@ -0,0 +1,813 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.cactoos.scalar.Solid;
+import org.cactoos.scalar.Unchecked;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xembly.Directives;
+import org.xembly.Xembler;
+
+/**
+ * Options of attributes of an object, calculated in memory.
+ *
+ * <p>This is the same as the train of shifts, which {@link FaR}
+ * applies to the object before the solver, from "expected.xsl" to
+ * "cleanup-perps.xsl", but the XMIR is read into Java objects only
+ * once and no XML is made on the way. The result is the same
+ * {@link Options} the solver would read from the output of the
+ * train.</p>
+ *
+ * <p>Each call of a function in the decoratee is calculated only
+ * once, even if many attributes are met in its arguments, because
+ * the options of a call depend only on the calls inside it.</p>
+ *
+ * <p>The XML is made only by {@link #xml()}, for debugging.</p>
+ *
+ * @since 1.1
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+final class Reverses {
+
+    /**
+     * The value, which matches any other.
+     */
+    private static final String ANY = "\\any";
+
+    /**
+     * The value, which no attribute can have.
+     */
+    private static final String PERP = "\\perp";
+
+    /**
+     * Name of XML elements of objects.
+     */
+    private static final String OBJ = "o";
+
+    /**
+     * The value the object is expected to become.
+     */
+    private final String expected;
+
+    /**
+     * Attributes, calculated only once.
+     */
+    private final Unchecked<List<Reverses.Attr>> attrs;
+
+    /**
+     * Ctor.
+     * @param obj The object, as XMIR
+     * @param calc The rules
+     */
+    Reverses(final XML obj, final Calc calc) {
+        this(obj, calc, Reverses.PERP);
+    }
+
+    /**
+     * Ctor.
+     * @param obj The object, as XMIR
+     * @param calc The rules
+     * @param exp The value the object is expected to become
+     */
+    Reverses(final XML obj, final Calc calc, final String exp) {
+        this(obj, calc, exp, new Budget().start());
+    }
+
+    /**
+     * Ctor.
+     * @param obj The object, as XMIR
+     * @param calc The rules
+     * @param exp The value the object is expected to become
+     * @param meter The budget to spend
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Reverses(final XML obj, final Calc calc, final String exp,
+        final Budget.Meter meter) {
+        this.expected = exp;
+        this.attrs = new Unchecked<>(
+            new Solid<>(() -> Reverses.calculate(obj.inner(), calc, exp, meter))
+        );
+    }
+
+    /**
+     * Options of all attributes, for the solver.
+     * @return Options
+     */
+    Options options() {
+        final List<Options.Attr> all = new ArrayList<>(0);
+        for (final Reverses.Attr attr : this.attrs.value()) {
+            all.add(attr.options());
+        }
+        return new Options(all);
+    }
+
+    /**
+     * Options of all attributes, as XML, the same as the train
+     * of shifts before the solver makes.
+     * @return XML
+     */
+    XML xml() {
+        final Directives dirs = new Directives()
+            .add(Reverses.OBJ).attr("expected", this.expected);
+        for (final Reverses.Attr attr : this.attrs.value()) {
+            attr.write(dirs, this.expected);
+        }
+        return new XMLDocument(new Xembler(dirs).domQuietly());
+    }
+
+    /**
+     * Calculate options of all attributes.
+     * @param node The XMIR, either a document or its root element
+     * @param calc The rules
+     * @param exp The value the object is expected to become
+     * @param meter The budget to spend
+     * @return Attributes
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static List<Reverses.Attr> calculate(final Node node,
+        final Calc calc, final String exp, final Budget.Meter meter) {
+        final Element root;
+        if (node instanceof Document) {
+            root = ((Document) node).getDocumentElement();
+        } else {
+            root = (Element) node;
+        }
+        final Reverses.Elm top = new Reverses.Elm(root);
+        top.number(0);
+        top.kappas();
+        top.number(0);
+        Reverses.Elm decoratee = null;
+        if (top.is(Reverses.OBJ)) {
+            decoratee = top.decoratee();
+        }
+        final List<Reverses.Attr> all = new ArrayList<>(0);
+        for (final Reverses.Elm kid : top.kids) {
+            if (!kid.is(Reverses.OBJ)) {
+                continue;
+            }
+            final List<List<Reverses.Opt>> groups = new ArrayList<>(0);
+            if (decoratee != null && kid.free()) {
+                final List<Reverses.Call> calls = new ArrayList<>(0);
+                Reverses.reverses(kid, decoratee, null, calls);
+                for (final Reverses.Call call : calls) {
+                    groups.add(call.opts(calc, exp, meter));
+                }
+            }
+            all.add(new Reverses.Attr(kid, groups));
+        }
+        return all;
+    }
+
+    /**
+     * Find all calls, where the attribute is an argument.
+     *
+     * <p>This is what "reverses.xsl" does.</p>
+     *
+     * @param attr The attribute
+     * @param obj The object to look into
+     * @param inner The call, which takes the result of this object
+     * @param calls All calls found
+     */
+    private static void reverses(final Reverses.Elm attr, final Reverses.Elm obj,
+        final Reverses.Call inner, final List<Reverses.Call> calls) {
+        int pos = 0;
+        for (final Reverses.Elm kid : obj.kids) {
+            if (!kid.is(Reverses.OBJ)) {
+                continue;
+            }
+            ++pos;
+            final Reverses.Call call = obj.call(pos, inner);
+            if (kid.refers(attr)) {
+                calls.add(call);
+            } else {
+                Reverses.reverses(attr, kid, call, calls);
+            }
+        }
+    }
+
+    /**
+     * XML element of the object, in memory.
+     *
+     * @since 1.1
+     */
+    private static final class Elm {
+
+        /**
+         * Name of the element.
+         */
+        private final String tag;
+
+        /**
+         * XML attributes, by names.
+         */
+        private final Map<String, String> props;
+
+        /**
+         * Texts inside, except blank ones.
+         */
+        private final List<String> texts;
+
+        /**
+         * Child elements.
+         */
+        private final List<Reverses.Elm> kids;
+
+        /**
+         * Calls of the function of this object, by positions
+         * of arguments.
+         */
+        private final Map<Integer, Reverses.Call> calls;
+
+        /**
+         * Position of it in the document, among all elements.
+         */
+        private int idx;
+
+        /**
+         * Ctor.
+         * @param elm The element of XML
+         */
+        Elm(final Element elm) {
+            this(elm.getNodeName(), new LinkedHashMap<>(0));
+            final NamedNodeMap attrs = elm.getAttributes();
+            for (int pos = 0; pos < attrs.getLength(); ++pos) {
+                final Node attr = attrs.item(pos);
+                this.props.put(attr.getNodeName(), attr.getNodeValue());
+            }
+            for (Node kid = elm.getFirstChild(); kid != null; kid = kid.getNextSibling()) {
+                if (kid.getNodeType() == Node.ELEMENT_NODE) {
+                    this.kids.add(new Reverses.Elm((Element) kid));
+                } else if ((kid.getNodeType() == Node.TEXT_NODE
+                    || kid.getNodeType() == Node.CDATA_SECTION_NODE)
+                    && !kid.getNodeValue().trim().isEmpty()) {
+                    this.texts.add(kid.getNodeValue());
+                }
+            }
+        }
+
+        /**
+         * Ctor.
+         * @param name Name of the element
+         * @param attrs XML attributes
+         */
+        Elm(final String name, final Map<String, String> attrs) {
+            this.tag = name;
+            this.props = attrs;
+            this.texts = new ArrayList<>(0);
+            this.kids = new ArrayList<>(0);
+            this.calls = new HashMap<>(0);
+        }
+
+        /**
+         * Does it have this name?
+         * @param name The name
+         * @return TRUE if it does
+         */
+        boolean is(final String name) {
+            return this.tag.equals(name);
+        }
+
+        /**
+         * Value of XML attribute.
+         * @param name Name of it
+         * @return The value or NULL, if it's absent
+         */
+        String prop(final String name) {
+            return this.props.get(name);
+        }
+
+        /**
+         * Number all elements, in the order of the document.
+         *
+         * <p>This is what {@link StIds} does.</p>
+         *
+         * @param first Number of this element
+         * @return Number of the element after the last one
+         */
+        int number(final int first) {
+            this.idx = first;
+            int next = first + 1;
+            for (final Reverses.Elm kid : this.kids) {
+                next = kid.number(next);
+            }
+            return next;
+        }
+
+        /**
+         * Add kappa attributes to all objects with a decoratee.
+         *
+         * <p>This is what "data-to-attrs.xsl" does.</p>
+         */
+        void kappas() {
+            final List<Reverses.Elm> data = new ArrayList<>(0);
+            if (this.is(Reverses.OBJ) && this.decoratee() != null) {
+                for (final Reverses.Elm kid : this.kids) {
+                    kid.data(data);
+                }
+            }
+            for (final Reverses.Elm kid : this.kids) {
+                kid.kappas();
+            }
+            for (final Reverses.Elm dat : data) {
+                String line = dat.prop("line");
+                if (line == null) {
+                    line = "";
+                }
+                final Map<String, String> attrs = new LinkedHashMap<>(0);
+                attrs.put("name", String.format("\u03ba-%d-%s", dat.idx + 1, line));
+                attrs.put("line", line);
+                attrs.put("data", String.join(" ", dat.texts));
+                this.kids.add(new Reverses.Elm(Reverses.OBJ, attrs));
+            }
+        }
+
+        /**
+         * The decoratee.
+         * @return The child "@" or NULL, if there is none
+         */
+        Reverses.Elm decoratee() {
+            Reverses.Elm found = null;
+            for (final Reverses.Elm kid : this.kids) {
+                if (kid.is(Reverses.OBJ) && "@".equals(kid.prop("name"))) {
+                    found = kid;
+                    break;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Is it a free attribute?
+         * @return TRUE if it has no base and no objects inside
+         */
+        boolean free() {
+            return this.is(Reverses.OBJ) && this.prop("base") == null
+                && !this.composite();
+        }
+
+        /**
+         * Is it a reference to the attribute?
+         * @param attr The attribute
+         * @return TRUE if it refers to it by name or by data
+         */
+        boolean refers(final Reverses.Elm attr) {
+            final String base = this.prop("base");
+            final String ref = this.prop("ref");
+            final String data = attr.prop("data");
+            return base != null && ref != null
+                && base.equals(attr.prop("name")) && ref.equals(attr.prop("line"))
+                || data != null && this.texts.contains(data);
+        }
+
+        /**
+         * The call of the function of this object.
+         * @param pos Position of the argument, starting from one
+         * @param inner The call, which takes the result of it
+         * @return The call
+         */
+        Reverses.Call call(final int pos, final Reverses.Call inner) {
+            return this.calls.computeIfAbsent(
+                pos,
+                key -> {
+                    String func = this.prop("base");
+                    if (func == null) {
+                        func = "";
+                    }
+                    return new Reverses.Call(func, key, Integer.toString(this.idx), inner);
+                }
+            );
+        }
+
+        /**
+         * Collect all data objects inside, in the order of the document.
+         * @param data Data objects found
+         */
+        private void data(final List<Reverses.Elm> data) {
+            if (this.is(Reverses.OBJ) && this.prop("base") != null
+                && this.prop("data") != null && !this.composite()) {
+                data.add(this);
+            }
+            for (final Reverses.Elm kid : this.kids) {
+                kid.data(data);
+            }
+        }
+
+        /**
+         * Does it have objects inside?
+         * @return TRUE if it does
+         */
+        private boolean composite() {
+            boolean found = false;
+            for (final Reverses.Elm kid : this.kids) {
+                if (kid.is(Reverses.OBJ)) {
+                    found = true;
+                    break;
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Call of a function, with the attribute in the argument.
+     *
+     * @since 1.1
+     */
+    private static final class Call {
+
+        /**
+         * Name of the function.
+         */
+        private final String func;
+
+        /**
+         * Position of the argument, starting from one.
+         */
+        private final int pos;
+
+        /**
+         * ID of the call.
+         */
+        private final String tau;
+
+        /**
+         * The call, which takes the result of it, or NULL, if
+         * it is the decoratee.
+         */
+        private final Reverses.Call inner;
+
+        /**
+         * Options, calculated only once.
+         */
+        private List<Reverses.Opt> cache;
+
+        /**
+         * Ctor.
+         * @param name Name of the function
+         * @param arg Position of the argument
+         * @param id ID of the call
+         * @param next The call, which takes the result of it
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Call(final String name, final int arg, final String id,
+            final Reverses.Call next) {
+            this.func = name;
+            this.pos = arg;
+            this.tau = id;
+            this.inner = next;
+        }
+
+        /**
+         * Possible values of the argument.
+         *
+         * <p>This is what {@link StCalculations} does.</p>
+         *
+         * @param calc The rules
+         * @param exp The value the decoratee must return
+         * @param meter The budget to spend
+         * @return Options
+         */
+        List<Reverses.Opt> opts(final Calc calc, final String exp,
+            final Budget.Meter meter) {
+            if (this.cache == null) {
+                List<Reverses.Opt> inputs = Collections.emptyList();
+                if (this.inner != null) {
+                    inputs = this.inner.opts(calc, exp, meter);
+                }
+                final List<Reverses.Opt> opts = new ArrayList<>(0);
+                if (inputs.isEmpty()) {
+                    final List<String> vals = calc.inputs(this.func, this.pos, exp);
+                    for (int idx = 0; idx < vals.size(); ++idx) {
+                        opts.add(new Reverses.Opt(this, vals, idx, null));
+                    }
+                } else {
+                    for (final Reverses.Opt input : inputs) {
+                        final List<String> vals = calc.inputs(
+                            this.func, this.pos, input.value()
+                        );
+                        for (int idx = 0; idx < vals.size(); ++idx) {
+                            opts.add(new Reverses.Opt(this, vals, idx, input));
+                        }
+                    }
+                }
+                meter.options(opts.size(), "reverses");
+                this.cache = opts;
+            }
+            return this.cache;
+        }
+    }
+
+    /**
+     * Possible value of the argument of a call.
+     *
+     * @since 1.1
+     */
+    private static final class Opt {
+
+        /**
+         * The call.
+         */
+        private final Reverses.Call call;
+
+        /**
+         * All possible values of the argument.
+         */
+        private final List<String> values;
+
+        /**
+         * Index of this one among them.
+         */
+        private final int idx;
+
+        /**
+         * The option of the call, which takes the result of it,
+         * or NULL, if there is none.
+         */
+        private final Reverses.Opt input;
+
+        /**
+         * Ctor.
+         * @param cll The call
+         * @param vals All possible values of the argument
+         * @param index Index of this one among them
+         * @param next The option of the call, which takes the result
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Opt(final Reverses.Call cll, final List<String> vals, final int index,
+            final Reverses.Opt next) {
+            this.call = cll;
+            this.values = vals;
+            this.idx = index;
+            this.input = next;
+        }
+
+        /**
+         * The value.
+         * @return Value
+         */
+        String value() {
+            return this.values.get(this.idx);
+        }
+
+        /**
+         * How it was calculated, like the attribute "m" of "opt".
+         * @param exp The value the decoratee must return
+         * @return Text
+         */
+        String meaning(final String exp) {
+            final String arg;
+            if (this.input == null) {
+                arg = exp;
+            } else {
+                arg = String.format(
+                    "%s=%s", this.input.meaning(exp), this.input.value()
+                );
+            }
+            return String.format("%s(%s)[%d]", this.call.func, arg, this.call.pos);
+        }
+
+        /**
+         * Taus, which lead to it, from this call to the decoratee.
+         * @param never Are all of them impossible?
+         * @return Values of taus, by their full IDs, like "4:1"
+         */
+        List<Map.Entry<String, String>> taus(final boolean never) {
+            final List<Map.Entry<String, String>> taus = new ArrayList<>(0);
+            for (Reverses.Opt opt = this; opt != null; opt = opt.input) {
+                final String val;
+                if (never) {
+                    val = Expr.NEVER;
+                } else {
+                    val = Integer.toString(opt.idx + 1);
+                }
+                taus.add(
+                    new AbstractMap.SimpleImmutableEntry<>(
+                        String.format("%s:%d", opt.call.tau, opt.values.size()), val
+                    )
+                );
+            }
+            return taus;
+        }
+    }
+
+    /**
+     * Attribute with its groups of options, cleaned up.
+     *
+     * @since 1.1
+     */
+    private static final class Attr {
+
+        /**
+         * Name of it, or NULL.
+         */
+        private final String name;
+
+        /**
+         * Groups of options, which survived.
+         */
+        private final List<List<Reverses.Opt>> groups;
+
+        /**
+         * Taus of options in groups, by full IDs.
+         */
+        private final List<List<List<Map.Entry<String, String>>>> taus;
+
+        /**
+         * Ctor.
+         *
+         * <p>Options are cleaned up the same way as "cleanup-outsiders.xsl",
+         * "unmatch-data.xsl", {@link StConflicts}, and "cleanup-perps.xsl"
+         * do it, in this order.</p>
+         *
+         * @param attr The attribute
+         * @param opts Groups of options, one for each reference to it
+         */
+        Attr(final Reverses.Elm attr, final List<List<Reverses.Opt>> opts) {
+            this.name = attr.prop("name");
+            this.groups = new ArrayList<>(opts.size());
+            this.taus = new ArrayList<>(opts.size());
+            final List<List<Reverses.Opt>> inside = Reverses.Attr.outsiders(opts);
+            final String data = attr.prop("data");
+            final List<StConflicts.Choice> choices = new ArrayList<>(0);
+            final List<List<List<Map.Entry<String, String>>>> all =
+                new ArrayList<>(inside.size());
+            for (int grp = 0; grp < inside.size(); ++grp) {
+                final List<List<Map.Entry<String, String>>> list = new ArrayList<>(0);
+                for (final Reverses.Opt opt : inside.get(grp)) {
+                    final String val = opt.value();
+                    final List<Map.Entry<String, String>> ids = opt.taus(
+                        data != null && !data.equals(val) && !Reverses.ANY.equals(val)
+                    );
+                    final Map<String, Set<String>> index = new HashMap<>(0);
+                    for (final Map.Entry<String, String> tau : ids) {
+                        index.computeIfAbsent(
+                            tau.getKey(), key -> new LinkedHashSet<>(1)
+                        ).add(tau.getValue());
+                    }
+                    choices.add(new StConflicts.Choice(val, index, grp, inside.size()));
+                    list.add(ids);
+                }
+                all.add(list);
+            }
+            if (inside.size() > 1) {
+                StConflicts.prune(choices);
+            }
+            int next = 0;
+            for (int grp = 0; grp < inside.size(); ++grp) {
+                final List<Reverses.Opt> alive = new ArrayList<>(0);
+                final List<List<Map.Entry<String, String>>> ids = new ArrayList<>(0);
+                for (int pos = 0; pos < inside.get(grp).size(); ++pos) {
+                    final Reverses.Opt opt = inside.get(grp).get(pos);
+                    if (choices.get(next).alive() && !Reverses.PERP.equals(opt.value())) {
+                        alive.add(opt);
+                        ids.add(all.get(grp).get(pos));
+                    }
+                    ++next;
+                }
+                this.groups.add(alive);
+                this.taus.add(ids);
+            }
+        }
+
+        /**
+         * Options for the solver.
+         * @return The attribute
+         */
+        Options.Attr options() {
+            final List<List<Options.Opt>> opts = new ArrayList<>(this.groups.size());
+            for (int grp = 0; grp < this.groups.size(); ++grp) {
+                final List<Options.Opt> list = new ArrayList<>(0);
+                for (int pos = 0; pos < this.groups.get(grp).size(); ++pos) {
+                    final List<Map.Entry<String, String>> taus = new ArrayList<>(0);
+                    for (final Map.Entry<String, String> tau
+                        : this.taus.get(grp).get(pos)) {
+                        taus.add(
+                            new AbstractMap.SimpleImmutableEntry<>(
+                                tau.getKey().split(":")[0], tau.getValue()
+                            )
+                        );
+                    }
+                    list.add(
+                        new Options.Opt(this.groups.get(grp).get(pos).value(), taus)
+                    );
+                }
+                opts.add(list);
+            }
+            String label = this.name;
+            if (label == null) {
+                label = "";
+            }
+            return new Options.Attr(label, opts);
+        }
+
+        /**
+         * Print it as XML.
+         * @param dirs Directives to add to
+         * @param exp The value the decoratee must return
+         */
+        void write(final Directives dirs, final String exp) {
+            dirs.add(Reverses.OBJ);
+            if (this.name != null) {
+                dirs.attr("name", this.name);
+            }
+            for (int grp = 0; grp < this.groups.size(); ++grp) {
+                dirs.add("opts");
+                for (int pos = 0; pos < this.groups.get(grp).size(); ++pos) {
+                    final Reverses.Opt opt = this.groups.get(grp).get(pos);
+                    dirs.add("opt")
+                        .attr("m", opt.meaning(exp))
+                        .attr("x", opt.value());
+                    for (final Map.Entry<String, String> tau
+                        : this.taus.get(grp).get(pos)) {
+                        dirs.add("tau").attr("i", tau.getKey()).set(tau.getValue()).up();
+                    }
+                    dirs.up();
+                }
+                dirs.up();
+            }
+            dirs.up();
+        }
+
+        /**
+         * Delete options, which are not compatible with any option
+         * of another group.
+         *
+         * <p>This is what "cleanup-outsiders.xsl" does.</p>
+         *
+         * @param opts Groups of options
+         * @return Groups of options left
+         */
+        private static List<List<Reverses.Opt>> outsiders(
+            final List<List<Reverses.Opt>> opts) {
+            final List<Set<String>> values = new ArrayList<>(opts.size());
+            boolean empty = false;
+            for (final List<Reverses.Opt> group : opts) {
+                final Set<String> vals = new HashSet<>(0);
+                for (final Reverses.Opt opt : group) {
+                    vals.add(opt.value());
+                }
+                values.add(vals);
+                empty |= vals.isEmpty();
+            }
+            final List<List<Reverses.Opt>> left = new ArrayList<>(opts.size());
+            for (final List<Reverses.Opt> group : opts) {
+                final List<Reverses.Opt> list = new ArrayList<>(group.size());
+                for (final Reverses.Opt opt : group) {
+                    final String val = opt.value();
+                    boolean inside = !empty;
+                    if (!Reverses.ANY.equals(val)) {
+                        for (final Set<String> vals : values) {
+                            if (!vals.contains(val) && !vals.contains(Reverses.ANY)) {
+                                inside = false;
+                                break;
+                            }
+                        }
+                    }
+                    if (inside) {
+                        list.add(opt);
+                    }
+                }
+                left.add(list);
+            }
+            return left;
+        }
+    }
+
+}
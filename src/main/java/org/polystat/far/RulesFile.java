@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rules of calculation, from a file, which may change.
+ *
+ * <p>The file is read again, as soon as its time of modification
+ * or its size is different from what it was during the last read.
+ * The new rules are validated and then swapped in atomically, while
+ * calls already running keep the {@link Calc} they started with.
+ * If the new rules are broken, or the file can't be read, the
+ * previous rules stay, with a warning in the log, until the file
+ * changes again. If the rules can't be read even once, {@link #calc()}
+ * throws {@link IllegalStateException}.</p>
+ *
+ * <p>The object is thread-safe.</p>
+ *
+ * @since 1.1
+ */
+public final class RulesFile implements Rules {
+
+    /**
+     * The file.
+     */
+    private final Path path;
+
+    /**
+     * The rules read last time, or NULL.
+     */
+    private final AtomicReference<RulesFile.Snapshot> last;
+
+    /**
+     * Ctor.
+     * @param file The file with rules, one per line
+     */
+    public RulesFile(final Path file) {
+        this.path = file;
+        this.last = new AtomicReference<>();
+    }
+
+    @Override
+    public Calc calc() {
+        final RulesFile.Snapshot before = this.last.get();
+        String stamp;
+        try {
+            stamp = this.stamp();
+        } catch (final IOException ex) {
+            if (before == null) {
+                throw new IllegalStateException(ex);
+            }
+            Logger.warn(this, "Can't check rules in %s: %s", this.path, ex.getMessage());
+            stamp = before.stamp;
+        }
+        final Calc calc;
+        if (before != null && before.stamp.equals(stamp)) {
+            calc = before.rules;
+        } else {
+            final RulesFile.Snapshot after = this.read(stamp, before);
+            if (this.last.compareAndSet(before, after)) {
+                calc = after.rules;
+            } else {
+                calc = this.last.get().rules;
+            }
+        }
+        return calc;
+    }
+
+    /**
+     * Read the file and validate the rules.
+     * @param stamp The stamp of the file
+     * @param before The previous rules, or NULL
+     * @return New snapshot
+     */
+    private RulesFile.Snapshot read(final String stamp,
+        final RulesFile.Snapshot before) {
+        RulesFile.Snapshot after;
+        try {
+            after = new RulesFile.Snapshot(
+                stamp,
+                new RulesOf(
+                    new String(Files.readAllBytes(this.path), StandardCharsets.UTF_8)
+                ).calc()
+            );
+            Logger.info(this, "Rules loaded from %s", this.path);
+        } catch (final IOException | IllegalStateException ex) {
+            if (before == null) {
+                throw new IllegalStateException(
+                    String.format("Can't load rules from %s", this.path), ex
+                );
+            }
+            Logger.warn(
+                this, "Rules in %s are broken, the previous ones stay: %s",
+                this.path, ex.getMessage()
+            );
+            after = new RulesFile.Snapshot(stamp, before.rules);
+        }
+        return after;
+    }
+
+    /**
+     * Stamp of the file, which changes when the file changes.
+     * @return The stamp
+     * @throws IOException If fails
+     */
+    private String stamp() throws IOException {
+        final FileTime time = Files.getLastModifiedTime(this.path);
+        return String.format("%d:%d", time.toMillis(), Files.size(this.path));
+    }
+
+    /**
+     * Rules, as they were read once.
+     *
+     * @since 1.1
+     */
+    private static final class Snapshot {
+
+        /**
+         * The stamp of the file.
+         */
+        private final String stamp;
+
+        /**
+         * The rules.
+         */
+        private final Calc rules;
+
+        /**
+         * Ctor.
+         * @param stmp The stamp of the file
+         * @param calc The rules
+         */
+        Snapshot(final String stmp, final Calc calc) {
+            this.stamp = stmp;
+            this.rules = calc;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import org.cactoos.io.ResourceOf;
+import org.cactoos.scalar.Solid;
+import org.cactoos.scalar.Unchecked;
+import org.cactoos.text.TextOf;
+import org.cactoos.text.UncheckedText;
+
+/**
+ * Rules of calculation, from a text.
+ *
+ * <p>The rules are validated and compiled to the table during the
+ * first call to {@link #calc()}, which throws
+ * {@link IllegalStateException} if any of them is broken. Further
+ * calls return the same {@link Calc}, which keeps its compiled
+ * rules. They are not compiled to the XSL, since the analysis
+ * doesn't use it, see {@link Calc#xsl()}.</p>
+ *
+ * @since 1.1
+ */
+public final class RulesOf implements Rules {
+
+    /**
+     * The rules, validated only once.
+     */
+    private final Unchecked<Calc> rules;
+
+    /**
+     * Ctor, with the rules shipped with the library.
+     */
+    public RulesOf() {
+        this(
+            new UncheckedText(
+                new TextOf(new ResourceOf("org/polystat/far/rules.txt"))
+            ).asString()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param text The rules, one per line
+     */
+    public RulesOf(final String text) {
+        this.rules = new Unchecked<>(
+            new Solid<>(() -> RulesOf.valid(new Calc(text.trim())))
+        );
+    }
+
+    @Override
+    public Calc calc() {
+        return this.rules.value();
+    }
+
+    /**
+     * Compile the rules to the table, to make sure that nothing will
+     * fail later, when they are used.
+     *
+     * @param calc The rules
+     * @return The same rules, compiled
+     */
+    private static Calc valid(final Calc calc) {
+        calc.table();
+        return calc;
+    }
+
+}
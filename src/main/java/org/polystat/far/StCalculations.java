@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import com.yegor256.xsline.Shift;
+import java.util.ArrayList;
+import java.util.List;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Shift, which turns all <code>r</code> elements into options.
+ *
+ * <p>Each <code>r</code> element made by "reverses.xsl" is a call
+ * of a function with the attribute somewhere in its argument,
+ * while nested <code>r</code> elements are the calls, which take
+ * the result of it. The innermost <code>r</code> is the decoratee
+ * of the object, which must return the expected value. For
+ * example:</p>
+ *
+ * <pre> &lt;opts&gt;
+ *   &lt;r f=".div" pos="2" tau="8"&gt;
+ *     &lt;r f=".add" pos="2" tau="3"/&gt;
+ *   &lt;/r&gt;
+ * &lt;/opts&gt;</pre>
+ *
+ * <p>The rules of {@link Calc} give the possible values of the
+ * argument of the innermost call; then, for each of them, the
+ * possible values of the argument of the call around it; and so
+ * on. Each possible value becomes an <code>opt</code> element,
+ * which remembers all choices made on the way, as taus:</p>
+ *
+ * <pre> &lt;opts&gt;
+ *   &lt;opt m=".div(.add(\perp)[2]=\any)[2]" x="\any"&gt;{t8:1=1} {t3:2=2}&lt;/opt&gt;
+ *   ...
+ * &lt;/opts&gt;</pre>
+ *
+ * <p>The result is the same as of "calculate.xsl", repeated until
+ * there are no <code>r</code> elements left, but each chain is
+ * walked only once, from the bottom up.</p>
+ *
+ * @since 1.1
+ */
+final class StCalculations implements Shift {
+
+    /**
+     * The rules.
+     */
+    private final Calc calc;
+
+    /**
+     * The budget to spend.
+     */
+    private final Budget.Meter meter;
+
+    /**
+     * Ctor.
+     * @param rules The rules
+     */
+    StCalculations(final Calc rules) {
+        this(rules, new Budget().start());
+    }
+
+    /**
+     * Ctor.
+     * @param rules The rules
+     * @param mtr The budget to spend, while options are calculated
+     */
+    StCalculations(final Calc rules, final Budget.Meter mtr) {
+        this.calc = rules;
+        this.meter = mtr;
+    }
+
+    @Override
+    public String uid() {
+        return "calculate";
+    }
+
+    @Override
+    public XML apply(final int position, final XML xml) {
+        final Document doc = (Document) xml.deepCopy();
+        final Element root = doc.getDocumentElement();
+        final NodeList all = doc.getElementsByTagName("r");
+        final List<Element> tops = new ArrayList<>(0);
+        for (int idx = 0; idx < all.getLength(); ++idx) {
+            final Element elm = (Element) all.item(idx);
+            if (!"r".equals(elm.getParentNode().getNodeName())) {
+                tops.add(elm);
+            }
+        }
+        if (!tops.isEmpty() && !root.hasAttribute("expected")) {
+            throw new IllegalStateException(
+                "The expected value is not set at the root element"
+            );
+        }
+        final String expected = root.getAttribute("expected");
+        for (final Element top : tops) {
+            final Node parent = top.getParentNode();
+            for (final StCalculations.Opt opt : this.resolve(top, expected)) {
+                final Element elm = doc.createElement("opt");
+                elm.setAttribute("m", opt.meaning);
+                elm.setAttribute("x", opt.value);
+                elm.setTextContent(opt.taus);
+                parent.insertBefore(elm, top);
+            }
+            parent.removeChild(top);
+        }
+        return new XMLDocument(doc);
+    }
+
+    /**
+     * Turn the <code>r</code> element into options.
+     * @param call The element
+     * @param expected The value the decoratee must return
+     * @return Options
+     */
+    private List<StCalculations.Opt> resolve(final Element call,
+        final String expected) {
+        final List<StCalculations.Opt> inputs = new ArrayList<>(0);
+        for (Node kid = call.getFirstChild(); kid != null; kid = kid.getNextSibling()) {
+            if (kid.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            if ("r".equals(kid.getNodeName())) {
+                inputs.addAll(this.resolve((Element) kid, expected));
+            } else if ("opt".equals(kid.getNodeName())) {
+                final Element opt = (Element) kid;
+                inputs.add(
+                    new StCalculations.Opt(
+                        opt.getAttribute("m"), opt.getAttribute("x"),
+                        opt.getTextContent()
+                    )
+                );
+            }
+        }
+        final String func = call.getAttribute("f");
+        final String pos = call.getAttribute("pos");
+        final String tau = call.getAttribute("tau");
+        final List<StCalculations.Opt> opts = new ArrayList<>(0);
+        if (inputs.isEmpty()) {
+            final List<String> vals = this.calc.inputs(func, Integer.parseInt(pos), expected);
+            for (int idx = 0; idx < vals.size(); ++idx) {
+                opts.add(
+                    new StCalculations.Opt(
+                        String.format("%s(%s)[%s]", func, expected, pos),
+                        vals.get(idx),
+                        StCalculations.tau(tau, vals.size(), idx)
+                    )
+                );
+            }
+        } else {
+            for (final StCalculations.Opt input : inputs) {
+                final List<String> vals = this.calc.inputs(
+                    func, Integer.parseInt(pos), input.value
+                );
+                for (int idx = 0; idx < vals.size(); ++idx) {
+                    opts.add(
+                        new StCalculations.Opt(
+                            String.format(
+                                "%s(%s=%s)[%s]", func, input.meaning, input.value, pos
+                            ),
+                            vals.get(idx),
+                            String.format(
+                                "%s %s", StCalculations.tau(tau, vals.size(), idx),
+                                input.taus
+                            )
+                        )
+                    );
+                }
+            }
+        }
+        this.meter.options(opts.size(), this.uid());
+        return opts;
+    }
+
+    /**
+     * Make a tau in text.
+     * @param tau ID of the call
+     * @param total How many choices there are
+     * @param idx The choice, starting from zero
+     * @return Text, like "{t8:3=1}"
+     */
+    private static String tau(final String tau, final int total, final int idx) {
+        return String.format("{\uD835\uDF0F%s:%d=%d}", tau, total, idx + 1);
+    }
+
+    /**
+     * Option in the making.
+     *
+     * @since 1.1
+     */
+    private static final class Opt {
+
+        /**
+         * How it was calculated.
+         */
+        private final String meaning;
+
+        /**
+         * The value.
+         */
+        private final String value;
+
+        /**
+         * Taus in text.
+         */
+        private final String taus;
+
+        /**
+         * Ctor.
+         * @param mng How it was calculated
+         * @param val The value
+         * @param txt Taus in text
+         */
+        Opt(final String mng, final String val, final String txt) {
+            this.meaning = mng;
+            this.value = val;
+            this.taus = txt;
+        }
+    }
+
+}
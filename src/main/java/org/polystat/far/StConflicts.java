@@ -0,0 +1,319 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import com.yegor256.xsline.Shift;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Shift, which deletes options conflicting with all options of
+ * another group.
+ *
+ * <p>Two options conflict when they have taus with the same ID, but
+ * different values. An option of an attribute is deleted when there
+ * is another group of options (another <code>opts</code> element)
+ * of the same attribute, where every option with a compatible value
+ * (the same one or <code>\any</code>) conflicts with it, or where
+ * there are no such options at all.</p>
+ *
+ * <p>A deleted option may make more options conflicting, that's why
+ * the deletion goes on until nothing changes. All pairs of options
+ * are compared only once, while each deletion only updates the
+ * counters of its peers, in a worklist. Deleted options are replaced
+ * with XML comments.</p>
+ *
+ * @since 1.1
+ */
+final class StConflicts implements Shift {
+
+    /**
+     * The value, which is compatible with any other.
+     */
+    private static final String ANY = "\\any";
+
+    @Override
+    public String uid() {
+        return "cleanup-conflicts";
+    }
+
+    @Override
+    public XML apply(final int position, final XML xml) {
+        final Document doc = (Document) xml.deepCopy();
+        final NodeList objs = doc.getElementsByTagName("o");
+        final List<Element> all = new ArrayList<>(objs.getLength());
+        for (int idx = 0; idx < objs.getLength(); ++idx) {
+            all.add((Element) objs.item(idx));
+        }
+        for (final Element obj : all) {
+            final List<Element> groups = Options.children(obj, "opts");
+            if (groups.size() > 1) {
+                StConflicts.bury(groups);
+            }
+        }
+        return new XMLDocument(doc);
+    }
+
+    /**
+     * Delete conflicting options.
+     *
+     * <p>The options are not deleted, but only marked, see
+     * {@link Choice#alive()}.</p>
+     *
+     * @param opts Options of all groups of one attribute
+     */
+    static void prune(final List<Choice> opts) {
+        for (int left = 0; left < opts.size(); ++left) {
+            for (int right = left + 1; right < opts.size(); ++right) {
+                opts.get(left).meet(opts.get(right));
+            }
+        }
+        final Queue<Choice> queue = new LinkedList<>();
+        for (final Choice opt : opts) {
+            if (opt.lonely() >= 0) {
+                opt.kill(opt.lonely());
+                queue.add(opt);
+            }
+        }
+        while (!queue.isEmpty()) {
+            final Choice dead = queue.poll();
+            for (final Choice peer : dead.peers()) {
+                if (peer.alive() && peer.lose(dead)) {
+                    queue.add(peer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace conflicting options in the groups of one attribute
+     * with comments.
+     * @param groups The groups
+     */
+    private static void bury(final List<Element> groups) {
+        final List<Element> elms = new ArrayList<>(0);
+        final List<Choice> opts = new ArrayList<>(0);
+        for (int grp = 0; grp < groups.size(); ++grp) {
+            for (final Element opt : Options.children(groups.get(grp), "opt")) {
+                final Map<String, Set<String>> taus = new HashMap<>(0);
+                for (final Element tau : Options.children(opt, "tau")) {
+                    taus.computeIfAbsent(
+                        tau.getAttribute("i"), key -> new LinkedHashSet<>(1)
+                    ).add(tau.getTextContent());
+                }
+                elms.add(opt);
+                opts.add(new Choice(opt.getAttribute("x"), taus, grp, groups.size()));
+            }
+        }
+        StConflicts.prune(opts);
+        for (int idx = 0; idx < opts.size(); ++idx) {
+            final Choice opt = opts.get(idx);
+            if (!opt.alive()) {
+                final Element elm = elms.get(idx);
+                elm.getParentNode().replaceChild(
+                    elm.getOwnerDocument().createComment(
+                        String.format(
+                            "conflict with OPTS #%d, x=%s",
+                            opt.lost + 1, opt.value
+                        )
+                    ),
+                    elm
+                );
+            }
+        }
+    }
+
+    /**
+     * One option with its taus indexed.
+     *
+     * @since 1.1
+     */
+    static final class Choice {
+
+        /**
+         * The value.
+         */
+        private final String value;
+
+        /**
+         * Index of its group.
+         */
+        private final int group;
+
+        /**
+         * Values of taus, by IDs.
+         */
+        private final Map<String, Set<String>> taus;
+
+        /**
+         * Compatible options of other groups, which don't conflict.
+         */
+        private final Collection<Choice> friends;
+
+        /**
+         * How many alive friends it has in each group.
+         */
+        private final int[] support;
+
+        /**
+         * Index of the group, where it lost all friends, or -1.
+         */
+        private int lost;
+
+        /**
+         * Ctor.
+         * @param val The value
+         * @param ids Values of taus, by their full IDs, like "4:1"
+         * @param grp Index of its group
+         * @param total Total number of groups
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Choice(final String val, final Map<String, Set<String>> ids,
+            final int grp, final int total) {
+            this.value = val;
+            this.group = grp;
+            this.taus = ids;
+            this.friends = new ArrayList<>(0);
+            this.support = new int[total];
+            this.lost = -1;
+        }
+
+        /**
+         * Compare with another option and remember it, if it's a friend.
+         * @param other The other option
+         */
+        void meet(final Choice other) {
+            if (this.group != other.group && this.compatible(other)
+                && !this.conflicts(other)) {
+                this.friends.add(other);
+                other.friends.add(this);
+                ++this.support[other.group];
+                ++other.support[this.group];
+            }
+        }
+
+        /**
+         * Find a group, where it has no friends.
+         * @return Index of the group or -1, if there are friends everywhere
+         */
+        int lonely() {
+            int found = -1;
+            for (int grp = 0; grp < this.support.length; ++grp) {
+                if (grp != this.group && this.support[grp] == 0) {
+                    found = grp;
+                    break;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Lose a friend, which was deleted.
+         * @param dead The friend
+         * @return TRUE if this option must be deleted now
+         */
+        boolean lose(final Choice dead) {
+            --this.support[dead.group];
+            final boolean empty = this.support[dead.group] == 0;
+            if (empty) {
+                this.kill(dead.group);
+            }
+            return empty;
+        }
+
+        /**
+         * Mark it as deleted.
+         * @param grp The group, where it has no friends
+         */
+        void kill(final int grp) {
+            this.lost = grp;
+        }
+
+        /**
+         * Is it still alive?
+         * @return TRUE if not deleted
+         */
+        boolean alive() {
+            return this.lost < 0;
+        }
+
+        /**
+         * Its friends.
+         * @return Friends
+         */
+        Collection<Choice> peers() {
+            return this.friends;
+        }
+
+        /**
+         * Are values compatible?
+         * @param other The other option
+         * @return TRUE if they may be equal
+         */
+        private boolean compatible(final Choice other) {
+            final String left = this.value;
+            final String right = other.value;
+            return left.equals(right) || StConflicts.ANY.equals(left)
+                || StConflicts.ANY.equals(right);
+        }
+
+        /**
+         * Do they have a tau with the same ID and different values?
+         * @param other The other option
+         * @return TRUE if they conflict
+         */
+        private boolean conflicts(final Choice other) {
+            Map<String, Set<String>> small = this.taus;
+            Map<String, Set<String>> big = other.taus;
+            if (small.size() > big.size()) {
+                small = other.taus;
+                big = this.taus;
+            }
+            boolean found = false;
+            for (final Map.Entry<String, Set<String>> tau : small.entrySet()) {
+                final Set<String> vals = big.get(tau.getKey());
+                if (vals != null && (vals.size() > 1 || tau.getValue().size() > 1
+                    || !vals.equals(tau.getValue()))) {
+                    found = true;
+                    break;
+                }
+            }
+            return found;
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import com.yegor256.xsline.Shift;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Shift, which numbers all <code>o</code> elements in document order.
+ *
+ * <p>Each <code>o</code> element gets the attribute <code>@id</code>,
+ * which is equal to <code>count(preceding::*) + count(ancestor::*)</code>,
+ * that is the number of elements before it in the document. Both
+ * "data-to-attrs.xsl" and "reverses.xsl" use it to name kappas and
+ * taus, instead of counting the elements again for each of them.</p>
+ *
+ * <p>The numbers are valid only until elements are added or deleted,
+ * that's why the shift must be applied again before the next stage,
+ * which needs them, if the document was changed.</p>
+ *
+ * @since 1.1
+ */
+final class StIds implements Shift {
+
+    @Override
+    public String uid() {
+        return "ids";
+    }
+
+    @Override
+    public XML apply(final int position, final XML xml) {
+        final Document doc = (Document) xml.deepCopy();
+        final NodeList all = doc.getElementsByTagName("*");
+        for (int idx = 0; idx < all.getLength(); ++idx) {
+            final Element elm = (Element) all.item(idx);
+            if ("o".equals(elm.getNodeName())) {
+                elm.setAttribute("id", Integer.toString(idx));
+            }
+        }
+        return new XMLDocument(doc);
+    }
+
+}
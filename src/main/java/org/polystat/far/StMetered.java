@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.yegor256.xsline.Shift;
+
+/**
+ * Shift, which reports how long another shift takes.
+ *
+ * @since 1.1
+ */
+final class StMetered implements Shift {
+
+    /**
+     * The shift.
+     */
+    private final Shift origin;
+
+    /**
+     * The listener.
+     */
+    private final Metrics metrics;
+
+    /**
+     * Name of the object.
+     */
+    private final String name;
+
+    /**
+     * Ctor.
+     * @param shift The shift
+     * @param mtx The listener
+     * @param obj Name of the object
+     */
+    StMetered(final Shift shift, final Metrics mtx, final String obj) {
+        this.origin = shift;
+        this.metrics = mtx;
+        this.name = obj;
+    }
+
+    @Override
+    public String uid() {
+        return this.origin.uid();
+    }
+
+    @Override
+    public XML apply(final int position, final XML xml) {
+        final long start = System.nanoTime();
+        final XML out = this.origin.apply(position, xml);
+        this.metrics.stage(this.name, this.origin.uid(), System.nanoTime() - start, out);
+        return out;
+    }
+
+}
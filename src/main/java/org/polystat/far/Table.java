@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rules of {@link Calc}, compiled to a table.
+ *
+ * <p>The table is a map from the name of a function to its
+ * outputs, while each output maps to the values of arguments,
+ * one list for each position. Only the rules, which can be the
+ * first to match, get into the table: a rule for an exact output
+ * is dropped, if it goes after a rule with <code>y</code> for the
+ * same function, because <code>y</code> matches any output.
+ * That's why a lookup doesn't scan the rules, but takes two hash
+ * lookups at most, while the result is the same as of the
+ * function <code>ps:calc()</code> in the XSL.</p>
+ *
+ * <p>Two symbols are special. The output <code>\any</code> always
+ * gives <code>\any</code>, without looking at the rules, while
+ * <code>\perp</code> is matched exactly, as any other value, before
+ * <code>y</code> is tried.</p>
+ *
+ * @since 1.1
+ */
+final class Table {
+
+    /**
+     * The value, which matches any other.
+     */
+    static final String ANY = "\\any";
+
+    /**
+     * The value, which no input can produce.
+     */
+    static final String NONE = "NONE";
+
+    /**
+     * The result of <code>\any</code>.
+     */
+    private static final List<String> ANYTHING = Collections.singletonList(Table.ANY);
+
+    /**
+     * The result of an unknown function.
+     */
+    private static final List<String> NOTHING = Collections.singletonList(Table.NONE);
+
+    /**
+     * Functions, by names.
+     */
+    private final Map<String, Table.Func> funcs;
+
+    /**
+     * Ctor.
+     * @param rules The rules, in the order of their priority
+     */
+    Table(final Iterable<Calc.Rule> rules) {
+        this.funcs = new HashMap<>(0);
+        for (final Calc.Rule rule : rules) {
+            this.funcs.computeIfAbsent(rule.func(), key -> new Table.Func()).add(rule);
+        }
+    }
+
+    /**
+     * Find the inputs of a function, which give the output.
+     * @param func Name of the function, like ".div"
+     * @param pos Position of the argument, starting from one
+     * @param out The output of the function
+     * @return Possible values of the argument, maybe empty
+     */
+    List<String> inputs(final String func, final int pos, final String out) {
+        final List<String> result;
+        if (Table.ANY.equals(out)) {
+            result = Table.ANYTHING;
+        } else {
+            final Table.Func found = this.funcs.get(func);
+            if (found == null) {
+                result = Table.NOTHING;
+            } else {
+                result = found.inputs(pos, out);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Can the function return <code>\perp</code>?
+     *
+     * <p>It can, if it has a rule for <code>\perp</code>, or a rule
+     * for any output, or a rule for <code>NONE</code>, which is what
+     * the calls around it may get, if they can't return
+     * <code>\perp</code>. If no function in an object can return
+     * <code>\perp</code>, no argument may get a value other than
+     * <code>NONE</code>.</p>
+     *
+     * @param func Name of the function, like ".div"
+     * @return TRUE if it can
+     */
+    boolean reaches(final String func) {
+        final Table.Func found = this.funcs.get(func);
+        return found != null && found.perp;
+    }
+
+    /**
+     * Rules of one function.
+     *
+     * @since 1.1
+     */
+    private static final class Func {
+
+        /**
+         * Values of arguments, by exact outputs.
+         */
+        private final Map<String, Table.Columns> exact;
+
+        /**
+         * Values of arguments for any output, or NULL.
+         */
+        private Table.Columns any;
+
+        /**
+         * Can it return <code>\perp</code>?
+         */
+        private boolean perp;
+
+        /**
+         * Ctor.
+         */
+        Func() {
+            this.exact = new HashMap<>(0);
+        }
+
+        /**
+         * Add a rule, if it may ever match first.
+         * @param rule The rule
+         */
+        void add(final Calc.Rule rule) {
+            this.perp |= Calc.Rule.OUT.equals(rule.out())
+                || "\\perp".equals(rule.out())
+                || Table.NONE.equals(rule.out());
+            if (this.any == null) {
+                if (Calc.Rule.OUT.equals(rule.out())) {
+                    this.any = new Table.Columns(rule.inputs());
+                } else {
+                    this.exact.putIfAbsent(rule.out(), new Table.Columns(rule.inputs()));
+                }
+            }
+        }
+
+        /**
+         * Find the inputs, which give the output.
+         * @param pos Position of the argument, starting from one
+         * @param out The output
+         * @return Values, maybe NONE
+         */
+        List<String> inputs(final int pos, final String out) {
+            Table.Columns cols = this.exact.get(out);
+            if (cols == null) {
+                cols = this.any;
+            }
+            final List<String> result;
+            if (cols == null) {
+                result = Table.NOTHING;
+            } else {
+                result = cols.column(pos, out);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Values of arguments of one rule, by positions.
+     *
+     * @since 1.1
+     */
+    private static final class Columns {
+
+        /**
+         * Values, one list for each position.
+         */
+        private final List<List<String>> cols;
+
+        /**
+         * Does the column at the position have <code>y</code>?
+         */
+        private final boolean[] outs;
+
+        /**
+         * Ctor.
+         * @param tuples Tuples of values of arguments
+         */
+        Columns(final List<List<String>> tuples) {
+            int width = 0;
+            if (!tuples.isEmpty()) {
+                width = tuples.get(0).size();
+            }
+            this.cols = new ArrayList<>(width);
+            this.outs = new boolean[width];
+            for (int pos = 0; pos < width; ++pos) {
+                final List<String> col = new ArrayList<>(tuples.size());
+                for (final List<String> tuple : tuples) {
+                    if (pos < tuple.size()) {
+                        col.add(tuple.get(pos));
+                        this.outs[pos] |= Calc.Rule.OUT.equals(tuple.get(pos));
+                    }
+                }
+                this.cols.add(Collections.unmodifiableList(col));
+            }
+        }
+
+        /**
+         * Values of the argument at the position.
+         * @param pos Position of the argument, starting from one
+         * @param out The output, to replace <code>y</code>
+         * @return Values, maybe empty
+         */
+        List<String> column(final int pos, final String out) {
+            final List<String> result;
+            if (pos < 1 || pos > this.cols.size()) {
+                result = Collections.emptyList();
+            } else if (this.outs[pos - 1]) {
+                final List<String> col = this.cols.get(pos - 1);
+                result = new ArrayList<>(col.size());
+                for (final String val : col) {
+                    if (Calc.Rule.OUT.equals(val)) {
+                        result.add(out);
+                    } else {
+                        result.add(val);
+                    }
+                }
+            } else {
+                result = this.cols.get(pos - 1);
+            }
+            return result;
+        }
+    }
+
+}
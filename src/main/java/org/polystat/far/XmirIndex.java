@@ -0,0 +1,592 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.log.Logger;
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.cactoos.Func;
+
+/**
+ * Locator of objects in a program, through an index file.
+ *
+ * <p>The index is a file next to the XMIR, with the same name and
+ * the ".idx" extension, which maps the name of each top-level
+ * object to the range of bytes it takes in the XMIR. It is built
+ * once, during the first call, by scanning the bytes of the program,
+ * without parsing it, and is built again only if the size or the
+ * time of modification of the program changes, or the index is
+ * truncated or damaged. Both files are read
+ * through {@link MappedByteBuffer}, that's why fetching an object
+ * parses only the bytes of this object, no matter how big the
+ * program is:</p>
+ *
+ * <pre> try (FaR far = new FaR()) {
+ *   far.errors(new XmirIndex(Paths.get("foo.xmir")), "\\Phi.test");
+ * }</pre>
+ *
+ * <p>Objects must not use namespace prefixes declared outside of
+ * them, since they are parsed without the rest of the program.
+ * The object is thread-safe and may live long: it looks at the size
+ * and the time of the program on every call.</p>
+ *
+ * @since 1.1
+ */
+public final class XmirIndex implements Func<String, XML> {
+
+    /**
+     * The first bytes of an index file.
+     */
+    private static final int MAGIC = 0x58494458;
+
+    /**
+     * Version of the format of the index file.
+     *
+     * <p>It's 2 since names are decoded, while indexes of version 1
+     * may have them with references to entities. It's 3 since the
+     * length of a name takes four bytes, not two, while indexes of
+     * version 2 have names longer than 65535 bytes cut.</p>
+     */
+    private static final int FORMAT = 3;
+
+    /**
+     * Path to the objects, by depth of elements, starting from one.
+     */
+    private static final String[] PATH = {"program", "objects", "o"};
+
+    /**
+     * Attribute "name" in a start tag.
+     */
+    private static final Pattern NAME = Pattern.compile(
+        "\\sname\\s*=\\s*(['\"])(.*?)\\1"
+    );
+
+    /**
+     * Reference to an entity or a character in a value of attribute.
+     */
+    private static final Pattern REF = Pattern.compile(
+        "&(#x[0-9a-fA-F]+|#[0-9]+|lt|gt|amp|quot|apos);"
+    );
+
+    /**
+     * Predefined entities of XML, by names.
+     */
+    private static final Map<String, String> ENTITIES = XmirIndex.entities();
+
+    /**
+     * The program.
+     */
+    private final Path xmir;
+
+    /**
+     * The index.
+     */
+    private final Path file;
+
+    /**
+     * Size and modification time of the program, when it was indexed.
+     */
+    private final long[] stamp;
+
+    /**
+     * Ranges of bytes of objects, by names, or NULL if not read yet.
+     */
+    private Map<String, long[]> ranges;
+
+    /**
+     * Ctor.
+     * @param program The program, as XMIR
+     */
+    public XmirIndex(final Path program) {
+        this(
+            program,
+            program.resolveSibling(String.format("%s.idx", program.getFileName()))
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param program The program, as XMIR
+     * @param idx The index file
+     */
+    public XmirIndex(final Path program, final Path idx) {
+        this.xmir = program;
+        this.file = idx;
+        this.stamp = new long[2];
+    }
+
+    @Override
+    public XML apply(final String locator) throws IOException {
+        final String[] parts = locator.split("\\.");
+        if (parts.length != 2 || !"\\Phi".equals(parts[0])) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Can't fetch object '%s', must start with \\Phi and end with name",
+                    locator
+                )
+            );
+        }
+        final long[] range = this.ranges().get(parts[1]);
+        if (range == null) {
+            throw new IllegalArgumentException(
+                String.format("There is no object '%s' in %s", locator, this.xmir)
+            );
+        }
+        final byte[] bytes = new byte[(int) (range[1] - range[0])];
+        try (FileChannel channel = FileChannel.open(this.xmir, StandardOpenOption.READ)) {
+            channel.map(FileChannel.MapMode.READ_ONLY, range[0], bytes.length).get(bytes);
+        }
+        return new XMLDocument(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ranges of objects, from the index, which is built first, if
+     * it's absent or stale.
+     * @return Ranges by names
+     * @throws IOException If fails
+     */
+    private synchronized Map<String, long[]> ranges() throws IOException {
+        final long size = Files.size(this.xmir);
+        final long time = Files.getLastModifiedTime(this.xmir).toMillis();
+        if (this.stamp[0] != size || this.stamp[1] != time) {
+            this.ranges = null;
+            this.stamp[0] = size;
+            this.stamp[1] = time;
+        }
+        if (this.ranges == null) {
+            this.ranges = this.read(size, time);
+        }
+        if (this.ranges == null) {
+            this.ranges = XmirIndex.scan(this.xmir);
+            try {
+                this.write(size, time);
+            } catch (final IOException ex) {
+                Logger.warn(
+                    this, "Can't write the index %s, it will be built again next time: %s",
+                    this.file, ex.getMessage()
+                );
+            }
+        }
+        return this.ranges;
+    }
+
+    /**
+     * Read the index file.
+     * @param size Size of the program, expected in the index
+     * @param time Modification time of the program, expected in the index
+     * @return Ranges by names, or NULL if the index is absent or stale
+     * @throws IOException If fails
+     */
+    private Map<String, long[]> read(final long size, final long time)
+        throws IOException {
+        Map<String, long[]> result = null;
+        if (Files.exists(this.file)) {
+            try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+                final MappedByteBuffer buf = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0L, channel.size()
+                );
+                if (buf.remaining() >= Integer.BYTES * 3 + Long.BYTES * 2
+                    && buf.getInt() == XmirIndex.MAGIC
+                    && buf.getInt() == XmirIndex.FORMAT
+                    && buf.getLong() == size && buf.getLong() == time) {
+                    try {
+                        result = XmirIndex.entries(buf, size);
+                    } catch (final BufferUnderflowException | IllegalArgumentException ex) {
+                        Logger.warn(
+                            this, "The index %s is broken, it will be built again: %s",
+                            this.file, ex.getMessage()
+                        );
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read all entries of the index file, after its header.
+     *
+     * <p>The header may be right, while the rest of the file is
+     * truncated or damaged, for example, if the disk was full when it
+     * was written. That's why every range is checked to be inside the
+     * program, and nothing must be left after the last entry.</p>
+     *
+     * @param buf The bytes, right after the header
+     * @param size Size of the program
+     * @return Ranges by names
+     * @throws BufferUnderflowException If the file is truncated
+     * @throws IllegalArgumentException If the file is damaged
+     */
+    private static Map<String, long[]> entries(final ByteBuffer buf, final long size) {
+        final int total = buf.getInt();
+        if (total < 0) {
+            throw new IllegalArgumentException(
+                String.format("Wrong number of objects: %d", total)
+            );
+        }
+        final Map<String, long[]> result = new LinkedHashMap<>(0);
+        for (int idx = 0; idx < total; ++idx) {
+            final int len = buf.getInt();
+            if (len < 0 || len > buf.remaining()) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Wrong length of a name: %d, while %d bytes left",
+                        len, buf.remaining()
+                    )
+                );
+            }
+            final byte[] name = new byte[len];
+            buf.get(name);
+            final long[] range = {buf.getLong(), buf.getLong()};
+            if (range[0] < 0L || range[0] > range[1] || range[1] > size) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "The range %d..%d is out of the program of %d bytes",
+                        range[0], range[1], size
+                    )
+                );
+            }
+            result.put(new String(name, StandardCharsets.UTF_8), range);
+        }
+        if (buf.hasRemaining()) {
+            throw new IllegalArgumentException(
+                String.format("There are %d bytes after the last object", buf.remaining())
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Write the index file, atomically.
+     *
+     * <p>The bytes go to a temporary file of a unique name first, that's
+     * why a few processes, which index the same program at the same
+     * time, don't write into the same file, while the last of them
+     * just replaces the index made by the others.</p>
+     *
+     * @param size Size of the program
+     * @param time Modification time of the program
+     * @throws IOException If fails
+     */
+    private void write(final long size, final long time) throws IOException {
+        final Path tmp = Files.createTempFile(
+            this.file.toAbsolutePath().getParent(),
+            this.file.getFileName().toString(), ".tmp"
+        );
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp))
+            )) {
+                out.writeInt(XmirIndex.MAGIC);
+                out.writeInt(XmirIndex.FORMAT);
+                out.writeLong(size);
+                out.writeLong(time);
+                out.writeInt(this.ranges.size());
+                for (final Map.Entry<String, long[]> ent : this.ranges.entrySet()) {
+                    final byte[] name = ent.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(name.length);
+                    out.write(name);
+                    out.writeLong(ent.getValue()[0]);
+                    out.writeLong(ent.getValue()[1]);
+                }
+            }
+            Files.move(
+                tmp, this.file,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE
+            );
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Find all top-level objects in the program, without parsing it.
+     *
+     * <p>Only the markup is looked at: comments, CDATA sections,
+     * processing instructions and declarations are skipped, while
+     * quoted values of attributes may have any characters.</p>
+     *
+     * @param xmir The program
+     * @return Ranges of bytes by names
+     * @throws IOException If fails
+     */
+    private static Map<String, long[]> scan(final Path xmir) throws IOException {
+        final Map<String, long[]> found = new LinkedHashMap<>(0);
+        try (FileChannel channel = FileChannel.open(xmir, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                    String.format("The program %s is too big to be indexed", xmir)
+                );
+            }
+            final ByteBuffer buf = channel.map(
+                FileChannel.MapMode.READ_ONLY, 0L, channel.size()
+            );
+            final String[] names = new String[XmirIndex.PATH.length];
+            int depth = 0;
+            int start = -1;
+            String name = "";
+            int pos = XmirIndex.find(buf, 0, "<");
+            while (pos >= 0) {
+                final int end;
+                if (XmirIndex.starts(buf, pos, "<!--")) {
+                    end = XmirIndex.after(buf, pos, "-->");
+                } else if (XmirIndex.starts(buf, pos, "<![CDATA[")) {
+                    end = XmirIndex.after(buf, pos, "]]>");
+                } else if (XmirIndex.starts(buf, pos, "<?")) {
+                    end = XmirIndex.after(buf, pos, "?>");
+                } else if (XmirIndex.starts(buf, pos, "<!")) {
+                    end = XmirIndex.after(buf, pos, ">");
+                } else if (XmirIndex.starts(buf, pos, "</")) {
+                    end = XmirIndex.after(buf, pos, ">");
+                    --depth;
+                    if (depth == XmirIndex.PATH.length - 1 && start >= 0) {
+                        found.put(name, new long[] {start, end});
+                        start = -1;
+                    }
+                } else {
+                    end = XmirIndex.tag(buf, pos);
+                    final String tag = XmirIndex.text(buf, pos + 1, XmirIndex.word(buf, pos + 1));
+                    if (depth < names.length) {
+                        names[depth] = tag;
+                    }
+                    ++depth;
+                    if (depth == XmirIndex.PATH.length && XmirIndex.top(names)) {
+                        name = XmirIndex.name(XmirIndex.text(buf, pos, end));
+                        if (!name.isEmpty()) {
+                            start = pos;
+                        }
+                    }
+                    if (buf.get(end - 2) == '/') {
+                        --depth;
+                        if (depth == XmirIndex.PATH.length - 1 && start >= 0) {
+                            found.put(name, new long[] {start, end});
+                            start = -1;
+                        }
+                    }
+                }
+                pos = XmirIndex.find(buf, end, "<");
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Make the map of predefined entities of XML.
+     * @return Characters by names of entities
+     */
+    private static Map<String, String> entities() {
+        final Map<String, String> map = new HashMap<>(0);
+        map.put("lt", "<");
+        map.put("gt", ">");
+        map.put("amp", "&");
+        map.put("quot", "\"");
+        map.put("apos", "'");
+        return map;
+    }
+
+    /**
+     * Are these the names of elements on the way to a top-level object?
+     * @param names Names of elements, by depth
+     * @return TRUE if they are
+     */
+    private static boolean top(final String... names) {
+        boolean yes = true;
+        for (int idx = 0; idx < names.length && yes; ++idx) {
+            yes = XmirIndex.PATH[idx].equals(names[idx]);
+        }
+        return yes;
+    }
+
+    /**
+     * Find the end of a start tag, skipping quoted values.
+     * @param buf The bytes
+     * @param pos Position of the opening bracket
+     * @return Position right after the closing bracket
+     */
+    private static int tag(final ByteBuffer buf, final int pos) {
+        int idx = pos + 1;
+        byte quote = 0;
+        while (idx < buf.limit() && (quote != 0 || buf.get(idx) != '>')) {
+            final byte chr = buf.get(idx);
+            if (quote == 0 && (chr == '"' || chr == '\'')) {
+                quote = chr;
+            } else if (chr == quote) {
+                quote = 0;
+            }
+            ++idx;
+        }
+        if (idx >= buf.limit()) {
+            throw new IllegalArgumentException(
+                String.format("The tag at %d is not closed", pos)
+            );
+        }
+        return idx + 1;
+    }
+
+    /**
+     * Find the end of the name, which starts at the position.
+     * @param buf The bytes
+     * @param pos Position of the name
+     * @return Position right after the name
+     */
+    private static int word(final ByteBuffer buf, final int pos) {
+        int idx = pos;
+        while (idx < buf.limit() && buf.get(idx) > ' '
+            && buf.get(idx) != '>' && buf.get(idx) != '/') {
+            ++idx;
+        }
+        return idx;
+    }
+
+    /**
+     * Take the name of the object from its start tag.
+     *
+     * <p>The value is decoded the same way an XML parser does it:
+     * white spaces become spaces and references to entities and
+     * characters are replaced, so that the name is the same as in
+     * the DOM.</p>
+     *
+     * @param tag The start tag
+     * @return Name, or empty if there is no such attribute
+     */
+    private static String name(final String tag) {
+        final Matcher matcher = XmirIndex.NAME.matcher(tag);
+        String value = "";
+        if (matcher.find()) {
+            value = XmirIndex.decoded(
+                matcher.group(2).replace("\r\n", "\n").replaceAll("[\t\n\r]", " ")
+            );
+        }
+        return value;
+    }
+
+    /**
+     * Replace references to entities and characters.
+     * @param text The text, like "a&amp;b"
+     * @return Decoded text, like "a&b"
+     */
+    private static String decoded(final String text) {
+        final Matcher matcher = XmirIndex.REF.matcher(text);
+        final StringBuffer out = new StringBuffer(text.length());
+        while (matcher.find()) {
+            final String ref = matcher.group(1);
+            final String chr;
+            if (ref.startsWith("#x")) {
+                chr = new String(Character.toChars(Integer.parseInt(ref.substring(2), 16)));
+            } else if (ref.charAt(0) == '#') {
+                chr = new String(Character.toChars(Integer.parseInt(ref.substring(1))));
+            } else {
+                chr = XmirIndex.ENTITIES.get(ref);
+            }
+            matcher.appendReplacement(out, Matcher.quoteReplacement(chr));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+
+    /**
+     * Does the text start at the position?
+     * @param buf The bytes
+     * @param pos The position
+     * @param text The text, in ASCII
+     * @return TRUE if it does
+     */
+    private static boolean starts(final ByteBuffer buf, final int pos, final String text) {
+        boolean yes = pos + text.length() <= buf.limit();
+        for (int idx = 0; idx < text.length() && yes; ++idx) {
+            yes = buf.get(pos + idx) == text.charAt(idx);
+        }
+        return yes;
+    }
+
+    /**
+     * Find the text, starting from the position.
+     * @param buf The bytes
+     * @param pos The position
+     * @param text The text, in ASCII
+     * @return Position of it, or -1 if it's not there
+     */
+    private static int find(final ByteBuffer buf, final int pos, final String text) {
+        int idx = pos;
+        while (idx < buf.limit() && !XmirIndex.starts(buf, idx, text)) {
+            ++idx;
+        }
+        int result = -1;
+        if (idx < buf.limit()) {
+            result = idx;
+        }
+        return result;
+    }
+
+    /**
+     * Find the position right after the text.
+     * @param buf The bytes
+     * @param pos The position to start from
+     * @param text The text, in ASCII
+     * @return Position right after it
+     */
+    private static int after(final ByteBuffer buf, final int pos, final String text) {
+        final int found = XmirIndex.find(buf, pos + 1, text);
+        if (found < 0) {
+            throw new IllegalArgumentException(
+                String.format("The markup at %d is not closed with '%s'", pos, text)
+            );
+        }
+        return found + text.length();
+    }
+
+    /**
+     * Decode the bytes.
+     * @param buf The bytes
+     * @param start Start position
+     * @param end End position, exclusive
+     * @return Text
+     */
+    private static String text(final ByteBuffer buf, final int start, final int end) {
+        final byte[] bytes = new byte[end - start];
+        for (int idx = 0; idx < bytes.length; ++idx) {
+            bytes[idx] = buf.get(start + idx);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
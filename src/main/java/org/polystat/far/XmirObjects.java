@@ -0,0 +1,343 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.cactoos.Input;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Top-level objects of a program, read from XMIR one by one.
+ *
+ * <p>The program is not parsed into a DOM. It is read as a stream,
+ * with StAX, and only one top-level object, which is an
+ * <code>o</code> element right under <code>/program/objects</code>,
+ * is in memory at a time. Each object is a separate document, where
+ * <code>o</code> is the root element, the same as
+ * {@link FaR#errors(org.cactoos.Func, String)} expects. That's why
+ * the heap used is proportional to the largest object, not to the
+ * size of the program. For example:</p>
+ *
+ * <pre> try (FaR far = new FaR()) {
+ *   far.errorsAll(new XmirObjects(new InputOf(path)));
+ * }</pre>
+ *
+ * <p>Each iteration reads the input again, from the start.
+ * The input is closed as soon as the last object is read, or the
+ * reading fails. The iterator is also {@link Closeable}, to close
+ * the input, if the iteration stops earlier. {@link FaR} always
+ * closes it, even if it stops or fails in the middle.</p>
+ *
+ * @since 1.1
+ */
+public final class XmirObjects implements Iterable<XML> {
+
+    /**
+     * Factory of StAX readers.
+     */
+    private static final XMLInputFactory FACTORY = XmirObjects.factory();
+
+    /**
+     * The program.
+     */
+    private final Input input;
+
+    /**
+     * Ctor.
+     * @param src The program, as XMIR
+     */
+    public XmirObjects(final Input src) {
+        this.input = src;
+    }
+
+    @Override
+    public Iterator<XML> iterator() {
+        try {
+            return new XmirObjects.Objects(this.input.stream());
+        } catch (final Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Make a factory of readers, which don't touch DTDs
+     * and external entities.
+     * @return The factory
+     */
+    private static XMLInputFactory factory() {
+        final XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Iterator over objects of one stream.
+     *
+     * @since 1.1
+     */
+    private static final class Objects implements Iterator<XML>, Closeable {
+
+        /**
+         * Path to the objects, by depth of elements, starting from one.
+         */
+        private static final String[] PATH = {"program", "objects", "o"};
+
+        /**
+         * The stream.
+         */
+        private final InputStream stream;
+
+        /**
+         * The reader.
+         */
+        private final XMLStreamReader reader;
+
+        /**
+         * Builder of documents.
+         */
+        private final DocumentBuilderFactory builder;
+
+        /**
+         * Names of elements on the way to the current one.
+         */
+        private final String[] names;
+
+        /**
+         * Depth of the current element, zero at the top.
+         */
+        private int depth;
+
+        /**
+         * The next object, or NULL if it's not read yet.
+         */
+        private XML next;
+
+        /**
+         * Is it over?
+         */
+        private boolean done;
+
+        /**
+         * Ctor.
+         * @param src The stream
+         * @throws XMLStreamException If fails
+         */
+        Objects(final InputStream src) throws XMLStreamException {
+            this.stream = src;
+            this.reader = XmirObjects.FACTORY.createXMLStreamReader(src);
+            this.builder = DocumentBuilderFactory.newInstance();
+            this.builder.setNamespaceAware(true);
+            this.names = new String[XmirObjects.Objects.PATH.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next == null && !this.done) {
+                try {
+                    this.next = this.read();
+                } catch (final XMLStreamException | ParserConfigurationException
+                    | IOException ex) {
+                    this.shut(ex);
+                    throw new IllegalStateException(ex);
+                }
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public XML next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("There are no more objects");
+            }
+            final XML obj = this.next;
+            this.next = null;
+            return obj;
+        }
+
+        /**
+         * Read the next object.
+         * @return The object, or NULL if there are no more
+         * @throws XMLStreamException If fails
+         * @throws ParserConfigurationException If fails
+         * @throws IOException If fails
+         */
+        private XML read() throws XMLStreamException, ParserConfigurationException,
+            IOException {
+            XML found = null;
+            while (found == null && this.reader.hasNext()) {
+                final int event = this.reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (this.depth < this.names.length) {
+                        this.names[this.depth] = this.reader.getLocalName();
+                    }
+                    ++this.depth;
+                    if (this.depth == XmirObjects.Objects.PATH.length && this.wanted()) {
+                        found = new XMLDocument(this.subtree());
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    --this.depth;
+                }
+            }
+            if (found == null) {
+                this.close();
+            }
+            return found;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!this.done) {
+                this.done = true;
+                this.next = null;
+                try {
+                    this.reader.close();
+                } catch (final XMLStreamException ex) {
+                    throw new IOException(ex);
+                } finally {
+                    this.stream.close();
+                }
+            }
+        }
+
+        /**
+         * Close it after a failure, keeping the failure.
+         * @param cause The failure
+         */
+        private void shut(final Exception cause) {
+            try {
+                this.close();
+            } catch (final IOException ex) {
+                cause.addSuppressed(ex);
+            }
+        }
+
+        /**
+         * Is the current element an object at the top?
+         * @return TRUE if it is
+         */
+        private boolean wanted() {
+            boolean yes = true;
+            for (int idx = 0; idx < this.names.length && yes; ++idx) {
+                yes = XmirObjects.Objects.PATH[idx].equals(this.names[idx]);
+            }
+            return yes;
+        }
+
+        /**
+         * Read the current element with everything inside it into
+         * a new document, up to its end.
+         * @return The document
+         * @throws XMLStreamException If fails
+         * @throws ParserConfigurationException If fails
+         */
+        private Document subtree() throws XMLStreamException,
+            ParserConfigurationException {
+            final Document doc = this.builder.newDocumentBuilder().newDocument();
+            Node parent = doc;
+            int level = 0;
+            do {
+                final int event;
+                if (level == 0) {
+                    event = XMLStreamConstants.START_ELEMENT;
+                } else {
+                    event = this.reader.next();
+                }
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    parent = parent.appendChild(this.element(doc));
+                    ++level;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    parent = parent.getParentNode();
+                    --level;
+                } else if (event == XMLStreamConstants.CHARACTERS
+                    || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                    parent.appendChild(doc.createTextNode(this.reader.getText()));
+                } else if (event == XMLStreamConstants.COMMENT) {
+                    parent.appendChild(doc.createComment(this.reader.getText()));
+                }
+            } while (level > 0);
+            --this.depth;
+            return doc;
+        }
+
+        /**
+         * Make a copy of the current element, with its attributes.
+         * @param doc The document
+         * @return The element
+         */
+        private Element element(final Document doc) {
+            final Element elm = doc.createElementNS(
+                this.reader.getNamespaceURI(), XmirObjects.Objects.qualified(
+                    this.reader.getPrefix(), this.reader.getLocalName()
+                )
+            );
+            for (int idx = 0; idx < this.reader.getAttributeCount(); ++idx) {
+                elm.setAttributeNS(
+                    this.reader.getAttributeNamespace(idx),
+                    XmirObjects.Objects.qualified(
+                        this.reader.getAttributePrefix(idx),
+                        this.reader.getAttributeLocalName(idx)
+                    ),
+                    this.reader.getAttributeValue(idx)
+                );
+            }
+            return elm;
+        }
+
+        /**
+         * Make a qualified name.
+         * @param prefix The prefix, maybe NULL or empty
+         * @param name The local name
+         * @return The name, like "xsi:type"
+         */
+        private static String qualified(final String prefix, final String name) {
+            final String result;
+            if (prefix == null || prefix.isEmpty()) {
+                result = name;
+            } else {
+                result = String.format("%s:%s", prefix, name);
+            }
+            return result;
+        }
+    }
+
+}
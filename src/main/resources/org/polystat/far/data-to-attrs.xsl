@@ -22,12 +22,13 @@ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
 OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
 -->
-<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform" id="data-to-attrs" version="2.0">
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform" xmlns:xs="http://www.w3.org/2001/XMLSchema" id="data-to-attrs" version="2.0">
   <!--
   This XSL takes all constants (data) anywhere in the object
   and turns them into bound attributes. Each new attributes
   gets a name that starts with a &#x3BA; and ends with a
-  unique number.
+  unique number, which is its position in the document,
+  as set to @id by StIds.java.
 
   We need this because we want to turn the object into
   a functional aggregate, which be definition consists of functions
@@ -42,7 +43,7 @@ SOFTWARE.
           <xsl:attribute name="name">
             <xsl:text>&#x3BA;</xsl:text>
             <xsl:text>-</xsl:text>
-            <xsl:value-of select="count(./preceding::*) + count(ancestor::*) + 1"/>
+            <xsl:value-of select="xs:integer(@id) + 1"/>
             <xsl:text>-</xsl:text>
             <xsl:value-of select="@line"/>
           </xsl:attribute>
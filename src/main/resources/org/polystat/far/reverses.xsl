@@ -55,6 +55,9 @@ SOFTWARE.
 
   There will be as many <opts> elements as many times the attribute
   is seen in the body of the object.
+
+  The "tau" of each <r> is the @id of the <o> it is made of,
+  set by StIds.java, which is its position in the document.
   -->
   <xsl:strip-space elements="*"/>
   <xsl:template name="r">
@@ -67,7 +70,7 @@ SOFTWARE.
           <xsl:attribute name="f" select="$o/@base"/>
           <xsl:attribute name="pos" select="position()"/>
           <xsl:attribute name="tau">
-            <xsl:value-of select="count($o/preceding::*) + count($o/ancestor::*)"/>
+            <xsl:value-of select="$o/@id"/>
           </xsl:attribute>
           <xsl:copy-of select="$result"/>
         </xsl:element>
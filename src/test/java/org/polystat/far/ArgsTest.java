@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test case for {@link Args}.
+ *
+ * @since 1.1
+ */
+final class ArgsTest {
+
+    @Test
+    void takesOptionsAnywhere() {
+        final Args args = new Args(
+            Collections.singletonList("port"),
+            "--bugs=3", "a.xmir", "--port=8090", "\\Phi.test"
+        );
+        MatcherAssert.assertThat(args.number("bugs", 1), Matchers.equalTo(3));
+        MatcherAssert.assertThat(args.number("port", -1), Matchers.equalTo(8090));
+        MatcherAssert.assertThat(args.number("threads", 2), Matchers.equalTo(2));
+        MatcherAssert.assertThat(
+            args.positional(),
+            Matchers.equalTo(Arrays.asList("a.xmir", "\\Phi.test"))
+        );
+    }
+
+    @Test
+    void rejectsUnknownOptions() {
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new Args(Collections.emptyList(), "--port=8090")
+            ).getMessage(),
+            Matchers.containsString("--bugs=...")
+        );
+    }
+
+    @Test
+    void rejectsNoThreads() {
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new Args(Collections.emptyList(), "--threads=0").far()
+            ).getMessage(),
+            Matchers.containsString("--threads")
+        );
+    }
+
+    @Test
+    void rejectsZeroBudget() {
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new Args(Collections.emptyList(), "--time=0").far()
+            ).getMessage(),
+            Matchers.containsString("--time")
+        );
+    }
+
+    @Test
+    void writesNoMetricsUnlessAsked(@TempDir final Path dir) throws Exception {
+        final Path json = dir.resolve("m.json");
+        new Args(Collections.emptyList()).dump();
+        MatcherAssert.assertThat(Files.exists(json), Matchers.is(false));
+        new Args(Collections.emptyList(), String.format("--metrics=%s", json)).dump();
+        MatcherAssert.assertThat(
+            new String(Files.readAllBytes(json), StandardCharsets.UTF_8),
+            Matchers.startsWith("{\"objects\": [")
+        );
+    }
+
+    @Test
+    void makesAnalyzer() {
+        try (FaR far = new Args(
+                Collections.emptyList(), "--bugs=2", "--time=60000", "--solver=1000"
+            ).far()) {
+            MatcherAssert.assertThat(far.counters(), Matchers.hasEntry("solved", 0L));
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Budget}.
+ *
+ * @since 1.1
+ */
+final class BudgetTest {
+
+    @Test
+    void countsOptions() {
+        final Budget.Meter meter = new Budget(Long.MAX_VALUE, 5L, Long.MAX_VALUE).start();
+        meter.options(3, "first");
+        meter.options(2, "second");
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                Budget.Exhausted.class,
+                () -> meter.options(1, "third")
+            ).getMessage(),
+            Matchers.containsString("5 options is over in third")
+        );
+    }
+
+    @Test
+    void watchesTime() {
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                Budget.Exhausted.class,
+                () -> new Budget(0L, Long.MAX_VALUE, Long.MAX_VALUE).start().time("reverses")
+            ).getMessage(),
+            Matchers.containsString("is over before reverses")
+        );
+    }
+
+    @Test
+    void limitsSolver() {
+        MatcherAssert.assertThat(
+            new Budget().start().solver(),
+            Matchers.equalTo(0L)
+        );
+        MatcherAssert.assertThat(
+            new Budget(Long.MAX_VALUE, Long.MAX_VALUE, 50L).start().solver(),
+            Matchers.equalTo(50L)
+        );
+        MatcherAssert.assertThat(
+            new Budget(10_000L, Long.MAX_VALUE, Long.MAX_VALUE).start().solver(),
+            Matchers.lessThanOrEqualTo(10_000L)
+        );
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Bug}.
+ *
+ * @since 1.1
+ */
+final class BugTest {
+
+    @Test
+    void printsValuesOfAttributes() {
+        final Map<String, String> values = new LinkedHashMap<>(0);
+        values.put("a", "0");
+        values.put("b", "\\any");
+        final Bug bug = new Bug("\\Phi.test", values, "t1=2", "((t1=2))");
+        MatcherAssert.assertThat(
+            bug.toString(),
+            Matchers.equalTo("\\perp at {a=0, b=\\any}")
+        );
+        MatcherAssert.assertThat(bug.taus(), Matchers.equalTo("t1=2"));
+        MatcherAssert.assertThat(bug.expression(), Matchers.equalTo("((t1=2))"));
+    }
+
+    @Test
+    void readsValuesOfAttributesFromText() {
+        final Bug bug = new Bug("test", "\\perp at {a=0, b=\\any}");
+        MatcherAssert.assertThat(
+            bug.attributes(),
+            Matchers.allOf(
+                Matchers.hasEntry("a", "0"),
+                Matchers.hasEntry("b", "\\any")
+            )
+        );
+        MatcherAssert.assertThat(bug.taus(), Matchers.emptyString());
+    }
+
+    @Test
+    void keepsTextItCantRead() {
+        final String text = "something else";
+        final Bug bug = new Bug("test", text);
+        MatcherAssert.assertThat(bug.toString(), Matchers.equalTo(text));
+        MatcherAssert.assertThat(bug.attributes().entrySet(), Matchers.empty());
+    }
+
+}
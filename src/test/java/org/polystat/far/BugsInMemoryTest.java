@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.util.Collections;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link BugsInMemory}.
+ *
+ * @since 1.1
+ */
+final class BugsInMemoryTest {
+
+    @Test
+    void keepsBugsByObjects() {
+        final BugsInMemory bugs = new BugsInMemory();
+        bugs.found(new Bug("a", Collections.singletonMap("x", "0"), "", ""));
+        bugs.analyzed("a", 1);
+        bugs.analyzed("b", 0);
+        MatcherAssert.assertThat(
+            bugs.all(),
+            Matchers.allOf(
+                Matchers.hasEntry(
+                    Matchers.equalTo("a"),
+                    Matchers.contains("\\perp at {x=0}")
+                ),
+                Matchers.hasEntry(
+                    Matchers.equalTo("b"),
+                    Matchers.emptyIterable()
+                )
+            )
+        );
+    }
+
+    @Test
+    void leavesOutInconclusiveObject() {
+        final BugsInMemory bugs = new BugsInMemory();
+        bugs.expect("a");
+        bugs.expect("b");
+        bugs.found(new Bug("a", Collections.singletonMap("x", "0"), "", ""));
+        bugs.inconclusive("a", "no time");
+        bugs.analyzed("b", 0);
+        MatcherAssert.assertThat(bugs.all().keySet(), Matchers.contains("b"));
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> bugs.of("a")
+            ).getMessage(),
+            Matchers.containsString("no time")
+        );
+    }
+
+    @Test
+    void keepsOrderOfExpectedObjects() {
+        final BugsInMemory bugs = new BugsInMemory();
+        bugs.expect("a");
+        bugs.expect("b");
+        bugs.analyzed("c", 0);
+        bugs.analyzed("b", 0);
+        bugs.found(new Bug("a", Collections.singletonMap("x", "0"), "", ""));
+        MatcherAssert.assertThat(
+            bugs.all().keySet(),
+            Matchers.contains("a", "b", "c")
+        );
+    }
+
+}
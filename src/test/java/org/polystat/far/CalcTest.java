@@ -24,6 +24,7 @@
 package org.polystat.far;
 
 import com.jcabi.matchers.XhtmlMatchers;
+import java.util.Arrays;
 import org.cactoos.io.ResourceOf;
 import org.cactoos.text.TextOf;
 import org.cactoos.text.UncheckedText;
@@ -69,4 +70,73 @@ final class CalcTest {
         );
     }
 
+    @Test
+    void cachesXslByRules() {
+        final String rules = "minus(y) -> {{y 0}}";
+        MatcherAssert.assertThat(
+            new Calc(rules).xsl(),
+            Matchers.allOf(
+                Matchers.sameInstance(new Calc(rules).xsl()),
+                Matchers.not(
+                    Matchers.sameInstance(new Calc("times(y) -> {{1 y}}").xsl())
+                )
+            )
+        );
+    }
+
+    @Test
+    void forgetsRulesUsedLongAgo() {
+        final String rules = ".exp(y) -> {{y 0}}";
+        final Table before = new Calc(rules).table();
+        for (int idx = 0; idx < 100; ++idx) {
+            new Calc(String.format(".exp(y) -> {{y %d}}", idx + 1)).table();
+        }
+        MatcherAssert.assertThat(
+            new Calc(rules).table(),
+            Matchers.not(Matchers.sameInstance(before))
+        );
+    }
+
+    @Test
+    void keepsOwnCompiledRules() {
+        final Calc calc = new Calc(".log(y) -> {{y 0}}");
+        final Table before = calc.table();
+        for (int idx = 0; idx < 100; ++idx) {
+            new Calc(String.format(".log(y) -> {{y %d}}", idx + 1)).table();
+        }
+        MatcherAssert.assertThat(
+            calc.table(),
+            Matchers.sameInstance(before)
+        );
+    }
+
+    @Test
+    void findsInputsLikeStylesheet() {
+        final Calc calc = new Calc(
+            String.join(
+                "\n",
+                ".div(\\perp) -> {{\\any \\perp} {\\perp \\any}}",
+                ".div(y) -> {{y 1}}"
+            )
+        );
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                calc.inputs(".div", 1, "\\perp"),
+                calc.inputs(".div", 1, "5"),
+                calc.inputs(".div", 2, "5"),
+                calc.inputs(".div", 3, "5"),
+                calc.inputs(".div", 1, "\\any"),
+                calc.inputs(".plus", 1, "5")
+            ),
+            Matchers.contains(
+                Arrays.asList("\\any", "\\perp"),
+                Arrays.asList("5"),
+                Arrays.asList("1"),
+                Arrays.asList(),
+                Arrays.asList("\\any"),
+                Arrays.asList("NONE")
+            )
+        );
+    }
+
 }
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.matchers.XhtmlMatchers;
+import com.jcabi.xml.XMLDocument;
+import com.jcabi.xml.XSL;
+import org.hamcrest.MatcherAssert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link CompiledXSL}.
+ *
+ * @since 1.0
+ */
+final class CompiledXSLTest {
+
+    @Test
+    void transformsManyTimesWithParams() {
+        final XSL xsl = new CompiledXSL(
+            String.join(
+                "",
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform'",
+                " version='2.0'><xsl:param name='x'/>",
+                "<xsl:template match='/o'><o x='{$x}'/></xsl:template>",
+                "</xsl:stylesheet>"
+            ),
+            "test.xsl"
+        );
+        for (final String val : new String[] {"first", "second"}) {
+            MatcherAssert.assertThat(
+                XhtmlMatchers.xhtml(
+                    xsl.with("x", val).transform(new XMLDocument("<o/>"))
+                ),
+                XhtmlMatchers.hasXPath(String.format("/o[@x='%s']", val))
+            );
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.log.Logger;
+import com.jcabi.xml.XMLDocument;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Native;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Contexts}.
+ *
+ * @since 1.1
+ */
+final class ContextsTest {
+
+    @Test
+    void reusesContextFewTimes() {
+        try (Contexts pool = new Contexts(1, 2)) {
+            final Context first = pool.apply(ctx -> ctx);
+            MatcherAssert.assertThat(
+                pool.apply(ctx -> ctx),
+                Matchers.sameInstance(first)
+            );
+            MatcherAssert.assertThat(
+                pool.apply(ctx -> ctx),
+                Matchers.not(Matchers.sameInstance(first))
+            );
+        }
+    }
+
+    @Test
+    void refusesToWorkWhenClosed() {
+        final Contexts pool = new Contexts(1);
+        pool.apply(ctx -> ctx.mkTrue().isTrue());
+        pool.close();
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> pool.apply(ctx -> ctx)
+        );
+    }
+
+    @Test
+    void rejectsEmptyPool() {
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new Contexts(0, 1)
+        );
+    }
+
+    @Test
+    void keepsNativeMemoryFlat() {
+        try (Contexts pool = new Contexts(1)) {
+            ContextsTest.solve(pool, 1_000, 200);
+        }
+    }
+
+    @Test
+    void keepsNativeMemoryFlatWhenReused() {
+        try (Contexts pool = new Contexts(1, 64)) {
+            ContextsTest.solve(pool, 1_000, 200);
+        }
+    }
+
+    @Test
+    void keepsNativeMemoryFlatForLong() {
+        Assumptions.assumeTrue(
+            System.getProperty("soak") != null,
+            "Run with -Psoak to solve 10K objects"
+        );
+        try (Contexts pool = new Contexts(1)) {
+            ContextsTest.solve(pool, 10_000, 1_000);
+        }
+    }
+
+    /**
+     * Solve many small objects, one by one, and make sure the native
+     * memory doesn't grow, after the first few of them.
+     *
+     * <p>Names of attributes and taus repeat every hundred objects,
+     * as they do in real programs, since Z3 keeps every name it has
+     * ever seen for the whole life of the process.</p>
+     *
+     * @param pool The pool of contexts
+     * @param total How many objects to solve
+     * @param warm How many objects to solve before the memory is measured
+     */
+    private static void solve(final Contexts pool, final int total, final int warm) {
+        long base = 0L;
+        for (int idx = 0; idx < total; ++idx) {
+            final XMLDocument xml = new XMLDocument(
+                String.format(
+                    String.join(
+                        "",
+                        "<o><o name='a%1$d'><opts>",
+                        "<opt x='0'><tau i='%1$d:2'>1</tau></opt>",
+                        "<opt x='\\any'><tau i='%1$d:2'>2</tau></opt>",
+                        "</opts></o><o name='@'/></o>"
+                    ),
+                    idx % 100
+                )
+            );
+            pool.apply(ctx -> new Expr(xml, ctx).find());
+            if (idx == warm) {
+                base = Native.getEstimatedAllocSize();
+            }
+            if (idx > warm && idx % warm == 0) {
+                Logger.info(
+                    ContextsTest.class, "Native memory after %d objects: %d bytes",
+                    idx, Native.getEstimatedAllocSize()
+                );
+                MatcherAssert.assertThat(
+                    Native.getEstimatedAllocSize(),
+                    Matchers.lessThan(base * 2L)
+                );
+            }
+        }
+    }
+
+}
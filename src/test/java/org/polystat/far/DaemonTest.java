@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test case for {@link Daemon}.
+ *
+ * @since 1.1
+ */
+final class DaemonTest {
+
+    @Test
+    void respondsToRequests(@TempDir final Path dir) throws Exception {
+        final Path xmir = DaemonTest.sample(dir);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FaR far = new FaR()) {
+            far.warm();
+            new Daemon(far).serve(
+                new ByteArrayInputStream(
+                    String.join(
+                        "\n",
+                        String.format(
+                            "{\"id\": \"1\", \"xmir\": %s, \"locators\": [\"\\\\Phi.test\"]}",
+                            JsonLine.quoted(xmir.toString())
+                        ),
+                        "",
+                        String.format(
+                            "{\"id\": \"2\", \"xmir\": %s, \"locators\": [\"\\\\Phi.absent\"]}",
+                            JsonLine.quoted(xmir.toString())
+                        ),
+                        String.format(
+                            "{\"id\": \"3\", \"xmir\": %s}",
+                            JsonLine.quoted(xmir.toString())
+                        ),
+                        "{\"id\": \"4\", \"xmir\": \"/no/such/file.xmir\"}",
+                        "not json"
+                    ).getBytes(StandardCharsets.UTF_8)
+                ),
+                out
+            );
+        }
+        MatcherAssert.assertThat(
+            new String(out.toByteArray(), StandardCharsets.UTF_8),
+            Matchers.stringContainsInOrder(
+                String.format(
+                    "{\"id\": \"1\", \"object\": \"\\\\Phi.test\", \"bug\": \"%s\"",
+                    "\\\\perp at {a=0, b=\\\\any}"
+                ),
+                "{\"id\": \"1\", \"object\": \"\\\\Phi.test\", \"bugs\": 1}",
+                "{\"id\": \"1\", \"done\": true, \"objects\": 1, \"ms\": ",
+                "{\"id\": \"2\", \"object\": \"\\\\Phi.absent\", \"error\": ",
+                "{\"id\": \"2\", \"done\": true, \"objects\": 1",
+                String.format(
+                    "{\"id\": \"3\", \"object\": \"\\\\Phi.test\", \"bug\": \"%s\"",
+                    "\\\\perp at {a=0, b=\\\\any}"
+                ),
+                "{\"id\": \"3\", \"done\": true, \"objects\": 1",
+                "{\"id\": \"4\", \"done\": false, \"error\": ",
+                "{\"id\": \"\", \"done\": false, \"error\": \"Expected '{'"
+            )
+        );
+    }
+
+    @Test
+    void forgetsProgramsAskedForLongAgo(@TempDir final Path dir) throws Exception {
+        final Path first = DaemonTest.sample(dir.resolve("first"));
+        final Path second = DaemonTest.sample(dir.resolve("second"));
+        final Path idx = first.resolveSibling("div-by-zero.xmir.idx");
+        try (FaR far = new FaR()) {
+            final Daemon daemon = new Daemon(far, 1);
+            for (final Path xmir : new Path[] {first, second, first}) {
+                Files.deleteIfExists(idx);
+                daemon.serve(
+                    new ByteArrayInputStream(
+                        String.format(
+                            "{\"id\": \"1\", \"xmir\": %s, \"locators\": [\"\\\\Phi.test\"]}",
+                            JsonLine.quoted(xmir.toString())
+                        ).getBytes(StandardCharsets.UTF_8)
+                    ),
+                    new ByteArrayOutputStream()
+                );
+            }
+        }
+        MatcherAssert.assertThat(Files.exists(idx), Matchers.is(true));
+    }
+
+    @Test
+    void listensOnLocalPort(@TempDir final Path dir) throws Exception {
+        final Path xmir = DaemonTest.sample(dir);
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        try (FaR far = new FaR();
+            ServerSocket server = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            pool.submit(() -> new Daemon(far).listen(server));
+            try (Socket socket = new Socket(
+                InetAddress.getLoopbackAddress(), server.getLocalPort()
+            )) {
+                final OutputStream out = socket.getOutputStream();
+                out.write(
+                    String.format(
+                        "{\"id\": \"9\", \"xmir\": %s, \"locators\": [\"\\\\Phi.test\"]}\n",
+                        JsonLine.quoted(xmir.toString())
+                    ).getBytes(StandardCharsets.UTF_8)
+                );
+                out.flush();
+                final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)
+                );
+                MatcherAssert.assertThat(
+                    reader.readLine(),
+                    Matchers.startsWith("{\"id\": \"9\", \"object\": \"\\\\Phi.test\", \"bug\": ")
+                );
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void pausesWhenConnectionsFail() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final long start = System.nanoTime();
+        try (FaR far = new FaR(); ServerSocket server = new ServerSocket() {
+            @Override
+            public Socket accept() throws IOException {
+                if (calls.incrementAndGet() == 4) {
+                    this.close();
+                }
+                throw new IOException("Too many open files");
+            }
+        }) {
+            new Daemon(far).listen(server);
+        }
+        MatcherAssert.assertThat(calls.get(), Matchers.equalTo(4));
+        MatcherAssert.assertThat(
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            Matchers.greaterThanOrEqualTo(70L)
+        );
+    }
+
+    /**
+     * Copy a sample program to the directory.
+     * @param dir The directory
+     * @return Path of the program
+     * @throws Exception If fails
+     */
+    private static Path sample(final Path dir) throws Exception {
+        final Path src = Paths.get("target/test-classes")
+            .resolve("xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir");
+        Assumptions.assumeTrue(Files.exists(src));
+        Files.createDirectories(dir);
+        final Path xmir = dir.resolve("div-by-zero.xmir");
+        Files.copy(src, xmir);
+        return xmir;
+    }
+
+}
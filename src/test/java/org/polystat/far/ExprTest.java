@@ -0,0 +1,211 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.matchers.XhtmlMatchers;
+import com.jcabi.xml.XMLDocument;
+import com.jcabi.xml.XML;
+import com.microsoft.z3.Context;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.xembly.Xembler;
+
+/**
+ * Test case for {@link Expr}.
+ *
+ * @since 1.1
+ */
+final class ExprTest {
+
+    @Test
+    void findsSolution() throws Exception {
+        final XMLDocument xml = new XMLDocument(
+            String.join(
+                "",
+                "<o><o name='a'><opts>",
+                "<opt x='0'><tau i='4:1'>1</tau></opt>",
+                "<opt x='5'><tau i='4:1'>2</tau></opt>",
+                "</opts><opts>",
+                "<opt x='\\any'><tau i='4:1'>1</tau><tau i='7:2'>3</tau></opt>",
+                "</opts></o>",
+                "<o name='b'/><o name='@'/></o>"
+            )
+        );
+        try (Context ctx = Expr.context()) {
+            MatcherAssert.assertThat(
+                new Xembler(new Expr(xml, ctx).find()).apply(xml.deepCopy()),
+                XhtmlMatchers.hasXPaths(
+                    "/o/input[contains(@found,'4=1') and contains(@found,'7=3')]",
+                    "/o/input/a[@attr='a' and @x='0']",
+                    "/o/input[count(a)=1]"
+                )
+            );
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void findsSolutionWithOwnContext() {
+        final XMLDocument xml = new XMLDocument(
+            "<o><o name='a'><opts><opt x='0'><tau i='4:1'>1</tau></opt></opts></o></o>"
+        );
+        final Expr expr = new Expr(xml);
+        MatcherAssert.assertThat(
+            new Xembler(expr.find()).applyQuietly(xml.deepCopy()),
+            XhtmlMatchers.hasXPaths("/o/input/a[@attr='a' and @x='0']")
+        );
+        MatcherAssert.assertThat(
+            new Xembler(expr.find()).applyQuietly(xml.deepCopy()),
+            XhtmlMatchers.hasXPaths("/o/input[contains(@found,'4=1')]")
+        );
+    }
+
+    @Test
+    void findsNothingWhenUnsatisfiable() throws Exception {
+        final XMLDocument xml = new XMLDocument(
+            String.join(
+                "",
+                "<o><o name='a'><opts>",
+                "<opt x='0'><tau i='4:1'>1</tau></opt>",
+                "</opts><opts>",
+                "<opt x='\\any'><tau i='4:1'>2</tau></opt>",
+                "</opts></o><o name='@'/></o>"
+            )
+        );
+        try (Context ctx = Expr.context()) {
+            MatcherAssert.assertThat(
+                new Xembler(new Expr(xml, ctx).find()).apply(xml.deepCopy()),
+                XhtmlMatchers.hasXPaths("/o[not(input)]")
+            );
+        }
+    }
+
+    @Test
+    void findsManySolutions() throws Exception {
+        final XMLDocument xml = new XMLDocument(
+            String.join(
+                "",
+                "<o><o name='a'><opts>",
+                "<opt x='0'><tau i='4:1'>1</tau></opt>",
+                "<opt x='5'><tau i='4:1'>2</tau></opt>",
+                "<opt x='7'><tau i='4:1'>3</tau></opt>",
+                "</opts></o><o name='@'/></o>"
+            )
+        );
+        try (Context ctx = Expr.context()) {
+            MatcherAssert.assertThat(
+                new Xembler(new Expr(xml, ctx, 2).find()).apply(xml.deepCopy()),
+                XhtmlMatchers.hasXPaths(
+                    "/o[count(input)=2]",
+                    "/o/input[1]/a[@attr='a']",
+                    "/o/input[2]/a[@attr='a' and @x!=/o/input[1]/a/@x]"
+                )
+            );
+        }
+    }
+
+    @Test
+    void asksSolverOncePerBug() {
+        final StringBuilder xml = new StringBuilder(
+            "<o><o name='a'><opts><opt x='0'><tau i='1:1'>1</tau></opt></opts></o>"
+        );
+        for (int idx = 2; idx < 14; ++idx) {
+            xml.append(
+                String.format(
+                    String.join(
+                        "",
+                        "<o name='b%1$d'><opts>",
+                        "<opt x='\\any'><tau i='%1$d:2'>1</tau></opt>",
+                        "<opt x='\\any'><tau i='%1$d:2'>2</tau></opt>",
+                        "</opts></o>"
+                    ),
+                    idx
+                )
+            );
+        }
+        final XML opts = new XMLDocument(xml.append("<o name='@'/></o>").toString());
+        final AtomicInteger checks = new AtomicInteger();
+        try (Context ctx = Expr.context()) {
+            MatcherAssert.assertThat(
+                new Expr(
+                    new Options(opts.inner()), ctx, 100,
+                    new Metrics() {
+                        @Override
+                        public void stage(final String obj, final String stage,
+                            final long nanos, final XML out) {
+                            // not used here
+                        }
+
+                        @Override
+                        public void solver(final String obj, final long nanos,
+                            final int total, final int assertions) {
+                            checks.addAndGet(total);
+                        }
+                    },
+                    "", new Budget().start()
+                ).bugs(),
+                Matchers.hasSize(1)
+            );
+        }
+        MatcherAssert.assertThat(checks.get(), Matchers.equalTo(2));
+    }
+
+    @Test
+    void stopsEnumerationWhenBudgetIsOver() {
+        final StringBuilder xml = new StringBuilder("<o>");
+        for (int idx = 1; idx < 13; ++idx) {
+            xml.append(String.format("<o name='a%d'><opts>", idx));
+            for (int val = 1; val < 5; ++val) {
+                xml.append(
+                    String.format("<opt x='%2$d'><tau i='%1$d:4'>%2$d</tau></opt>", idx, val)
+                );
+            }
+            xml.append("</opts></o>");
+        }
+        final Options opts = new Options(
+            new XMLDocument(xml.append("<o name='@'/></o>").toString()).inner()
+        );
+        final long start = System.currentTimeMillis();
+        try (Context ctx = Expr.context()) {
+            MatcherAssert.assertThat(
+                Assertions.assertThrows(
+                    Budget.Exhausted.class,
+                    () -> new Expr(
+                        opts, ctx, Integer.MAX_VALUE, new Metrics.Void(), "",
+                        new Budget(300L, Long.MAX_VALUE, Long.MAX_VALUE).start()
+                    ).bugs()
+                ).getMessage(),
+                Matchers.containsString("300ms")
+            );
+        }
+        MatcherAssert.assertThat(
+            System.currentTimeMillis() - start,
+            Matchers.lessThan(5_000L)
+        );
+    }
+
+}
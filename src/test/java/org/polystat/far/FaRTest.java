@@ -24,13 +24,30 @@
 package org.polystat.far;
 
 import com.jcabi.log.Logger;
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Test case for {@link FaR}.
@@ -43,10 +60,10 @@ final class FaRTest {
     void findsBugsInSimpleXml() throws Exception {
         final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
         Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
-        final FaR reverses = new FaR();
-        final Collection<String> bugs = reverses.errors(
-            new Program(xmir), "\\Phi.test"
-        );
+        final Collection<String> bugs;
+        try (FaR reverses = new FaR()) {
+            bugs = reverses.errors(new Program(xmir), "\\Phi.test");
+        }
         MatcherAssert.assertThat(
             bugs,
             // @checkstyle MagicNumber (1 line)
@@ -55,4 +72,498 @@ final class FaRTest {
         Logger.debug(this, "Bugs found: %s", bugs);
     }
 
+    @Test
+    void findsBugsTwiceWithSameEngine() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        try (FaR reverses = new FaR()) {
+            MatcherAssert.assertThat(
+                reverses.errors(new Program(xmir), "\\Phi.test"),
+                Matchers.iterableWithSize(
+                    reverses.errors(new Program(xmir), "\\Phi.test").size()
+                )
+            );
+        }
+    }
+
+    @Test
+    void findsBugsInAllObjects() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        final Map<String, Collection<String>> all;
+        try (FaR reverses = new FaR()) {
+            all = reverses.errorsAll(
+                new XMLDocument(new TextOf(new ResourceOf(xmir)).asString())
+            );
+        }
+        MatcherAssert.assertThat(
+            all,
+            Matchers.hasEntry(
+                Matchers.equalTo("test"),
+                Matchers.iterableWithSize(1)
+            )
+        );
+    }
+
+    @Test
+    void rejectsNoThreads() {
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new FaR(0)
+        );
+    }
+
+    @Test
+    void findsSameBugsInStreamedObjects() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        try (FaR reverses = new FaR(2, 1)) {
+            MatcherAssert.assertThat(
+                reverses.errorsAll(new XmirObjects(new ResourceOf(xmir))),
+                Matchers.equalTo(
+                    reverses.errorsAll(
+                        new XMLDocument(new TextOf(new ResourceOf(xmir)).asString())
+                    )
+                )
+            );
+        }
+    }
+
+    @Test
+    void findsSameBugEveryTime() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        for (final boolean mem : new boolean[] {false, true}) {
+            try (FaR reverses = new FaR(1, 1, mem)) {
+                for (int idx = 0; idx < 10; ++idx) {
+                    MatcherAssert.assertThat(
+                        reverses.errors(new Program(xmir), "\\Phi.test"),
+                        Matchers.contains("\\perp at {a=0, b=\\any}")
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    void keepsOrderOfObjects() throws Exception {
+        final String[] samples = {
+            "deep-div-by-zero", "div-by-zero", "no-div-by-zero", "div-by-zero",
+            "no-div-by-zero", "div-by-zero",
+        };
+        final List<XML> objects = new LinkedList<>();
+        final List<String> names = new LinkedList<>();
+        for (int idx = 0; idx < samples.length; ++idx) {
+            final String xmir = String.format(
+                "xmir/03-optimize/org/polystat/far/samples/%s.xmir", samples[idx]
+            );
+            Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+            final String name = String.format("o%d", idx);
+            objects.add(
+                new XMLDocument(
+                    new Program(xmir).apply("\\Phi.test").toString().replaceFirst(
+                        "name=\"test\"", String.format("name=\"%s\"", name)
+                    )
+                )
+            );
+            names.add(name);
+        }
+        try (FaR reverses = new FaR(4, 1)) {
+            MatcherAssert.assertThat(
+                reverses.errorsAll(objects).keySet(),
+                Matchers.contains(names.toArray(new String[0]))
+            );
+        }
+    }
+
+    @Test
+    void findsManyBugsInOneObject() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        try (FaR reverses = new FaR(1, 10)) {
+            MatcherAssert.assertThat(
+                reverses.errors(new Program(xmir), "\\Phi.test"),
+                Matchers.allOf(
+                    Matchers.iterableWithSize(Matchers.greaterThan(1)),
+                    Matchers.hasItem(Matchers.containsString("b=0"))
+                )
+            );
+        }
+    }
+
+    @Test
+    void findsBugsWithOtherRules() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        final String rules = String.join(
+            "\n",
+            ".plus(\\perp) -> {{\\any \\perp} {\\perp \\any}}",
+            ".plus(y) -> {{0 y}}",
+            ".div(\\perp) -> {{\\any \\perp} {\\perp \\any}}",
+            ".div(y) -> {{y 1}}"
+        );
+        for (final boolean mem : new boolean[] {false, true}) {
+            try (FaR reverses = new FaR(1, 1, mem, new RulesOf(rules))) {
+                MatcherAssert.assertThat(
+                    reverses.errors(new Program(xmir), "\\Phi.test"),
+                    Matchers.emptyIterable()
+                );
+            }
+        }
+    }
+
+    @Test
+    void skipsObjectsWithoutPathToPerp() throws Exception {
+        final String[] objs = {
+            String.join(
+                "",
+                "<o abstract='' name='test' line='1'><o name='a' line='1' pos='1'/>",
+                "<o base='a' name='@' ref='1' line='2' pos='2'/></o>"
+            ),
+            String.join(
+                "",
+                "<o abstract='' name='test' line='1'><o name='a' line='1' pos='1'/>",
+                "<o base='.mod' name='@' line='2' pos='2'>",
+                "<o base='.plus' line='2' pos='3'><o base='a' ref='1' line='2' pos='4'/>",
+                "<o base='a' ref='1' line='2' pos='5'/></o></o></o>"
+            ),
+            String.join(
+                "",
+                "<o abstract='' name='test' line='1'><o name='a' line='1' pos='1'/>",
+                "<o name='b' line='1' pos='2'/><o base='.div' name='@' line='2' pos='2'>",
+                "<o base='a' ref='1' line='2' pos='3'/><o base='b' ref='1' line='2' pos='4'/>",
+                "</o></o>"
+            ),
+        };
+        for (final boolean mem : new boolean[] {false, true}) {
+            try (FaR reverses = new FaR(1, 1, mem)) {
+                for (final String obj : objs) {
+                    reverses.errors(loc -> new XMLDocument(obj), "test");
+                }
+                MatcherAssert.assertThat(
+                    reverses.counters(),
+                    Matchers.allOf(
+                        Matchers.hasEntry("no-perps", 1L),
+                        Matchers.hasEntry("no-options", 1L),
+                        Matchers.hasEntry("solved", 1L)
+                    )
+                );
+                MatcherAssert.assertThat(
+                    reverses.errors(loc -> new XMLDocument(objs[0]), "test"),
+                    Matchers.emptyIterable()
+                );
+            }
+        }
+    }
+
+    @Test
+    void findsBugsWithRulesWithoutDots() throws Exception {
+        final String obj = String.join(
+            "",
+            "<o abstract='' name='test' line='1'><o name='a' line='1' pos='1'/>",
+            "<o name='b' line='1' pos='2'/><o base='div' name='@' line='2' pos='2'>",
+            "<o base='a' ref='1' line='2' pos='3'/><o base='b' ref='1' line='2' pos='4'/>",
+            "</o></o>"
+        );
+        final String rules = String.join(
+            "\n",
+            "div(\\perp) -> {{\\any \\perp} {\\perp \\any} {\\any 0}}",
+            "div(y) -> {{y 1}}"
+        );
+        for (final boolean mem : new boolean[] {false, true}) {
+            try (FaR reverses = new FaR(1, 1, mem, new RulesOf(rules))) {
+                MatcherAssert.assertThat(
+                    reverses.errors(loc -> new XMLDocument(obj), "test"),
+                    Matchers.contains("\\perp at {a=\\any, b=0}")
+                );
+            }
+        }
+    }
+
+    @Test
+    void takesBugsFromResultsOfPreviousRun(@TempDir final Path dir) throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        final Path file = dir.resolve("results.bin");
+        final Collection<String> before;
+        try (FaR reverses = new FaR(1, 1, true, new RulesOf(), new ResultsFile(file))) {
+            before = reverses.errors(new Program(xmir), "\\Phi.test");
+        }
+        try (FaR reverses = new FaR(1, 1, true, new RulesOf(), new ResultsFile(file))) {
+            MatcherAssert.assertThat(
+                reverses.errors(new Program(xmir), "\\Phi.test"),
+                Matchers.equalTo(before)
+            );
+            MatcherAssert.assertThat(
+                reverses.counters(),
+                Matchers.allOf(
+                    Matchers.hasEntry("cached", 1L),
+                    Matchers.hasEntry("solved", 0L)
+                )
+            );
+        }
+        try (FaR reverses = new FaR(1, 2, true, new RulesOf(), new ResultsFile(file))) {
+            reverses.errors(new Program(xmir), "\\Phi.test");
+            MatcherAssert.assertThat(
+                reverses.counters(),
+                Matchers.hasEntry("cached", 0L)
+            );
+        }
+    }
+
+    @Test
+    void missesResultsOfAnotherVersion(@TempDir final Path dir) throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        final Path file = dir.resolve("results.bin");
+        final String[] versions = {"1", "1", "2"};
+        final long[] cached = {0L, 1L, 0L};
+        for (int idx = 0; idx < versions.length; ++idx) {
+            try (FaR reverses = new FaR(
+                1, 1, true, new RulesOf(), new ResultsFile(file),
+                new Metrics.Void(), new Budget(), versions[idx]
+            )) {
+                reverses.errors(new Program(xmir), "\\Phi.test");
+                MatcherAssert.assertThat(
+                    versions[idx],
+                    reverses.counters(),
+                    Matchers.hasEntry("cached", cached[idx])
+                );
+            }
+        }
+    }
+
+    @Test
+    void reportsStagesAndSolver() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        final MetricsInMemory metrics = new MetricsInMemory();
+        try (FaR reverses = new FaR(
+            1, 1, false, new RulesOf(), new Results.Void(), metrics
+        )) {
+            reverses.errors(new Program(xmir), "\\Phi.test");
+        }
+        MatcherAssert.assertThat(
+            metrics.json(),
+            Matchers.stringContainsInOrder(
+                "{\"name\": \"\\\\Phi.test\"",
+                "{\"stage\": \"expected\", \"runs\": 1",
+                "{\"stage\": \"ids\", \"runs\": 2",
+                "{\"stage\": \"calculate\", \"runs\": 1",
+                "\"solver\": {\"calls\": 1, \"checks\": 1"
+            )
+        );
+    }
+
+    @Test
+    void givesUpWhenBudgetIsOver() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        final Budget[] budgets = {
+            new Budget(Long.MAX_VALUE, 1L, Long.MAX_VALUE),
+            new Budget(0L, Long.MAX_VALUE, Long.MAX_VALUE),
+        };
+        for (final boolean mem : new boolean[] {false, true}) {
+            for (final Budget budget : budgets) {
+                try (FaR reverses = new FaR(
+                    1, 1, mem, new RulesOf(), new Results.Void(),
+                    new Metrics.Void(), budget
+                )) {
+                    MatcherAssert.assertThat(
+                        Assertions.assertThrows(
+                            IllegalStateException.class,
+                            () -> reverses.errors(new Program(xmir), "\\Phi.test")
+                        ).getMessage(),
+                        Matchers.containsString("is inconclusive: the ")
+                    );
+                    MatcherAssert.assertThat(
+                        reverses.errorsAll(
+                            new XMLDocument(new TextOf(new ResourceOf(xmir)).asString())
+                        ),
+                        Matchers.not(Matchers.hasKey("test"))
+                    );
+                    MatcherAssert.assertThat(
+                        reverses.counters(),
+                        Matchers.hasEntry("inconclusive", 2L)
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    void reportsBugsOneByOne() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        for (final boolean mem : new boolean[] {false, true}) {
+            final FaRTest.Heard heard = new FaRTest.Heard(Integer.MAX_VALUE);
+            try (FaR far = new FaR(1, 10, mem)) {
+                far.errors(new Program(xmir), "\\Phi.test", heard);
+            }
+            final List<String> values = new LinkedList<>();
+            final List<String> solutions = new LinkedList<>();
+            for (final Bug bug : heard.bugs) {
+                values.add(bug.attributes().get("b"));
+                solutions.add(bug.taus());
+                solutions.add(bug.expression());
+            }
+            MatcherAssert.assertThat(
+                values,
+                Matchers.allOf(
+                    Matchers.<String>iterableWithSize(Matchers.greaterThan(1)),
+                    Matchers.hasItem("0")
+                )
+            );
+            MatcherAssert.assertThat(
+                solutions,
+                Matchers.everyItem(Matchers.containsString("="))
+            );
+            MatcherAssert.assertThat(
+                heard.done,
+                Matchers.contains(String.format("\\Phi.test: %d", heard.bugs.size()))
+            );
+        }
+    }
+
+    @Test
+    void buildsSameExpressionsInMemory() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        final List<Map<Map<String, String>, String>> exprs = new LinkedList<>();
+        for (final boolean mem : new boolean[] {false, true}) {
+            final FaRTest.Heard heard = new FaRTest.Heard(Integer.MAX_VALUE);
+            try (FaR far = new FaR(1, 100, mem)) {
+                far.errors(new Program(xmir), "\\Phi.test", heard);
+            }
+            final Map<Map<String, String>, String> found = new LinkedHashMap<>(0);
+            for (final Bug bug : heard.bugs) {
+                found.put(bug.attributes(), bug.expression());
+            }
+            exprs.add(found);
+        }
+        MatcherAssert.assertThat(exprs.get(1), Matchers.equalTo(exprs.get(0)));
+    }
+
+    @Test
+    void stopsWhenNoMoreBugsWanted() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        final FaRTest.Heard heard = new FaRTest.Heard(1);
+        final Program program = new Program(xmir);
+        try (FaR far = new FaR(1, 10, true)) {
+            MatcherAssert.assertThat(
+                far.errorsAll(
+                    Arrays.asList(
+                        program.apply("\\Phi.test"), program.apply("\\Phi.test")
+                    ),
+                    heard
+                ),
+                Matchers.is(false)
+            );
+            MatcherAssert.assertThat(heard.bugs, Matchers.hasSize(1));
+            MatcherAssert.assertThat(heard.done, Matchers.empty());
+            MatcherAssert.assertThat(far.counters(), Matchers.hasEntry("solved", 1L));
+        }
+    }
+
+    @Test
+    void stopsSolverWhenNoMoreBugsWanted() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        for (final boolean mem : new boolean[] {false, true}) {
+            final MetricsInMemory metrics = new MetricsInMemory();
+            final FaRTest.Heard heard = new FaRTest.Heard(1);
+            try (FaR far = new FaR(1, 10, mem, new RulesOf(), new Results.Void(), metrics)) {
+                far.errors(new Program(xmir), "\\Phi.test", heard);
+            }
+            MatcherAssert.assertThat(heard.bugs, Matchers.hasSize(1));
+            MatcherAssert.assertThat(
+                metrics.json(),
+                Matchers.containsString("\"solver\": {\"calls\": 1, \"checks\": 1,")
+            );
+        }
+    }
+
+    @Test
+    void closesObjectsWhenStopped() throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        Assumptions.assumeTrue(Files.exists(Paths.get("target/test-classes").resolve(xmir)));
+        final String obj = new Program(xmir).apply("\\Phi.test").toString()
+            .replaceAll("<\\?xml[^>]*\\?>", "");
+        final StringBuilder program = new StringBuilder("<program><objects>");
+        for (int idx = 0; idx < 50; ++idx) {
+            program.append(obj);
+        }
+        final byte[] bytes = program.append("</objects></program>").toString()
+            .getBytes(StandardCharsets.UTF_8);
+        final AtomicBoolean closed = new AtomicBoolean();
+        try (FaR far = new FaR(1, 10, true)) {
+            MatcherAssert.assertThat(
+                far.errorsAll(
+                    new XmirObjects(
+                        () -> new FilterInputStream(new ByteArrayInputStream(bytes)) {
+                            @Override
+                            public void close() throws IOException {
+                                closed.set(true);
+                                super.close();
+                            }
+                        }
+                    ),
+                    new FaRTest.Heard(1)
+                ),
+                Matchers.is(false)
+            );
+        }
+        MatcherAssert.assertThat(closed.get(), Matchers.is(true));
+    }
+
+    /**
+     * Bugs, which were heard.
+     *
+     * @since 1.1
+     */
+    private static final class Heard implements Bugs {
+
+        /**
+         * Bugs heard.
+         */
+        private final List<Bug> bugs;
+
+        /**
+         * Objects done, with the numbers of their bugs.
+         */
+        private final List<String> done;
+
+        /**
+         * How many bugs to hear, at most.
+         */
+        private final int max;
+
+        /**
+         * Ctor.
+         * @param total How many bugs to hear, at most
+         */
+        Heard(final int total) {
+            this.bugs = new LinkedList<>();
+            this.done = new LinkedList<>();
+            this.max = total;
+        }
+
+        @Override
+        public synchronized boolean found(final Bug bug) {
+            this.bugs.add(bug);
+            return this.bugs.size() < this.max;
+        }
+
+        @Override
+        public synchronized void analyzed(final String obj, final int total) {
+            this.done.add(String.format("%s: %d", obj, total));
+        }
+
+        @Override
+        public synchronized void inconclusive(final String obj, final String reason) {
+            this.done.add(String.format("%s: %s", obj, reason));
+        }
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XMLDocument;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Fingerprint}.
+ *
+ * @since 1.1
+ */
+final class FingerprintTest {
+
+    @Test
+    void ignoresFormattingAndOrderOfAttributes() {
+        MatcherAssert.assertThat(
+            new Fingerprint(
+                new XMLDocument("<o name='a' line='1'><o base='b'/>\n  </o>").inner(),
+                "rules"
+            ).asString(),
+            Matchers.equalTo(
+                new Fingerprint(
+                    new XMLDocument("<o line='1' name='a'><!-- hey --><o base='b'/></o>").inner(),
+                    "rules"
+                ).asString()
+            )
+        );
+    }
+
+    @Test
+    void seesChangesInObjectAndText() {
+        final String obj = "<o name='a'><o base='b' line='4'>00 01</o></o>";
+        final String before = new Fingerprint(new XMLDocument(obj).inner(), "x").asString();
+        MatcherAssert.assertThat(
+            before,
+            Matchers.allOf(
+                Matchers.not(
+                    new Fingerprint(
+                        new XMLDocument(obj.replace("'4'", "'5'")).inner(), "x"
+                    ).asString()
+                ),
+                Matchers.not(
+                    new Fingerprint(
+                        new XMLDocument(obj.replace("01", "02")).inner(), "x"
+                    ).asString()
+                ),
+                Matchers.not(
+                    new Fingerprint(new XMLDocument(obj).inner(), "y").asString()
+                ),
+                Matchers.hasLength(64)
+            )
+        );
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link JsonLine}.
+ *
+ * @since 1.1
+ */
+final class JsonLineTest {
+
+    @Test
+    void readsStringsAndArrays() {
+        final JsonLine json = new JsonLine(
+            String.join(
+                "",
+                "{\"id\": 7, \"xmir\" : \"a \\\"b\\\".xmir\", ",
+                "\"locators\": [\"\\\\Phi.x\", \"\\u0041\"]}"
+            )
+        );
+        MatcherAssert.assertThat(json.string("id", ""), Matchers.equalTo("7"));
+        MatcherAssert.assertThat(json.string("xmir", ""), Matchers.equalTo("a \"b\".xmir"));
+        MatcherAssert.assertThat(
+            json.strings("locators"),
+            Matchers.contains("\\Phi.x", "A")
+        );
+        MatcherAssert.assertThat(json.strings("absent"), Matchers.empty());
+        MatcherAssert.assertThat(json.string("absent", "none"), Matchers.equalTo("none"));
+    }
+
+    @Test
+    void readsEmptyObjectAndArray() {
+        MatcherAssert.assertThat(
+            new JsonLine(" { \"a\": [ ] } ").strings("a"),
+            Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            new JsonLine("{}").string("a", "-"),
+            Matchers.equalTo("-")
+        );
+    }
+
+    @Test
+    void rejectsBrokenJson() {
+        for (final String bad : new String[] {"", "[]", "{\"a\": }", "{\"a\" \"b\"}",
+            "{\"a\": \"b}", "{\"a\": 1} x", }) {
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new JsonLine(bad),
+                bad
+            );
+        }
+    }
+
+    @Test
+    void quotesStrings() {
+        MatcherAssert.assertThat(
+            JsonLine.quoted("\\perp \"a\"\n"),
+            Matchers.equalTo("\"\\\\perp \\\"a\\\"\\u000a\"")
+        );
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.util.Map;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Lru}.
+ *
+ * @since 1.1
+ */
+final class LruTest {
+
+    @Test
+    void dropsEntryUsedLeastRecently() {
+        final Map<String, Integer> map = new Lru<>(2);
+        map.put("a", 1);
+        map.put("b", 2);
+        map.get("a");
+        map.put("c", 3);
+        MatcherAssert.assertThat(
+            map.keySet(),
+            Matchers.contains("a", "c")
+        );
+    }
+
+    @Test
+    void keepsNoMoreThanLimit() {
+        final Map<Integer, Integer> map = new Lru<>(3);
+        for (int idx = 0; idx < 100; ++idx) {
+            map.computeIfAbsent(idx, key -> key * 2);
+        }
+        MatcherAssert.assertThat(
+            map.keySet(),
+            Matchers.contains(97, 98, 99)
+        );
+    }
+
+}
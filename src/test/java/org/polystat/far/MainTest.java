@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test case for {@link Main}.
+ *
+ * @since 1.1
+ */
+final class MainTest {
+
+    @Test
+    void exitsWithOneOnBugs(@TempDir final Path dir) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatcherAssert.assertThat(
+            Main.run(
+                new PrintStream(out, true, StandardCharsets.UTF_8.name()),
+                MainTest.sample(dir).toString()
+            ),
+            Matchers.equalTo(1)
+        );
+        MatcherAssert.assertThat(
+            new String(out.toByteArray(), StandardCharsets.UTF_8),
+            Matchers.containsString("\\Phi.test: \\perp at {a=0, b=\\any}")
+        );
+    }
+
+    @Test
+    void exitsWithTwoWhenBudgetIsOver(@TempDir final Path dir) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatcherAssert.assertThat(
+            Main.run(
+                new PrintStream(out, true, StandardCharsets.UTF_8.name()),
+                "--options=1", MainTest.sample(dir).toString(), "\\Phi.test"
+            ),
+            Matchers.equalTo(2)
+        );
+        MatcherAssert.assertThat(
+            new String(out.toByteArray(), StandardCharsets.UTF_8),
+            Matchers.containsString("\\Phi.test: inconclusive: the budget of 1 options is over")
+        );
+    }
+
+    @Test
+    void writesMetrics(@TempDir final Path dir) throws Exception {
+        final Path json = dir.resolve("metrics.json");
+        Main.run(
+            new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8.name()),
+            String.format("--metrics=%s", json), MainTest.sample(dir).toString()
+        );
+        MatcherAssert.assertThat(
+            new String(Files.readAllBytes(json), StandardCharsets.UTF_8),
+            Matchers.allOf(
+                Matchers.containsString("{\"name\": \"test\", \"stages\": ["),
+                Matchers.containsString("{\"stage\": \"reverses\", \"runs\": 1")
+            )
+        );
+    }
+
+    /**
+     * Copy the sample with a bug, since its index is made next to it.
+     * @param dir The directory to copy it to
+     * @return Path to its XMIR
+     * @throws Exception If fails
+     */
+    private static Path sample(final Path dir) throws Exception {
+        final Path src = Paths.get("target/test-classes")
+            .resolve("xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir");
+        Assumptions.assumeTrue(Files.exists(src));
+        final Path xmir = dir.resolve("div-by-zero.xmir");
+        Files.copy(src, xmir);
+        return xmir;
+    }
+
+}
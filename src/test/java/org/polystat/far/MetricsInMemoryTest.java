@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XMLDocument;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link MetricsInMemory}.
+ *
+ * @since 1.1
+ */
+final class MetricsInMemoryTest {
+
+    @Test
+    void printsStagesAndSolverAsJson() {
+        final MetricsInMemory metrics = new MetricsInMemory();
+        metrics.stage("\\Phi.test", "ids", 10L, new XMLDocument("<o a='xy'><o>z</o></o>"));
+        metrics.stage("\\Phi.test", "ids", 5L, new XMLDocument("<o/>"));
+        metrics.stage("\\Phi.test", "calculate", 7L, new XMLDocument("<o/>"));
+        metrics.solver("\\Phi.test", 100L, 2, 9);
+        metrics.stage("b\"c", "ids", 1L, new XMLDocument("<o/>"));
+        MatcherAssert.assertThat(
+            metrics.json(),
+            Matchers.stringContainsInOrder(
+                "{\"name\": \"\\\\Phi.test\"",
+                String.join(
+                    "",
+                    "{\"stage\": \"ids\", \"runs\": 2, ",
+                    "\"nanos\": 15, \"nodes\": 2, \"chars\": 1}"
+                ),
+                "{\"stage\": \"calculate\", \"runs\": 1, \"nanos\": 7",
+                "\"solver\": {\"calls\": 1, \"checks\": 2, \"nanos\": 100, \"assertions\": 9}",
+                "{\"name\": \"b\\\"c\"",
+                "\"solver\": {\"calls\": 0"
+            )
+        );
+    }
+
+    @Test
+    void keepsObjectsMeasuredMostRecently() {
+        final MetricsInMemory metrics = new MetricsInMemory(2);
+        metrics.stage("a", "ids", 1L, new XMLDocument("<o/>"));
+        metrics.stage("b", "ids", 1L, new XMLDocument("<o/>"));
+        metrics.solver("a", 1L, 1, 1);
+        metrics.stage("c", "ids", 1L, new XMLDocument("<o/>"));
+        MatcherAssert.assertThat(
+            metrics.json(),
+            Matchers.allOf(
+                Matchers.containsString("{\"name\": \"a\""),
+                Matchers.not(Matchers.containsString("{\"name\": \"b\"")),
+                Matchers.containsString("{\"name\": \"c\"")
+            )
+        );
+    }
+
+    @Test
+    void countsNodesAndCharacters() {
+        final MetricsInMemory metrics = new MetricsInMemory();
+        metrics.stage("x", "s", 1L, new XMLDocument("<o a='xy'><o>z</o></o>"));
+        MatcherAssert.assertThat(
+            metrics.json(),
+            Matchers.containsString("\"nodes\": 5, \"chars\": 6}")
+        );
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import com.jcabi.xml.XSLDocument;
+import com.microsoft.z3.Context;
+import com.yegor256.xsline.Xsline;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.cactoos.text.UncheckedText;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.xembly.Xembler;
+
+/**
+ * Test case for {@link Options}.
+ *
+ * @since 1.1
+ */
+final class OptionsTest {
+
+    @Test
+    void readsAttributesAndTaus() {
+        final Options opts = new Options(
+            new XMLDocument(
+                String.join(
+                    "",
+                    "<o><o name='a'><opts>",
+                    "<opt x='0'><tau i='4:1'>1</tau><tau i='7:2'>3</tau></opt>",
+                    "<opt x='\\any'><tau i='4:3'>2</tau></opt>",
+                    "</opts></o><o name='@'/></o>"
+                )
+            ).inner()
+        );
+        MatcherAssert.assertThat(
+            opts.attrs().get(0).opts().get(0).get(0).taus(),
+            Matchers.hasSize(2)
+        );
+        MatcherAssert.assertThat(
+            opts.attrs().get(1).name(),
+            Matchers.equalTo("@")
+        );
+        MatcherAssert.assertThat(
+            opts.taus().get("4"),
+            Matchers.contains("1", "2")
+        );
+        MatcherAssert.assertThat(
+            opts.values(),
+            Matchers.contains("0", "1", "3", "\\any", "2")
+        );
+    }
+
+    @Test
+    void seesNothingToChooseFrom() {
+        MatcherAssert.assertThat(
+            new Options(
+                new XMLDocument(
+                    String.join(
+                        "",
+                        "<o><o name='a'><opts>",
+                        "<opt x='NONE'><tau i='4:1'>N</tau></opt>",
+                        "</opts></o><o name='b'><opts/></o><o name='@'/></o>"
+                    )
+                ).inner()
+            ).empty(),
+            Matchers.is(true)
+        );
+    }
+
+    @Test
+    void seesSomethingToChooseFrom() {
+        MatcherAssert.assertThat(
+            new Options(
+                new XMLDocument(
+                    String.join(
+                        "",
+                        "<o><o name='a'><opts>",
+                        "<opt x='NONE'><tau i='4:2'>1</tau></opt>",
+                        "<opt x='0'><tau i='4:2'>2</tau></opt>",
+                        "</opts></o></o>"
+                    )
+                ).inner()
+            ).empty(),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void buildsExpressionsOfAttributes() {
+        final Options opts = new Options(
+            new XMLDocument(
+                String.join(
+                    "",
+                    "<o><o name='a'><opts>",
+                    "<opt x='0'><tau i='4:1'>1</tau></opt>",
+                    "<opt x='1'><tau i='4:1'>2</tau><tau i='5:1'>1</tau></opt>",
+                    "</opts></o>",
+                    "<o name='b'><opts><opt x='\\any'><tau i='6:1'>1</tau></opt></opts></o></o>"
+                )
+            ).inner()
+        );
+        final Map<String, String> bug = new LinkedHashMap<>(0);
+        bug.put("b", "\\any");
+        bug.put("a", "1");
+        MatcherAssert.assertThat(
+            opts.expressions(bug),
+            Matchers.allOf(
+                Matchers.hasEntry("a", "((\uD835\uDF0F4=2 \u2227 \uD835\uDF0F5=1))"),
+                Matchers.hasEntry("b", "((\uD835\uDF0F6=1))")
+            )
+        );
+        MatcherAssert.assertThat(
+            opts.expression(bug),
+            Matchers.equalTo(
+                "((\uD835\uDF0F4=2 \u2227 \uD835\uDF0F5=1)) and ((\uD835\uDF0F6=1))"
+            )
+        );
+    }
+
+    @Test
+    void failsWithoutAttribute() {
+        final Map<String, String> bug = new LinkedHashMap<>(0);
+        bug.put("a", "0");
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new Options(
+                new XMLDocument("<o><o name='a'/><o name='b'/></o>").inner()
+            ).expressions(bug)
+        );
+    }
+
+    @Test
+    void failsWithoutValue() {
+        final Map<String, String> bug = new LinkedHashMap<>(0);
+        bug.put("a", "0");
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new Options(
+                new XMLDocument(
+                    "<o><o name='a'><opts><opt x='1'><tau i='4:1'>1</tau></opt></opts></o></o>"
+                ).inner()
+            ).expressions(bug)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.polystat.far.Samples#names")
+    void buildsExpressionsLikeStylesheetInSamples(final String xmir) throws Exception {
+        final XML before = new Xsline(FaR.before()).pass(Samples.test(xmir));
+        final XML xml;
+        try (Context ctx = Expr.context()) {
+            xml = new XMLDocument(
+                new Xembler(new Expr(before, ctx, 10).find()).apply(before.deepCopy())
+            );
+        }
+        final XML bools = OptionsTest.xsl().transform(xml);
+        final Options opts = new Options(xml.inner());
+        for (final XML input : xml.nodes("/o/input")) {
+            final Map<String, String> bug = new LinkedHashMap<>(0);
+            final List<String> expected = new LinkedList<>();
+            for (final XML attr : input.nodes("a")) {
+                final String name = attr.xpath("@attr").get(0);
+                final String value = attr.xpath("@x").get(0);
+                bug.put(name, value);
+                expected.add(
+                    bools.xpath(
+                        String.format("/o/o[@name='%s']/b[@x='%s']/text()", name, value)
+                    ).get(0)
+                );
+            }
+            MatcherAssert.assertThat(
+                opts.expression(bug),
+                Matchers.equalTo(String.join(" and ", expected))
+            );
+        }
+    }
+
+    @Test
+    void buildsExpressionsLikeStylesheet() {
+        final XML xml = new XMLDocument(
+            String.join(
+                "",
+                "<o><o name='a'>",
+                "<opts><opt x='0'><tau i='4:1'>1</tau><tau i='3:2'>1</tau></opt>",
+                "<opt x='\\any'><tau i='5:1'>2</tau></opt>",
+                "<opt x='7'><tau i='6:1'>1</tau></opt></opts>",
+                "<opts><opt x='7'><tau i='8:1'>1</tau></opt></opts>",
+                "<opts><opt x='0'><tau i='9:1'>2</tau></opt><opt x='\\any'/></opts>",
+                "</o><o name='b'><opts><opt x='1'><tau i='2:1'>1</tau></opt></opts></o>",
+                "<input found='x'><a attr='a' x='0'/><a attr='b' x='1'/></input></o>"
+            )
+        );
+        final Map<String, String> bug = new LinkedHashMap<>(0);
+        bug.put("a", "0");
+        bug.put("b", "1");
+        MatcherAssert.assertThat(
+            new Options(xml.inner()).expression(bug),
+            Matchers.equalTo(
+                String.join(
+                    " and ",
+                    OptionsTest.xsl().transform(xml).xpath(
+                        "/o/o[@name='a']/b[@x='0']/text() | /o/o[@name='b']/b[@x='1']/text()"
+                    )
+                )
+            )
+        );
+    }
+
+    /**
+     * The reference stylesheet, which made expressions before
+     * {@link Options} did.
+     * @return The XSL
+     */
+    private static XSLDocument xsl() {
+        return new XSLDocument(
+            new UncheckedText(
+                new TextOf(new ResourceOf("org/polystat/far/opts-to-expressions.xsl"))
+            ).asString()
+        );
+    }
+
+}
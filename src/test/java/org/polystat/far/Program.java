@@ -24,10 +24,8 @@
 package org.polystat.far;
 
 import com.jcabi.xml.XML;
-import com.jcabi.xml.XMLDocument;
 import org.cactoos.Func;
 import org.cactoos.io.ResourceOf;
-import org.cactoos.text.TextOf;
 
 /**
  * Simulator of a real program from Polystat.
@@ -37,16 +35,16 @@ import org.cactoos.text.TextOf;
 final class Program implements Func<String, XML> {
 
     /**
-     * The location of .xmir file.
+     * The objects of the program, read one by one.
      */
-    private final String res;
+    private final Iterable<XML> objects;
 
     /**
      * Ctor.
      * @param name Name of resource
      */
     Program(final String name) {
-        this.res = name;
+        this.objects = new XmirObjects(new ResourceOf(name));
     }
 
     @Override
@@ -68,12 +66,18 @@ final class Program implements Func<String, XML> {
                 )
             );
         }
-        final XML xml = new XMLDocument(
-            new TextOf(
-                new ResourceOf(this.res)
-            ).asString()
-        );
-        return xml.nodes(String.format("//o[@name='%s']", parts[1])).get(0);
+        XML found = null;
+        for (final XML obj : this.objects) {
+            if (found == null && parts[1].equals(obj.xpath("/o/@name").get(0))) {
+                found = obj;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException(
+                String.format("Can't find object '%s'", name)
+            );
+        }
+        return found;
     }
 
 }
@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test case for {@link ResultsFile}.
+ *
+ * @since 1.1
+ */
+final class ResultsFileTest {
+
+    @Test
+    void findsSavedResultsAfterRestart(@TempDir final Path dir) {
+        final Path file = dir.resolve("cache/results.bin");
+        final Results first = new ResultsFile(file);
+        first.save("a", Arrays.asList("\\perp at {x=0}", "\\perp at {y=1}"));
+        first.save("b", Collections.emptyList());
+        first.save("a", Collections.singletonList("\\perp at {x=\\any}"));
+        final Results second = new ResultsFile(file);
+        MatcherAssert.assertThat(
+            Arrays.asList(second.find("a"), second.find("b"), second.find("c")),
+            Matchers.contains(
+                Optional.of(Collections.singletonList("\\perp at {x=\\any}")),
+                Optional.of(Collections.emptyList()),
+                Optional.empty()
+            )
+        );
+    }
+
+    @Test
+    void cutsOffBrokenRecord(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("results.bin");
+        new ResultsFile(file).save("a", Collections.singletonList("\\perp at {}"));
+        final long size = Files.size(file);
+        Files.write(file, new byte[] {0, 9, 'b'}, StandardOpenOption.APPEND);
+        final Results results = new ResultsFile(file);
+        MatcherAssert.assertThat(
+            results.find("a"),
+            Matchers.equalTo(Optional.of(Collections.singletonList("\\perp at {}")))
+        );
+        MatcherAssert.assertThat(Files.size(file), Matchers.equalTo(size));
+        results.save("b", Collections.emptyList());
+        MatcherAssert.assertThat(
+            new ResultsFile(file).find("b"),
+            Matchers.equalTo(Optional.of(Collections.emptyList()))
+        );
+    }
+
+    @Test
+    void dropsResultsUsedLeastRecently(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("results.bin");
+        final Results results = new ResultsFile(file, 1000L);
+        for (int idx = 0; idx < 100; ++idx) {
+            results.save(
+                String.format("key-%d", idx),
+                Collections.singletonList(String.format("\\perp at {x=%d}", idx))
+            );
+            results.find("key-0");
+        }
+        MatcherAssert.assertThat(
+            Files.size(file),
+            Matchers.lessThanOrEqualTo(1000L)
+        );
+        final Results after = new ResultsFile(file);
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                after.find("key-0").isPresent(),
+                after.find("key-1").isPresent(),
+                after.find("key-99").isPresent()
+            ),
+            Matchers.contains(true, false, true)
+        );
+        try (Stream<Path> files = Files.list(dir)) {
+            MatcherAssert.assertThat(
+                files.collect(Collectors.toList()),
+                Matchers.contains(file)
+            );
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.matchers.XhtmlMatchers;
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import com.yegor256.xsline.Xsline;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.cactoos.text.UncheckedText;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test case for {@link Reverses}.
+ *
+ * <p>The train of shifts before the solver is the reference
+ * implementation, which {@link Reverses} must give the same
+ * options as.</p>
+ *
+ * @since 1.1
+ */
+final class ReversesTest {
+
+    /**
+     * The rules.
+     */
+    private static final Calc CALC = new Calc(
+        new UncheckedText(
+            new TextOf(new ResourceOf("org/polystat/far/rules.txt"))
+        ).asString().trim()
+    );
+
+    @Test
+    void calculatesOptionsOfDataAndAttributes() {
+        MatcherAssert.assertThat(
+            new Reverses(
+                new XMLDocument(
+                    String.join(
+                        "",
+                        "<o name='test' line='1'><o name='a' line='1'/>",
+                        "<o base='.div' name='@' line='2'>",
+                        "<o base='int' data='int' line='2'>1</o>",
+                        "<o base='a' ref='1' line='2'/></o></o>"
+                    )
+                ),
+                ReversesTest.CALC
+            ).xml(),
+            XhtmlMatchers.hasXPaths(
+                "/o[@expected='\\perp']",
+                "/o/o[@name='a']/opts/opt[@x='0' and @m='.div(\\perp)[2]']",
+                "/o/o[@name='a']/opts/opt/tau[@i='2:3' and .='3']",
+                "/o/o[@name='\u03BA-4-2']/opts/opt[@x='\\any']/tau[.='1']",
+                "/o/o[@name='@' and not(opts)]"
+            )
+        );
+    }
+
+    @Test
+    void calculatesLikeTrainInRandomObjects() {
+        final Random random = new Random(42L);
+        for (int idx = 0; idx < 30; ++idx) {
+            final XML obj = ReversesTest.random(random);
+            MatcherAssert.assertThat(
+                obj.toString(),
+                ReversesTest.options(new Reverses(obj, ReversesTest.CALC).xml()),
+                Matchers.equalTo(
+                    ReversesTest.options(new Xsline(FaR.before()).pass(obj))
+                )
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.polystat.far.Samples#names")
+    void calculatesLikeTrainInSamples(final String xmir) throws Exception {
+        final XML obj = Samples.test(xmir);
+        final XML xml = new Xsline(FaR.before()).pass(obj);
+        final Options expected = new Options(xml.inner());
+        final Reverses reverses = new Reverses(obj, ReversesTest.CALC);
+        final Options actual = reverses.options();
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                ReversesTest.options(reverses.xml()).toString(),
+                actual.values().toString(),
+                actual.taus().toString()
+            ),
+            Matchers.equalTo(
+                Arrays.asList(
+                    ReversesTest.options(xml).toString(),
+                    expected.values().toString(),
+                    expected.taus().toString()
+                )
+            )
+        );
+    }
+
+    /**
+     * All options of all attributes, in text.
+     * @param xml The XML
+     * @return Options in text
+     */
+    private static List<String> options(final XML xml) {
+        final List<String> all = new LinkedList<>();
+        for (final XML attr : xml.nodes("/o/o")) {
+            all.add(String.format("o %s", attr.xpath("string(@name)").get(0)));
+            for (final XML opts : attr.nodes("opts")) {
+                all.add("opts");
+                for (final XML opt : opts.nodes("opt")) {
+                    final StringBuilder line = new StringBuilder(0).append(
+                        String.format(
+                            "%s %s",
+                            opt.xpath("string(@m)").get(0),
+                            opt.xpath("string(@x)").get(0)
+                        )
+                    );
+                    for (final XML tau : opt.nodes("tau")) {
+                        line.append(
+                            String.format(
+                                " %s=%s",
+                                tau.xpath("string(@i)").get(0),
+                                tau.xpath("string(.)").get(0)
+                            )
+                        );
+                    }
+                    all.add(line.toString());
+                }
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Make a random object with two free attributes.
+     * @param random Randomizer
+     * @return XML
+     */
+    private static XML random(final Random random) {
+        final StringBuilder xml = new StringBuilder(0).append(
+            "<o name='test' line='1'><o name='a' line='1'/><o name='b' line='1'/>"
+        );
+        if (random.nextBoolean()) {
+            xml.append("<o name='inner' line='2'><o name='x' line='2'/>")
+                .append(ReversesTest.call(random, 2, " name='@'"))
+                .append("</o>");
+        }
+        xml.append(ReversesTest.call(random, 1 + random.nextInt(3), " name='@'"));
+        return new XMLDocument(xml.append("</o>").toString());
+    }
+
+    /**
+     * Make a random call of a function.
+     * @param random Randomizer
+     * @param depth How deep the arguments may go
+     * @param extra Extra XML attributes
+     * @return XML
+     */
+    private static String call(final Random random, final int depth,
+        final String extra) {
+        final String[] funcs = {".plus", ".div", ".eq", ".if", ".times", ".minus"};
+        final StringBuilder xml = new StringBuilder(0).append(
+            String.format(
+                "<o base='%s' line='3'%s>", funcs[random.nextInt(funcs.length)], extra
+            )
+        );
+        final int args = 1 + random.nextInt(3);
+        for (int arg = 0; arg < args; ++arg) {
+            final int kind = random.nextInt(4);
+            if (depth > 0 && kind == 0) {
+                xml.append(ReversesTest.call(random, depth - 1, ""));
+            } else if (kind == 1) {
+                xml.append(
+                    String.format(
+                        "<o base='int' data='int' line='4'>%d</o>",
+                        new int[] {0, 1, 17}[random.nextInt(3)]
+                    )
+                );
+            } else {
+                xml.append(
+                    String.format(
+                        "<o base='%s' line='4' ref='1'/>", new String[] {"a", "b"}[kind % 2]
+                    )
+                );
+            }
+        }
+        return xml.append("</o>").toString();
+    }
+
+}
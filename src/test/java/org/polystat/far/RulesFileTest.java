@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test case for {@link RulesFile}.
+ *
+ * @since 1.1
+ */
+final class RulesFileTest {
+
+    @Test
+    void readsFileOnlyOnce(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("rules.txt");
+        RulesFileTest.write(file, ".mod(y) -> {{y 1}}", 1L);
+        final Rules rules = new RulesFile(file);
+        MatcherAssert.assertThat(
+            rules.calc(),
+            Matchers.sameInstance(rules.calc())
+        );
+    }
+
+    @Test
+    void reloadsChangedFile(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("rules.txt");
+        RulesFileTest.write(file, ".mod(y) -> {{y 1}}", 1L);
+        final Rules rules = new RulesFile(file);
+        final Calc before = rules.calc();
+        RulesFileTest.write(file, ".mod(y) -> {{y 2}}", 2L);
+        MatcherAssert.assertThat(
+            rules.calc().inputs(".mod", 2, "5"),
+            Matchers.contains("2")
+        );
+        MatcherAssert.assertThat(
+            before.inputs(".mod", 2, "5"),
+            Matchers.contains("1")
+        );
+    }
+
+    @Test
+    void keepsPreviousRulesWhenBroken(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("rules.txt");
+        RulesFileTest.write(file, ".mod(y) -> {{y 1}}", 1L);
+        final Rules rules = new RulesFile(file);
+        final Calc before = rules.calc();
+        RulesFileTest.write(file, ".mod(y) -> oops", 2L);
+        MatcherAssert.assertThat(
+            rules.calc(),
+            Matchers.sameInstance(before)
+        );
+    }
+
+    @Test
+    void rejectsBrokenFile(@TempDir final Path dir) throws Exception {
+        final Path file = dir.resolve("rules.txt");
+        RulesFileTest.write(file, "broken", 1L);
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new RulesFile(file).calc()
+        );
+    }
+
+    @Test
+    void rejectsAbsentFile(@TempDir final Path dir) {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new RulesFile(dir.resolve("absent.txt")).calc()
+        );
+    }
+
+    /**
+     * Write the file and set its time of modification.
+     * @param file The file
+     * @param text The content
+     * @param secs Seconds since epoch
+     * @throws Exception If fails
+     */
+    private static void write(final Path file, final String text,
+        final long secs) throws Exception {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(secs * 1000L));
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Test case for {@link RulesOf}.
+ *
+ * @since 1.1
+ */
+final class RulesOfTest {
+
+    @Test
+    void readsDefaultRules() {
+        MatcherAssert.assertThat(
+            new RulesOf().calc().inputs(".div", 2, "\\perp"),
+            Matchers.contains("\\perp", "\\any", "0")
+        );
+    }
+
+    @Test
+    void skipsCommentsAndEmptyLines() {
+        MatcherAssert.assertThat(
+            new RulesOf(
+                String.join(
+                    "\n",
+                    "# how to get an error from .mod",
+                    "",
+                    "  .mod(\\perp) -> {{\\any 0}}  ",
+                    ""
+                )
+            ).calc().inputs(".mod", 2, "\\perp"),
+            Matchers.contains("0")
+        );
+    }
+
+    @Test
+    void returnsSameRulesEveryTime() {
+        final Rules rules = new RulesOf(".pow(y) -> {{y 1}}");
+        MatcherAssert.assertThat(
+            rules.calc(),
+            Matchers.sameInstance(rules.calc())
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+        strings = {
+            "",
+            "# nothing",
+            ".mod(y) {{y 1}}",
+            ".mod(y) -> {{y 1}} -> {{1 y}}",
+            "mod -> {{y 1}}",
+            ".mod(y) -> nothing",
+            ".mod(y) -> {{y 1} {1}}"
+        }
+    )
+    void rejectsBrokenRules(final String text) {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new RulesOf(text).calc()
+        );
+    }
+
+}
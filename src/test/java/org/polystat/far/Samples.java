@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.yegor256.xsline.Shift;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.cactoos.text.UncheckedText;
+import org.junit.jupiter.api.Assumptions;
+
+/**
+ * Samples of programs, made of "src/test/eo" by the EO plugin.
+ *
+ * <p>Parameterized tests take the names of the samples with
+ * <code>@MethodSource("org.polystat.far.Samples#names")</code>.</p>
+ *
+ * @since 1.1
+ */
+final class Samples {
+
+    /**
+     * The directory of the samples, among the resources.
+     */
+    private static final String DIR = "xmir/03-optimize/org/polystat/far/samples";
+
+    /**
+     * Ctor.
+     */
+    private Samples() {
+        // utility class
+    }
+
+    /**
+     * Names of all samples, or skip the test, if they are not made yet.
+     * @return Names of files
+     */
+    static Collection<String> names() {
+        Assumptions.assumeTrue(
+            Files.exists(
+                Paths.get("").resolve("target/test-classes/xmir/03-optimize")
+            ),
+            "You must run 'mvn test' beforehand"
+        );
+        return Arrays.asList(
+            new UncheckedText(
+                new TextOf(new ResourceOf(Samples.DIR))
+            ).asString().split("\n")
+        );
+    }
+
+    /**
+     * Path of the sample, among the resources.
+     * @param name Name of the file
+     * @return The path
+     */
+    static String path(final String name) {
+        return String.format("%s/%s", Samples.DIR, name);
+    }
+
+    /**
+     * The object "test" of the sample.
+     * @param name Name of the file
+     * @return The object
+     * @throws Exception If fails
+     */
+    static XML test(final String name) throws Exception {
+        return new Program(Samples.path(name)).apply("\\Phi.test");
+    }
+
+    /**
+     * Pass the object through the train before the solver, up to
+     * the stage, without it.
+     * @param obj The object
+     * @param uid ID of the stage
+     * @return The object, as the stage gets it
+     */
+    static XML before(final XML obj, final String uid) {
+        XML xml = obj;
+        int pos = 0;
+        for (final Shift shift : FaR.before()) {
+            if (shift.uid().equals(uid)) {
+                break;
+            }
+            xml = shift.apply(pos, xml);
+            ++pos;
+        }
+        return xml;
+    }
+
+    /**
+     * Position of the stage in the train before the solver.
+     * @param uid ID of the stage
+     * @return The position, starting from zero
+     */
+    static int position(final String uid) {
+        int pos = 0;
+        for (final Shift shift : FaR.before()) {
+            if (shift.uid().equals(uid)) {
+                break;
+            }
+            ++pos;
+        }
+        return pos;
+    }
+
+}
@@ -25,18 +25,17 @@ package org.polystat.far;
 
 import com.jcabi.xml.XML;
 import com.jcabi.xml.XMLDocument;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
 import org.cactoos.io.ResourceOf;
 import org.cactoos.text.TextOf;
-import org.cactoos.text.UncheckedText;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
-import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.xembly.Directives;
+import org.xembly.Xembler;
 
 /**
  * Test case for {@link FaR}.
@@ -46,16 +45,13 @@ import org.junit.jupiter.params.provider.MethodSource;
 final class SamplesTest {
 
     @ParameterizedTest
-    @MethodSource("samples")
+    @MethodSource("org.polystat.far.Samples#names")
     void testPacks(final String xmir) throws Exception {
-        final String res = String.format(
-            "xmir/03-optimize/org/polystat/far/samples/%s",
-            xmir
-        );
-        final FaR far = new FaR();
-        final Collection<String> bugs = far.errors(
-            new Program(res), "\\Phi.test"
-        );
+        final String res = Samples.path(xmir);
+        final Collection<String> bugs;
+        try (FaR far = new FaR()) {
+            bugs = far.errors(new Program(res), "\\Phi.test");
+        }
         final XML xml = new XMLDocument(
             new TextOf(new ResourceOf(res)).asString()
         );
@@ -69,20 +65,56 @@ final class SamplesTest {
         );
     }
 
-    @SuppressWarnings("PMD.UnusedPrivateMethod")
-    private static Collection<String> samples() {
-        Assumptions.assumeTrue(
-            Files.exists(
-                Paths.get("").resolve("target/test-classes/xmir/03-optimize")
-            ),
-            "You must run 'mvn test' beforehand"
-        );
-        return Arrays.asList(
-            new UncheckedText(
-                new TextOf(
-                    new ResourceOf("xmir/03-optimize/org/polystat/far/samples")
+    @ParameterizedTest
+    @MethodSource("org.polystat.far.Samples#names")
+    void findsSameBugsInMemory(final String xmir) throws Exception {
+        final Program program = new Program(Samples.path(xmir));
+        try (FaR xsl = new FaR(1, 10); FaR memory = new FaR(1, 10, true)) {
+            MatcherAssert.assertThat(
+                memory.errors(program, "\\Phi.test"),
+                Matchers.equalTo(xsl.errors(program, "\\Phi.test"))
+            );
+        }
+    }
+
+    @Test
+    void analyzesAllSamplesInParallel() throws Exception {
+        final Directives dirs = new Directives().add("program").add("objects");
+        final Collection<String> all = Samples.names();
+        for (final String xmir : all) {
+            dirs.xpath("/program/objects").add("o").append(
+                Directives.copyOf(
+                    SamplesTest.program(xmir).nodes("/program/objects/o").get(0).inner()
+                )
+            ).attr("name", xmir);
+        }
+        final Map<String, Collection<String>> found;
+        try (FaR far = new FaR(3)) {
+            found = far.errorsAll(new XMLDocument(new Xembler(dirs).xml()));
+        }
+        MatcherAssert.assertThat(found.size(), Matchers.equalTo(all.size()));
+        for (final String xmir : all) {
+            MatcherAssert.assertThat(
+                found.get(xmir).size(),
+                Matchers.equalTo(
+                    Integer.parseInt(
+                        SamplesTest.program(xmir)
+                            .xpath("//meta[head='expected']/tail/text()").get(0)
+                    )
                 )
-            ).asString().split("\n")
+            );
+        }
+    }
+
+    /**
+     * Load the sample.
+     * @param xmir Name of the sample
+     * @return XMIR
+     * @throws Exception If fails
+     */
+    private static XML program(final String xmir) throws Exception {
+        return new XMLDocument(
+            new TextOf(new ResourceOf(Samples.path(xmir))).asString()
         );
     }
 
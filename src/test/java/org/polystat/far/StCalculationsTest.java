@@ -0,0 +1,207 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.matchers.XhtmlMatchers;
+import com.jcabi.xml.ClasspathSources;
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import com.yegor256.xsline.Shift;
+import com.yegor256.xsline.StRepeated;
+import com.yegor256.xsline.TrDefault;
+import com.yegor256.xsline.Xsline;
+import java.io.StringReader;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import javax.xml.transform.stream.StreamSource;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.cactoos.text.UncheckedText;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test case for {@link StCalculations}.
+ *
+ * <p>The stylesheet "calculate.xsl", repeated until there are no
+ * <code>r</code> elements left, is the reference implementation,
+ * which {@link StCalculations} replaced.</p>
+ *
+ * @since 1.1
+ */
+final class StCalculationsTest {
+
+    /**
+     * The rules.
+     */
+    private static final Calc CALC = new Calc(
+        new UncheckedText(
+            new TextOf(new ResourceOf("org/polystat/far/rules.txt"))
+        ).asString().trim()
+    );
+
+    @Test
+    void turnsChainIntoOptions() {
+        MatcherAssert.assertThat(
+            new StCalculations(StCalculationsTest.CALC).apply(
+                0,
+                new XMLDocument(
+                    String.join(
+                        "",
+                        "<o expected='\\perp'><o name='a'><opts>",
+                        "<r f='.div' pos='2' tau='8'>",
+                        "<r f='.plus' pos='2' tau='3'/></r>",
+                        "</opts></o></o>"
+                    )
+                )
+            ),
+            XhtmlMatchers.hasXPaths(
+                "/o/o/opts[not(r) and count(opt)=4]",
+                "//opt[@m='.div(.plus(\\perp)[2]=\\perp)[2]' and @x='\\any']",
+                "//opt[@x='0' and .='{\uD835\uDF0F8:3=3} {\uD835\uDF0F3:2=1}']",
+                "//opt[@m='.div(.plus(\\perp)[2]=\\any)[2]' and @x='\\any']"
+            )
+        );
+    }
+
+    @Test
+    void calculatesLikeStylesheetInRandomChains() {
+        final Random random = new Random(42L);
+        for (int idx = 0; idx < 40; ++idx) {
+            final XML xml = StCalculationsTest.random(random);
+            MatcherAssert.assertThat(
+                xml.toString(),
+                StCalculationsTest.options(
+                    new StCalculations(StCalculationsTest.CALC).apply(0, xml)
+                ),
+                Matchers.equalTo(
+                    StCalculationsTest.options(StCalculationsTest.reference(xml))
+                )
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.polystat.far.Samples#names")
+    void calculatesLikeStylesheetInSamples(final String xmir) throws Exception {
+        final Shift calc = new StCalculations(StCalculationsTest.CALC);
+        final XML xml = Samples.before(Samples.test(xmir), calc.uid());
+        MatcherAssert.assertThat(
+            StCalculationsTest.options(calc.apply(Samples.position(calc.uid()), xml)),
+            Matchers.equalTo(
+                StCalculationsTest.options(StCalculationsTest.reference(xml))
+            )
+        );
+    }
+
+    /**
+     * Calculate options with the stylesheet.
+     * @param xml The XML
+     * @return XML without r elements
+     */
+    private static XML reference(final XML xml) {
+        final String path = "org/polystat/far/calculate.xsl";
+        return new Xsline(
+            new TrDefault<Shift>().with(
+                new StRepeated(
+                    new CompiledXSL(
+                        new UncheckedText(new TextOf(new ResourceOf(path))).asString(),
+                        path,
+                        new ClasspathSources()
+                    ).with(
+                        (href, base) -> new StreamSource(
+                            new StringReader(StCalculationsTest.CALC.xsl().toString()),
+                            href
+                        )
+                    ),
+                    doc -> !doc.nodes("//r").isEmpty()
+                )
+            )
+        ).pass(xml);
+    }
+
+    /**
+     * All options, group by group.
+     * @param xml The XML
+     * @return Options in text
+     */
+    private static List<String> options(final XML xml) {
+        final List<String> all = new LinkedList<>();
+        for (final XML opts : xml.nodes("//opts")) {
+            for (final XML opt : opts.nodes("*")) {
+                all.add(
+                    String.format(
+                        "%s %s %s %s", opt.xpath("name()").get(0),
+                        opt.xpath("string(@m)").get(0),
+                        opt.xpath("string(@x)").get(0),
+                        opt.xpath("string(.)").get(0)
+                    )
+                );
+            }
+            all.add("|");
+        }
+        return all;
+    }
+
+    /**
+     * Make random chains of calls of one attribute.
+     * @param random Randomizer
+     * @return XML
+     */
+    private static XML random(final Random random) {
+        final String[] funcs = {".plus", ".div", ".eq", ".if", ".times", ".minus", ".foo"};
+        final String[] expected = {"\\perp", "true", "5"};
+        final StringBuilder xml = new StringBuilder(0).append(
+            String.format(
+                "<o expected='%s'><o name='a'>",
+                expected[random.nextInt(expected.length)]
+            )
+        );
+        int tau = 0;
+        final int groups = 1 + random.nextInt(3);
+        for (int grp = 0; grp < groups; ++grp) {
+            xml.append("<opts>");
+            final int depth = 1 + random.nextInt(4);
+            for (int level = 0; level < depth; ++level) {
+                xml.append(
+                    String.format(
+                        "<r f='%s' pos='%d' tau='%d'>",
+                        funcs[random.nextInt(funcs.length)],
+                        1 + random.nextInt(3), ++tau
+                    )
+                );
+            }
+            for (int level = 0; level < depth; ++level) {
+                xml.append("</r>");
+            }
+            xml.append("</opts>");
+        }
+        return new XMLDocument(xml.append("</o></o>").toString());
+    }
+
+}
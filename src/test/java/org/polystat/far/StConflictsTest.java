@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.matchers.XhtmlMatchers;
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import com.jcabi.xml.XSLDocument;
+import com.yegor256.xsline.Shift;
+import com.yegor256.xsline.StEndless;
+import com.yegor256.xsline.StXSL;
+import com.yegor256.xsline.TrDefault;
+import com.yegor256.xsline.Xsline;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.cactoos.text.UncheckedText;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test case for {@link StConflicts}.
+ *
+ * <p>The stylesheet "cleanup-conflicts.xsl" is the reference
+ * implementation, which {@link StConflicts} replaced.</p>
+ *
+ * @since 1.1
+ */
+final class StConflictsTest {
+
+    @Test
+    void deletesConflictsUntilNothingChanges() {
+        MatcherAssert.assertThat(
+            new StConflicts().apply(
+                0,
+                new XMLDocument(
+                    String.join(
+                        "",
+                        "<o><o name='a'>",
+                        "<opts><opt x='0'><tau i='1:1'>1</tau></opt>",
+                        "<opt x='\\any'><tau i='2:1'>1</tau></opt></opts>",
+                        "<opts><opt x='0'><tau i='1:1'>2</tau></opt>",
+                        "<opt x='5'><tau i='3:1'>1</tau></opt></opts>",
+                        "<opts><opt x='\\any'><tau i='2:1'>2</tau></opt>",
+                        "<opt x='5'><tau i='2:1'>1</tau></opt></opts>",
+                        "</o></o>"
+                    )
+                )
+            ),
+            XhtmlMatchers.hasXPaths(
+                "/o/o/opts[1][count(opt)=1]/opt[@x='\\any']",
+                "/o/o/opts[2][count(opt)=1]/opt[@x='5']",
+                "/o/o/opts[3][count(opt)=1]/opt[@x='5']",
+                "/o/o/opts[1]/comment()"
+            )
+        );
+    }
+
+    @Test
+    void deletesLikeStylesheetInRandomOptions() {
+        final Random random = new Random(42L);
+        for (int idx = 0; idx < 40; ++idx) {
+            final XML xml = StConflictsTest.random(random);
+            MatcherAssert.assertThat(
+                xml.toString(),
+                StConflictsTest.survivors(new StConflicts().apply(0, xml)),
+                Matchers.equalTo(StConflictsTest.survivors(StConflictsTest.reference(xml)))
+            );
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.polystat.far.Samples#names")
+    void deletesLikeStylesheetInSamples(final String xmir) throws Exception {
+        final Shift conflicts = new StConflicts();
+        final XML xml = Samples.before(Samples.test(xmir), conflicts.uid());
+        MatcherAssert.assertThat(
+            StConflictsTest.survivors(
+                conflicts.apply(Samples.position(conflicts.uid()), xml)
+            ),
+            Matchers.equalTo(StConflictsTest.survivors(StConflictsTest.reference(xml)))
+        );
+    }
+
+    /**
+     * Delete conflicts with the stylesheet.
+     * @param xml The XML
+     * @return XML without conflicts
+     */
+    private static XML reference(final XML xml) {
+        return new Xsline(
+            new TrDefault<Shift>().with(
+                new StEndless(
+                    new StXSL(
+                        new XSLDocument(
+                            new UncheckedText(
+                                new TextOf(
+                                    new ResourceOf("org/polystat/far/cleanup-conflicts.xsl")
+                                )
+                            ).asString()
+                        )
+                    )
+                )
+            )
+        ).pass(xml);
+    }
+
+    /**
+     * All options left, group by group.
+     * @param xml The XML
+     * @return Options in text
+     */
+    private static List<String> survivors(final XML xml) {
+        final List<String> all = new LinkedList<>();
+        for (final XML opts : xml.nodes("//opts")) {
+            for (final XML opt : opts.nodes("opt")) {
+                all.add(
+                    String.format(
+                        "%s %s %s", opt.xpath("@x"),
+                        opt.xpath("tau/@i"), opt.xpath("tau/text()")
+                    )
+                );
+            }
+            all.add("|");
+        }
+        return all;
+    }
+
+    /**
+     * Make random options of one attribute.
+     * @param random Randomizer
+     * @return XML
+     */
+    private static XML random(final Random random) {
+        final String[] values = {"0", "1", "\\any"};
+        final StringBuilder xml = new StringBuilder("<o><o name='a'>");
+        final int groups = 2 + random.nextInt(3);
+        for (int grp = 0; grp < groups; ++grp) {
+            xml.append("<opts>");
+            final int opts = 1 + random.nextInt(5);
+            for (int opt = 0; opt < opts; ++opt) {
+                xml.append(
+                    String.format("<opt x='%s'>", values[random.nextInt(values.length)])
+                );
+                final int taus = 1 + random.nextInt(3);
+                for (int tau = 0; tau < taus; ++tau) {
+                    xml.append(
+                        String.format(
+                            "<tau i='%d:1'>%d</tau>",
+                            1 + random.nextInt(4), 1 + random.nextInt(2)
+                        )
+                    );
+                }
+                xml.append("</opt>");
+            }
+            xml.append("</opts>");
+        }
+        return new XMLDocument(xml.append("</o></o>").toString());
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.matchers.XhtmlMatchers;
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test case for {@link StIds}.
+ *
+ * @since 1.1
+ */
+final class StIdsTest {
+
+    @Test
+    void numbersObjectsInDocumentOrder() {
+        MatcherAssert.assertThat(
+            new StIds().apply(
+                0,
+                new XMLDocument(
+                    "<o name='x'><o name='a'/><o name='@'><o base='f'><q/><o base='a'/></o></o></o>"
+                )
+            ),
+            XhtmlMatchers.hasXPaths(
+                "/o[@id='0']",
+                "/o/o[@name='a' and @id='1']",
+                "/o/o[@name='@' and @id='2']",
+                "//o[@base='f' and @id='3']",
+                "//q[not(@id)]",
+                "//o[@base='a' and @id='5']"
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.polystat.far.Samples#names")
+    void numbersLikeCountingInSamples(final String xmir) throws Exception {
+        final XML xml = Samples.before(Samples.test(xmir), "reverses");
+        MatcherAssert.assertThat(
+            xml.nodes("//o[not(@id = count(preceding::*) + count(ancestor::*))]"),
+            Matchers.empty()
+        );
+    }
+
+}
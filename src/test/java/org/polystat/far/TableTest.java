@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.ClasspathSources;
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import javax.xml.transform.stream.StreamSource;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.cactoos.text.UncheckedText;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Table}.
+ *
+ * <p>The function <code>ps:calc()</code> in the XSL made
+ * by {@link Calc#xsl()} is the reference implementation.</p>
+ *
+ * @since 1.1
+ */
+final class TableTest {
+
+    @Test
+    void ignoresExactRulesAfterAnyOutput() {
+        final Table table = new Calc(
+            String.join(
+                "\n",
+                ".f(1) -> {{2 3}}",
+                ".f(y) -> {{y 0}}",
+                ".f(2) -> {{7 7}}",
+                ".f(1) -> {{8 8}}"
+            )
+        ).table();
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                table.inputs(".f", 1, "1"),
+                table.inputs(".f", 2, "1"),
+                table.inputs(".f", 1, "2"),
+                table.inputs(".f", 2, "2")
+            ),
+            Matchers.contains(
+                Arrays.asList("2"),
+                Arrays.asList("3"),
+                Arrays.asList("2"),
+                Arrays.asList("0")
+            )
+        );
+    }
+
+    @Test
+    void takesFirstOfSameOutputs() {
+        MatcherAssert.assertThat(
+            new Calc(
+                String.join(
+                    "\n",
+                    ".g(\\perp) -> {{\\perp 1} {2 \\perp}}",
+                    ".g(\\perp) -> {{5 5}}"
+                )
+            ).table().inputs(".g", 2, "\\perp"),
+            Matchers.contains("1", "\\perp")
+        );
+    }
+
+    @Test
+    void findsNothingWithoutMatchingRule() {
+        final Table table = new Calc(".h(true) -> {{0}}").table();
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                table.inputs(".h", 1, "false"),
+                table.inputs(".unknown", 1, "true"),
+                table.inputs(".unknown", 1, "\\any")
+            ),
+            Matchers.contains(
+                Arrays.asList("NONE"),
+                Arrays.asList("NONE"),
+                Arrays.asList("\\any")
+            )
+        );
+    }
+
+    @Test
+    void findsInputsLikeStylesheetInRealRules() {
+        final Calc calc = new Calc(
+            new UncheckedText(
+                new TextOf(new ResourceOf("org/polystat/far/rules.txt"))
+            ).asString().trim()
+        );
+        final StringBuilder query = new StringBuilder("<q>");
+        final List<String> expected = new LinkedList<>();
+        final List<String> actual = new LinkedList<>();
+        for (final String func : TableTest.funcs()) {
+            for (final String out : TableTest.outs()) {
+                for (int pos = 1; pos <= 3; ++pos) {
+                    query.append(
+                        String.format(
+                            "<c f='%s' pos='%d' y='%s'/>", func, pos, out
+                        )
+                    );
+                    actual.add(
+                        String.format(
+                            "%s(%s)[%d]: %s", func, out, pos,
+                            calc.table().inputs(func, pos, out)
+                        )
+                    );
+                }
+            }
+        }
+        final XML result = new CompiledXSL(
+            String.join(
+                "",
+                "<xsl:stylesheet xmlns:xsl='http://www.w3.org/1999/XSL/Transform'",
+                " xmlns:ps='https://www.polystat.org' version='2.0'>",
+                "<xsl:import href='calc-function.xsl'/>",
+                "<xsl:template match='c'><xsl:copy><xsl:copy-of select='@*'/>",
+                "<xsl:copy-of select='ps:calc(@f, xs:integer(@pos), @y)'",
+                " xmlns:xs='http://www.w3.org/2001/XMLSchema'/>",
+                "</xsl:copy></xsl:template>",
+                "<xsl:template match='q'><xsl:copy>",
+                "<xsl:apply-templates/></xsl:copy></xsl:template>",
+                "</xsl:stylesheet>"
+            ),
+            "calc-test.xsl",
+            new ClasspathSources()
+        ).with(
+            (href, base) -> new StreamSource(
+                new StringReader(calc.xsl().toString()), href
+            )
+        ).transform(new XMLDocument(query.append("</q>").toString()));
+        for (final XML call : result.nodes("/q/c")) {
+            expected.add(
+                String.format(
+                    "%s(%s)[%s]: %s", call.xpath("@f").get(0),
+                    call.xpath("@y").get(0), call.xpath("@pos").get(0),
+                    call.xpath("v/text()")
+                )
+            );
+        }
+        MatcherAssert.assertThat(actual, Matchers.equalTo(expected));
+    }
+
+    /**
+     * All functions to try, with one unknown.
+     * @return Names
+     */
+    private static List<String> funcs() {
+        return Arrays.asList(
+            ".plus", ".div", ".eq", ".if", ".times", ".minus", ".unknown"
+        );
+    }
+
+    /**
+     * All outputs to try.
+     * @return Values
+     */
+    private static List<String> outs() {
+        return Arrays.asList(
+            "\\perp", "\\any", "0", "1", "17", "true", "false", "y"
+        );
+    }
+
+    @Test
+    void knowsWhichFunctionsReturnPerp() {
+        final Table table = new Calc(
+            String.join(
+                "\n",
+                ".a(\\perp) -> {{\\any 0}}",
+                ".b(y) -> {{y 1}}",
+                ".c(true) -> {{0 0}}",
+                ".d(NONE) -> {{1 1}}"
+            )
+        ).table();
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                table.reaches(".a"),
+                table.reaches(".b"),
+                table.reaches(".c"),
+                table.reaches(".d"),
+                table.reaches(".e")
+            ),
+            Matchers.contains(true, true, false, true, false)
+        );
+    }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test case for {@link XmirIndex}.
+ *
+ * @since 1.1
+ */
+final class XmirIndexTest {
+
+    @Test
+    void fetchesObjectsBetweenTrickyMarkup(@TempDir final Path dir) throws Exception {
+        final Path xmir = dir.resolve("a.xmir");
+        Files.write(
+            xmir,
+            String.join(
+                "\n",
+                "<?xml version='1.0'?>",
+                "<program name='a'><listing><![CDATA[<o name='fake'>]]></listing>",
+                "<!-- <o name='comment'/> -->",
+                "<objects>",
+                "<o line='1' name=\"first\" x='a > b'><o name='@' base='.div'/>",
+                "<o name='inner'><o/></o></o>",
+                "<o name='second'/>",
+                "<o base='nameless'/>",
+                "<o name='\u03BA\u03B1\u043F\u043F\u0430'>text</o>",
+                "</objects><metas><o name='meta'/></metas></program>"
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        final XmirIndex index = new XmirIndex(xmir);
+        MatcherAssert.assertThat(
+            index.apply("\\Phi.first").xpath("/o/o/@name"),
+            Matchers.contains("@", "inner")
+        );
+        MatcherAssert.assertThat(
+            index.apply("\\Phi.second").xpath("/o/@name"),
+            Matchers.contains("second")
+        );
+        MatcherAssert.assertThat(
+            index.apply("\\Phi.\u03BA\u03B1\u043F\u043F\u0430").xpath("/o/text()"),
+            Matchers.contains("text")
+        );
+        for (final String absent : new String[] {"fake", "comment", "inner", "meta"}) {
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> index.apply(String.format("\\Phi.%s", absent))
+            );
+        }
+    }
+
+    @Test
+    void decodesNamesLikeParser(@TempDir final Path dir) throws Exception {
+        final Path xmir = dir.resolve("c.xmir");
+        Files.write(
+            xmir,
+            String.join(
+                "",
+                "<program><objects><o name='a&amp;b'/>",
+                "<o name=\"&lt;&#x3B1;&#946;&gt;&quot;&apos;\"/></objects></program>"
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        final XmirIndex index = new XmirIndex(xmir);
+        for (final String name : new String[] {"a&b", "<\u03B1\u03B2>\"'"}) {
+            MatcherAssert.assertThat(
+                index.apply(String.format("\\Phi.%s", name)).xpath("/o/@name"),
+                Matchers.contains(name)
+            );
+        }
+    }
+
+    @Test
+    void buildsBrokenIndexAgain(@TempDir final Path dir) throws Exception {
+        final Path xmir = dir.resolve("d.xmir");
+        Files.write(
+            xmir,
+            "<program><objects><o name='x'/><o name='y'/></objects></program>".getBytes(
+                StandardCharsets.UTF_8
+            )
+        );
+        final Path idx = dir.resolve("d.xmir.idx");
+        new XmirIndex(xmir).apply("\\Phi.x");
+        final byte[] good = Files.readAllBytes(idx);
+        final int header = Integer.BYTES * 2 + Long.BYTES * 2;
+        final byte[] damaged = Arrays.copyOf(good, good.length);
+        Arrays.fill(damaged, header + Integer.BYTES, damaged.length, (byte) 0x7f);
+        final byte[][] broken = {
+            Arrays.copyOf(good, header + Integer.BYTES + 3),
+            Arrays.copyOf(good, good.length - 1),
+            damaged,
+        };
+        for (final byte[] bytes : broken) {
+            Files.write(idx, bytes);
+            MatcherAssert.assertThat(
+                new XmirIndex(xmir).apply("\\Phi.y").xpath("/o/@name"),
+                Matchers.contains("y")
+            );
+            MatcherAssert.assertThat(
+                Files.readAllBytes(idx),
+                Matchers.equalTo(good)
+            );
+        }
+    }
+
+    @Test
+    void keepsIndexOfVeryLongName(@TempDir final Path dir) throws Exception {
+        final Path xmir = dir.resolve("f.xmir");
+        final String name = String.join("", Collections.nCopies(70_000, "x"));
+        Files.write(
+            xmir,
+            String.format(
+                "<program><objects><o name='%s'/><o name='y'/></objects></program>", name
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        final Path idx = dir.resolve("f.xmir.idx");
+        new XmirIndex(xmir).apply("\\Phi.y");
+        final FileTime old = FileTime.fromMillis(0L);
+        Files.setLastModifiedTime(idx, old);
+        MatcherAssert.assertThat(
+            new XmirIndex(xmir).apply(String.format("\\Phi.%s", name)).xpath("/o/@name"),
+            Matchers.contains(name)
+        );
+        MatcherAssert.assertThat(
+            Files.getLastModifiedTime(idx),
+            Matchers.equalTo(old)
+        );
+    }
+
+    @Test
+    void locatesObjectsWhenIndexCantBeWritten(@TempDir final Path dir) throws Exception {
+        final Path xmir = dir.resolve("e.xmir");
+        Files.write(
+            xmir,
+            "<program><objects><o name='x'/></objects></program>".getBytes(
+                StandardCharsets.UTF_8
+            )
+        );
+        final Path idx = dir.resolve("absent").resolve("e.xmir.idx");
+        MatcherAssert.assertThat(
+            new XmirIndex(xmir, idx).apply("\\Phi.x").xpath("/o/@name"),
+            Matchers.contains("x")
+        );
+        MatcherAssert.assertThat(Files.exists(idx), Matchers.is(false));
+    }
+
+    @Test
+    void buildsIndexAgainWhenProgramChanges(@TempDir final Path dir) throws Exception {
+        final Path xmir = dir.resolve("b.xmir");
+        Files.write(
+            xmir,
+            "<program><objects><o name='old'/></objects></program>".getBytes(
+                StandardCharsets.UTF_8
+            )
+        );
+        MatcherAssert.assertThat(
+            new XmirIndex(xmir).apply("\\Phi.old").xpath("/o/@name"),
+            Matchers.contains("old")
+        );
+        MatcherAssert.assertThat(
+            Files.exists(dir.resolve("b.xmir.idx")),
+            Matchers.is(true)
+        );
+        Files.write(
+            xmir,
+            "<program><objects><o name='new'/><o name='more'/></objects></program>"
+                .getBytes(StandardCharsets.UTF_8)
+        );
+        Files.setLastModifiedTime(
+            xmir, FileTime.fromMillis(System.currentTimeMillis() + 10_000L)
+        );
+        MatcherAssert.assertThat(
+            new XmirIndex(xmir).apply("\\Phi.more").xpath("/o/@name"),
+            Matchers.contains("more")
+        );
+    }
+
+    @Test
+    void locatesObjectsForAnalysis(@TempDir final Path dir) throws Exception {
+        final String xmir = "xmir/03-optimize/org/polystat/far/samples/div-by-zero.xmir";
+        final Path src = Paths.get("target/test-classes").resolve(xmir);
+        Assumptions.assumeTrue(Files.exists(src));
+        final Path copy = dir.resolve("div.xmir");
+        Files.copy(src, copy);
+        MatcherAssert.assertThat(
+            new XmirIndex(copy).apply("\\Phi.test").toString(),
+            Matchers.equalTo(new Program(xmir).apply("\\Phi.test").toString())
+        );
+        try (FaR reverses = new FaR()) {
+            MatcherAssert.assertThat(
+                reverses.errors(new XmirIndex(copy), "\\Phi.test"),
+                Matchers.contains(Matchers.startsWith("\\perp at {"))
+            );
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2020-2021 Polystat.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.polystat.far;
+
+import com.jcabi.xml.XML;
+import com.jcabi.xml.XMLDocument;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.cactoos.Input;
+import org.cactoos.io.InputOf;
+import org.cactoos.io.ResourceOf;
+import org.cactoos.text.TextOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Test case for {@link XmirObjects}.
+ *
+ * @since 1.1
+ */
+final class XmirObjectsTest {
+
+    @Test
+    void readsOnlyTopObjects() {
+        final List<String> names = new LinkedList<>();
+        for (final XML obj : new XmirObjects(
+            new InputOf(
+                String.join(
+                    "",
+                    "<?xml version='1.0'?><program><listing>o</listing>",
+                    "<objects><o name='a'><o name='x'/><o name='@' base='.div'>",
+                    "<!-- inside --><o base='x'/></o></o>",
+                    "<o name='b' line='2'><![CDATA[text]]></o></objects>",
+                    "<metas><o name='c'/></metas></program>"
+                )
+            )
+        )) {
+            names.add(obj.xpath("/o/@name").get(0));
+        }
+        MatcherAssert.assertThat(names, Matchers.contains("a", "b"));
+    }
+
+    @Test
+    void keepsEverythingInsideObject() {
+        MatcherAssert.assertThat(
+            new XmirObjects(
+                new InputOf(
+                    String.join(
+                        "",
+                        "<program><objects><o name='a' line='1'>",
+                        "<o name='@' base='.div'><!-- hey --><o base='x'/></o>",
+                        "<o name='t'>data</o></o></objects></program>"
+                    )
+                )
+            ).iterator().next(),
+            Matchers.hasToString(
+                Matchers.equalTo(
+                    new XMLDocument(
+                        String.join(
+                            "",
+                            "<o line='1' name='a'>",
+                            "<o base='.div' name='@'><!-- hey --><o base='x'/></o>",
+                            "<o name='t'>data</o></o>"
+                        )
+                    ).toString()
+                )
+            )
+        );
+    }
+
+    @Test
+    void closesInputWhenClosedEarly() throws Exception {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final Iterator<XML> iter = new XmirObjects(
+            XmirObjectsTest.input(
+                "<program><objects><o name='a'/><o name='b'/></objects></program>",
+                closed
+            )
+        ).iterator();
+        iter.next();
+        ((Closeable) iter).close();
+        MatcherAssert.assertThat(closed.get(), Matchers.is(true));
+        MatcherAssert.assertThat(iter.hasNext(), Matchers.is(false));
+    }
+
+    @Test
+    void closesInputWhenBroken() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final Iterator<XML> iter = new XmirObjects(
+            XmirObjectsTest.input("<program><objects><o name='a'></objects>", closed)
+        ).iterator();
+        Assertions.assertThrows(IllegalStateException.class, iter::hasNext);
+        MatcherAssert.assertThat(closed.get(), Matchers.is(true));
+    }
+
+    @ParameterizedTest
+    @MethodSource("org.polystat.far.Samples#names")
+    void readsLikeDom(final String xmir) throws Exception {
+        final String path = Samples.path(xmir);
+        final List<String> dom = new LinkedList<>();
+        for (final XML obj : new XMLDocument(new TextOf(new ResourceOf(path)).asString())
+            .nodes("/program/objects/o")) {
+            dom.add(new XMLDocument(obj.toString()).toString());
+        }
+        final List<String> streamed = new LinkedList<>();
+        for (final XML obj : new XmirObjects(new ResourceOf(path))) {
+            streamed.add(obj.toString());
+        }
+        MatcherAssert.assertThat(streamed, Matchers.equalTo(dom));
+    }
+
+    /**
+     * Input, which remembers that it was closed.
+     * @param text The content
+     * @param closed Where to remember it
+     * @return The input
+     */
+    private static Input input(final String text, final AtomicBoolean closed) {
+        return () -> new FilterInputStream(
+            new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))
+        ) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+    }
+
+}